@@ -18,6 +18,7 @@ import com.github.forax.pro.api.helper.CmdLine;
 import com.github.forax.pro.api.helper.ProConf;
 import com.github.forax.pro.helper.Log;
 import com.github.forax.pro.helper.Platform;
+import com.github.forax.pro.helper.ProcessHelper;
 import com.github.forax.pro.helper.util.StableList;
 
 public class FormatterPlugin implements Plugin {
@@ -59,7 +60,7 @@ public class FormatterPlugin implements Plugin {
 
   @Override
   public int execute(Config config) throws IOException {
-    var log = Log.create(name(), config.getOrThrow("pro", ProConf.class).loglevel());
+    var log = Log.create(name(), config.getOrThrow(ProConf.KEY).loglevel());
     var convention = config.getOrThrow("convention", ConventionFacade.class);
     var formatterConf = config.getOrThrow(name(), FormatterConf.class);
     log.debug(formatterConf, _formatterConf -> "config " + _formatterConf);
@@ -83,9 +84,8 @@ public class FormatterPlugin implements Plugin {
     files.forEach(cmdLine::add);
 
     var process = new ProcessBuilder(cmdLine.toArguments()).redirectErrorStream(true).start();
-    process.getInputStream().transferTo(System.out);
     try {
-      return process.waitFor();
+      return ProcessHelper.waitFor(process, System.out);
     } catch (InterruptedException e) {
       throw new IOException(e);
     }
@@ -2,6 +2,8 @@ module com.github.forax.pro.plugin.formatter {
   requires com.github.forax.pro.api;
   requires com.github.forax.pro.helper;
 
+  opens com.github.forax.pro.plugin.formatter;
+
   // requires com.google.googlejavaformat;
   // requires com.google.errorprone;
 
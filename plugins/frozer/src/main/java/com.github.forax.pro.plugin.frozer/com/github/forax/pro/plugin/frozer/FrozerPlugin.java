@@ -31,6 +31,7 @@ import org.objectweb.asm.commons.ClassRemapper;
 import org.objectweb.asm.commons.Remapper;
 
 import com.github.forax.pro.api.Config;
+import com.github.forax.pro.api.InputOutputRegistry;
 import com.github.forax.pro.api.MutableConfig;
 import com.github.forax.pro.api.Plugin;
 import com.github.forax.pro.api.WatcherRegistry;
@@ -72,9 +73,17 @@ public class FrozerPlugin implements Plugin {
     frozerConf.modulePath().forEach(registry::watch);
   }
   
+  @Override
+  public void inputsAndOutputs(Config config, InputOutputRegistry registry) {
+    var frozerConf = config.getOrThrow(name(), FrozerConf.class);
+    frozerConf.modulePath().forEach(registry::input);
+    
+    registry.output(frozerConf.moduleFrozenArtifactSourcePath());
+  }
+  
   @Override
   public int execute(Config config) throws IOException {
-    var log = Log.create(name(), config.getOrThrow("pro", ProConf.class).loglevel());
+    var log = Log.create(name(), config.getOrThrow(ProConf.KEY).loglevel());
     var frozerConf = config.getOrThrow(name(), FrozerConf.class);
     log.debug(config, conf -> "config " + frozerConf);
     
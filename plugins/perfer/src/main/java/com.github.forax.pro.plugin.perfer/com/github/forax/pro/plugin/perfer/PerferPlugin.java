@@ -21,6 +21,7 @@ import com.github.forax.pro.api.helper.ProConf;
 import com.github.forax.pro.helper.Log;
 import com.github.forax.pro.helper.ModuleHelper;
 import com.github.forax.pro.helper.Platform;
+import com.github.forax.pro.helper.ProcessHelper;
 import com.github.forax.pro.helper.util.StableList;
 
 public class PerferPlugin implements Plugin {
@@ -55,7 +56,7 @@ public class PerferPlugin implements Plugin {
   
   @Override
   public int execute(Config config) throws IOException {
-    var log = Log.create(name(), config.getOrThrow("pro", ProConf.class).loglevel());
+    var log = Log.create(name(), config.getOrThrow(ProConf.KEY).loglevel());
     var perfer = config.getOrThrow(name(), PerferConf.class);
     log.debug(config, conf -> "config " + perfer);
     
@@ -116,10 +117,8 @@ public class PerferPlugin implements Plugin {
         .redirectErrorStream(true)
         .start();
 
-    process.getInputStream().transferTo(System.out);
-
     try {
-      return process.waitFor();
+      return ProcessHelper.waitFor(process, System.out);
     } catch (InterruptedException e) {
       throw new IOException(e);
     }
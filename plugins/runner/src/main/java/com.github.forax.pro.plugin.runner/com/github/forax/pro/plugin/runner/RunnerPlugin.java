@@ -26,6 +26,7 @@ import com.github.forax.pro.api.helper.OptionAction;
 import com.github.forax.pro.api.helper.ProConf;
 import com.github.forax.pro.helper.Log;
 import com.github.forax.pro.helper.Platform;
+import com.github.forax.pro.helper.ProcessHelper;
 import com.github.forax.pro.helper.util.StableList;
 
 public class RunnerPlugin implements Plugin {
@@ -102,7 +103,7 @@ public class RunnerPlugin implements Plugin {
   
   @Override
   public int execute(Config config) throws IOException {
-    var log = Log.create(name(), config.getOrThrow("pro", ProConf.class).loglevel());
+    var log = Log.create(name(), config.getOrThrow(ProConf.KEY).loglevel());
     var runnerConf = config.getOrThrow(name(), RunnerConf.class);
     log.debug(config, conf -> "config " + runnerConf);
     
@@ -136,10 +137,8 @@ public class RunnerPlugin implements Plugin {
       throw new IOException(e.getMessage() + " while trying to execute " + javaCommand.toString() + " " + String.join(" ", arguments), e);
     }
     
-    process.getInputStream().transferTo(System.out);
-    
     try {
-      return process.waitFor();
+      return ProcessHelper.waitFor(process, System.out);
     } catch (InterruptedException e) {
       throw new IOException(e);
     }
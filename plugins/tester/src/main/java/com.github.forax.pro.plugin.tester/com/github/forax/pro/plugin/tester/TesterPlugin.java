@@ -19,11 +19,14 @@ import java.util.concurrent.TimeoutException;
 import java.util.function.IntSupplier;
 
 import com.github.forax.pro.api.Config;
+import com.github.forax.pro.api.InputOutputRegistry;
 import com.github.forax.pro.api.MutableConfig;
 import com.github.forax.pro.api.Plugin;
 import com.github.forax.pro.api.WatcherRegistry;
 import com.github.forax.pro.api.helper.ProConf;
+import com.github.forax.pro.helper.BuildEvents;
 import com.github.forax.pro.helper.Log;
+import com.github.forax.pro.helper.Trace;
 import com.github.forax.pro.helper.util.StableList;
 
 public class TesterPlugin implements Plugin {
@@ -42,7 +45,7 @@ public class TesterPlugin implements Plugin {
   @Override
   public void configure(MutableConfig config) {
     var testerConf = config.getOrUpdate(name(), TesterConf.class);
-    var proConf = config.getOrThrow("pro", ProConf.class);
+    var proConf = config.getOrThrow(ProConf.KEY);
     ConventionFacade convention = config.getOrThrow("convention", ConventionFacade.class);
 
     // inputs
@@ -61,6 +64,16 @@ public class TesterPlugin implements Plugin {
     testerConf.moduleExplodedTestPath().forEach(registry::watch);
     testerConf.moduleExplodedSourcePath().forEach(registry::watch);
   }
+  
+  @Override
+  public void inputsAndOutputs(Config config, InputOutputRegistry registry) {
+    var testerConf = config.getOrThrow(name(), TesterConf.class);
+    testerConf.moduleExplodedTestPath().forEach(registry::input);
+    testerConf.moduleExplodedSourcePath().forEach(registry::input);
+    testerConf.moduleDependencyPath().forEach(registry::input);
+    
+    registry.output(testerConf.moduleReportTestPath());
+  }
 
   private static List<ModuleReference> modules(List<Path> paths) {
     return ModuleFinder.of(paths.toArray(Path[]::new))
@@ -73,20 +86,30 @@ public class TesterPlugin implements Plugin {
 
   @Override
   public int execute(Config config) throws IOException {
-    var log = Log.create(name(), config.getOrThrow("pro", ProConf.class).loglevel());
+    var log = Log.create(name(), config.getOrThrow(ProConf.KEY).loglevel());
     log.debug(config, conf -> "config " + config);
     var testerConf = config.getOrThrow(name(), TesterConf.class);
 
     var exitCodeSum = 0;
     for (var moduleRef : modules(testerConf.moduleExplodedTestPath())) {
       log.verbose(moduleRef, _moduleRef -> "Testing module " + _moduleRef.descriptor().name() + " ...");
-      exitCodeSum += execute(testerConf, moduleRef);
+      var event = new BuildEvents.TestModuleEvent();
+      event.begin();
+      int exitCode;
+      try(var span = Trace.span("tester", "test " + moduleRef.descriptor().name())) {
+        exitCode = execute(testerConf, moduleRef);
+      }
+      if (event.shouldCommit()) {
+        event.module = moduleRef.descriptor().name();
+        event.exitCode = exitCode;
+        event.commit();
+      }
+      exitCodeSum += exitCode;
     }
     return exitCodeSum;
   }
 
   private int execute(TesterConf tester, ModuleReference moduleReference) throws IOException {
-    var executor = Executors.newSingleThreadExecutor();
     var moduleDescriptor = moduleReference.descriptor();
     var moduleName = moduleDescriptor.name();
     var testPath = Path.of(moduleReference.location().orElseThrow());
@@ -105,6 +128,11 @@ public class TesterPlugin implements Plugin {
     var runnerTypes = new Class<?>[] {testConfClass};
     var runner = (IntSupplier) create(runnerClass, runnerTypes, testConf);
      
+    var executor = Executors.newSingleThreadExecutor(runnable -> {
+      var thread = new Thread(runnable, "tester-" + moduleName);
+      thread.setDaemon(true);  // a test that does not respond to the interruption should not block the VM exit
+      return thread;
+    });
     try {
       var future = executor.submit(runner::getAsInt);
       return future.get(tester.timeout(), TimeUnit.SECONDS);
@@ -115,6 +143,8 @@ public class TesterPlugin implements Plugin {
     } catch (TimeoutException e) {
       e.printStackTrace(); // FIXME
       return 1;
+    } finally {
+      executor.shutdownNow();  // interrupt the tests if they are still running
     }
   }
 
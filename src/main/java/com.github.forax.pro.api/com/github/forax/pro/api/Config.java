@@ -4,6 +4,8 @@ import java.util.NoSuchElementException;
 import java.util.Optional;
 //import java.util.function.BiConsumer;
 
+import com.github.forax.pro.api.impl.Configs;
+
 /**
  * Read only part of the configuration tree API.
  * A config can be seen as set of qualified properties with their associated value.
@@ -34,6 +36,22 @@ public interface Config {
    */
   public <T> Optional<T> get(String key, Class<T> type);
   
+  /**
+   * Returns the value associated with the key or {@code Optional#empty()} if there is no key registered.
+   * 
+   * @param <T> type of the value.
+   * @param key a key with the expected type of the value.
+   * @return either the value corresponding to the key or {@code Optional#empty()} otherwise.
+   * 
+   * @throws ClassCastException if the value is not a subclass of the type of the key.
+   * @throws IllegalStateException if one of the component of the key is not a tree node.
+   * 
+   * @see #get(String, Class)
+   */
+  public default <T> Optional<T> get(ConfigKey<T> key) {
+    return get(key.name(), key.type());
+  }
+  
   /**
    * Calls the consumer with each pair key/value contained in a node and its sub nodes.
    * @param key a qualified name corresponding to a node
@@ -56,4 +74,64 @@ public interface Config {
   public default <T> T getOrThrow(String key, Class<T> type) {
     return get(key, type).orElseThrow(() -> new NoSuchElementException("no key " + key + " defined"));  
   }
+  
+  /**
+   * Returns the value associated with a key or throw a {@link NoSuchElementException} if the value do not exist.
+   *
+   * @param <T> type of the value.
+   * @param key a key with the expected type of the value.
+   * @return  the value associated with the key.
+   * 
+   * @throws NoSuchElementException if the key has no corresponding value
+   * @throws ClassCastException if the value is not a subclass of the type of the key.
+   * @throws IllegalStateException if one of the component of the key is not a tree node.
+   * 
+   * @see #getOrThrow(String, Class)
+   */
+  public default <T> T getOrThrow(ConfigKey<T> key) {
+    var value = get(key);
+    if (value.isEmpty()) {
+      throw new NoSuchElementException("no key " + key.name() + " defined");
+    }
+    return value.get();
+  }
+  
+  /**
+   * Returns a canonical binary encoding of the value associated with a key.
+   * 
+   * Two configuration values with the same content have the same encoding,
+   * whatever the order in which their keys were set, the derived values are
+   * evaluated before being encoded.
+   *
+   * @param key a qualified name.
+   * @return the canonical binary encoding of the value associated with the key.
+   * 
+   * @throws NoSuchElementException if the key has no corresponding value
+   * @throws IllegalStateException if one of the component of the key is not a tree node.
+   * @throws IllegalArgumentException if the value contains a value with no canonical encoding,
+   *         by example an object which is neither a configuration object, a string, a primitive wrapper,
+   *         an enum, a path, an URI, an optional or a collection of those values.
+   * 
+   * @see #hash(String)
+   */
+  public default byte[] encode(String key) {
+    return Configs.encode(getOrThrow(key, Object.class));
+  }
+  
+  /**
+   * Returns a 128 bits hash, as an hexadecimal string, of the canonical binary encoding
+   * of the value associated with a key.
+   *
+   * @param key a qualified name.
+   * @return a hash of the value associated with the key.
+   * 
+   * @throws NoSuchElementException if the key has no corresponding value
+   * @throws IllegalStateException if one of the component of the key is not a tree node.
+   * @throws IllegalArgumentException if the value contains a value with no canonical encoding.
+   * 
+   * @see #encode(String)
+   */
+  public default String hash(String key) {
+    return Configs.hash(encode(key));
+  }
 }
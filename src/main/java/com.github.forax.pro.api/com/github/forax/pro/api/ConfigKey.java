@@ -0,0 +1,50 @@
+package com.github.forax.pro.api;
+
+import com.github.forax.pro.api.impl.Configs;
+
+/**
+ * A qualified key of the configuration tree associated with the type of its value.
+ *
+ * A key is interned and split into its components only once, the configuration
+ * also caches the value associated with a key until the configuration is modified,
+ * so reading a value several times with the same key does not allocate.
+ *
+ * By example,
+ * <pre>
+ *   private static final ConfigKey&lt;String&gt; LOGLEVEL = ConfigKey.of("pro.loglevel", String.class);
+ *   ...
+ *   var loglevel = config.getOrThrow(LOGLEVEL);
+ * </pre>
+ *
+ * @param <T> type of the value associated with the key.
+ *
+ * @see Config#get(ConfigKey)
+ * @see MutableConfig#set(ConfigKey, Object)
+ */
+public interface ConfigKey<T> {
+  /**
+   * Returns the qualified name of the key.
+   * @return the qualified name of the key.
+   */
+  public String name();
+
+  /**
+   * Returns the type of the value associated with the key.
+   * @return the type of the value associated with the key.
+   */
+  public Class<T> type();
+
+  /**
+   * Returns the interned key corresponding to a qualified name and a type.
+   *
+   * @param <T> type of the value.
+   * @param name a qualified name.
+   * @param type the expected type of the value associated with the key.
+   * @return the key corresponding to the qualified name and the type.
+   *
+   * @throws IllegalArgumentException if the qualified name is not valid.
+   */
+  public static <T> ConfigKey<T> of(String name, Class<T> type) {
+    return Configs.key(name, type);
+  }
+}
@@ -0,0 +1,24 @@
+package com.github.forax.pro.api;
+
+import java.nio.file.Path;
+
+/**
+ * Declare the paths read and written by a plugin when it is executed.
+ * 
+ * @see Plugin#inputsAndOutputs(Config, InputOutputRegistry)
+ */
+public interface InputOutputRegistry {
+  /**
+   * Register a file or a directory read by the plugin.
+   * 
+   * @param path a file or a directory
+   */
+  public void input(Path path);
+  
+  /**
+   * Register a file or a directory written by the plugin.
+   * 
+   * @param path a file or a directory
+   */
+  public void output(Path path);
+}
@@ -31,6 +31,20 @@ public interface MutableConfig extends Config {
    */
   public <T> T getOrUpdate(String key, Class<T> type);
   
+  /**
+   * Returns the value associated with the key or use vivification
+   * to dynamically create an object implementing the type of the key.
+   * 
+   * @param <T> type of the value
+   * @param key a key with the type of the value.
+   * @return the value associated with the key
+   * 
+   * @see #getOrUpdate(String, Class)
+   */
+  public default <T> T getOrUpdate(ConfigKey<T> key) {
+    return getOrUpdate(key.name(), key.type());
+  }
+  
   /**
    * Change the value associated with the key.
    * 
@@ -44,9 +58,22 @@ public interface MutableConfig extends Config {
    */
   public void set(String key, Object value);
   
+  /**
+   * Change the value associated with the key.
+   * 
+   * @param key a key
+   * @param value a value
+   * 
+   * @see #set(String, Object)
+   */
+  public default void set(ConfigKey<?> key, Object value) {
+    set(key.name(), value);
+  }
+  
   /**
    * Allow to create a computed value that depends on another value from the same tree.
-   * Each time the value will be asked, the function {@code eval} will be evaluated.
+   * The function {@code eval} is evaluated when the value is asked, the result is cached
+   * until one of the keys read by {@code eval} is modified.
    * 
    * @param <T> type the vivified object {@code to}.
    * @param <U> type the vivified object {@code from}.
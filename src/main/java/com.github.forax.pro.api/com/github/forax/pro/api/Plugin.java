@@ -55,4 +55,21 @@ public interface Plugin extends Command {
    * 
    */
   public void watch(Config config, WatcherRegistry registry);
+  
+  /**
+   * Register the paths read and written by the plugin when it is executed,
+   * those paths are used to find the commands that can be executed concurrently.
+   * 
+   * If no path is registered, the plugin is considered as possibly reading
+   * and writing any paths, so it will never be executed concurrently
+   * with another command. This is what the default implementation does.
+   * 
+   * THIS METHOD IS EXPERIMENTAL AND MAY CHANGE IN THE FUTURE
+   * 
+   * @param config    a read only configuration
+   * @param registry  the registry of the paths read and written by the plugin
+   */
+  public default void inputsAndOutputs(Config config, InputOutputRegistry registry) {
+    // by default, nothing is known
+  }
 }
@@ -4,10 +4,16 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 
+import com.github.forax.pro.api.ConfigKey;
 import com.github.forax.pro.api.TypeCheckedConfig;
 
 @TypeCheckedConfig
 public interface ProConf {
+  /**
+   * The key of the configuration of pro.
+   */
+  ConfigKey<ProConf> KEY = ConfigKey.of("pro", ProConf.class);
+  
   Path currentDir();
   void currentDir(Path path);
   
@@ -23,6 +29,36 @@ public interface ProConf {
   int errorCode();
   void errorCode(int errorCode);
   
+  int parallelism();
+  void parallelism(int parallelism);
+  
+  boolean upToDateCheck();
+  void upToDateCheck(boolean upToDateCheck);
+  
+  boolean buildCache();
+  void buildCache(boolean buildCache);
+  
+  Path buildCachePath();
+  void buildCachePath(Path buildCachePath);
+  
+  long buildCacheMaxSize();
+  void buildCacheMaxSize(long buildCacheMaxSize);
+  
+  List<String> buildCacheCommands();
+  void buildCacheCommands(List<String> buildCacheCommands);
+  
+  boolean buildResult();
+  void buildResult(boolean buildResult);
+  
+  int timeout();
+  void timeout(int seconds);
+  
+  List<String> commandTimeouts();
+  void commandTimeouts(List<String> commandTimeouts);
+  
+  Optional<Path> traceFile();
+  void traceFile(Path traceFile);
+  
   List<String> arguments();
   void arguments(List<String> arguments);
   
@@ -0,0 +1,325 @@
+package com.github.forax.pro.api.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.github.forax.pro.api.impl.Configs.Data;
+import com.github.forax.pro.api.impl.Configs.Root;
+
+/**
+ * Canonical binary encoding of the values of a configuration.
+ *
+ * Each value is encoded as a tag followed by its content, the lengths and the integers
+ * are encoded as variable length integers (LEB128), the keys of a configuration node,
+ * the elements of a set and the entries of a map are sorted so the encoding does not depend
+ * on the iteration order of the hash maps, the derived values are evaluated.
+ * A value of another type has no stable encoding (its string representation may contain
+ * an identity hash code or lose some information) so it is rejected.
+ *
+ * The hash is a MurmurHash3 (x64, 128 bits) of the encoding.
+ */
+final class ConfigEncoder {
+  private static final byte NODE = 'N';
+  private static final byte STRING = 'S';
+  private static final byte TRUE = 'T';
+  private static final byte FALSE = 'F';
+  private static final byte INT = 'I';
+  private static final byte LONG = 'J';
+  private static final byte CHAR = 'C';
+  private static final byte FLOAT = 'f';
+  private static final byte DOUBLE = 'D';
+  private static final byte ENUM = 'E';
+  private static final byte PATH = 'P';
+  private static final byte URI_ = 'U';
+  private static final byte EMPTY = '0';
+  private static final byte PRESENT = '1';
+  private static final byte LIST = 'L';
+  private static final byte SET = 's';
+  private static final byte MAP = 'M';
+
+  private byte[] buffer = new byte[256];
+  private int size;
+
+  private ConfigEncoder() {
+    // use encode()
+  }
+
+  static byte[] encode(Object value) {
+    var encoder = new ConfigEncoder();
+    encoder.writeValue(value, null);
+    return Arrays.copyOf(encoder.buffer, encoder.size);
+  }
+
+  private void writeByte(int value) {
+    if (size == buffer.length) {
+      buffer = Arrays.copyOf(buffer, size << 1);
+    }
+    buffer[size++] = (byte)value;
+  }
+
+  private void writeBytes(byte[] bytes) {
+    if (size + bytes.length > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(size << 1, size + bytes.length));
+    }
+    System.arraycopy(bytes, 0, buffer, size, bytes.length);
+    size += bytes.length;
+  }
+
+  private void writeVarLong(long value) {
+    while((value & ~0x7FL) != 0) {
+      writeByte((int)((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    writeByte((int)value);
+  }
+
+  private void writeSignedVarLong(long value) {
+    writeVarLong((value << 1) ^ (value >> 63));  // zigzag
+  }
+
+  private void writeString(String text) {
+    var bytes = text.getBytes(UTF_8);
+    writeVarLong(bytes.length);
+    writeBytes(bytes);
+  }
+
+  private void writeValue(Object value, Root root) {
+    if (value instanceof Configs.Eval) {
+      value = root.eval((Configs.Eval)value);
+    }
+    if (value instanceof Data) {
+      writeNode((Data)value, root);
+      return;
+    }
+    var node = Configs.nodeOf(value);
+    if (node != null) {
+      writeNode(node.data(), node.root);
+      return;
+    }
+    if (value instanceof String) {
+      writeByte(STRING);
+      writeString((String)value);
+      return;
+    }
+    if (value instanceof Boolean) {
+      writeByte((Boolean)value? TRUE: FALSE);
+      return;
+    }
+    if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      writeByte(INT);
+      writeSignedVarLong(((Number)value).intValue());
+      return;
+    }
+    if (value instanceof Long) {
+      writeByte(LONG);
+      writeSignedVarLong((Long)value);
+      return;
+    }
+    if (value instanceof Character) {
+      writeByte(CHAR);
+      writeVarLong((Character)value);
+      return;
+    }
+    if (value instanceof Float) {
+      writeByte(FLOAT);
+      writeVarLong(Float.floatToIntBits((Float)value) & 0xFFFFFFFFL);
+      return;
+    }
+    if (value instanceof Double) {
+      writeByte(DOUBLE);
+      writeVarLong(Double.doubleToLongBits((Double)value));
+      return;
+    }
+    if (value instanceof Enum<?>) {
+      var enumValue = (Enum<?>)value;
+      writeByte(ENUM);
+      writeString(enumValue.getDeclaringClass().getName());
+      writeString(enumValue.name());
+      return;
+    }
+    if (value instanceof Path) {
+      writeByte(PATH);
+      writeString(value.toString().replace('\\', '/'));
+      return;
+    }
+    if (value instanceof URI) {
+      writeByte(URI_);
+      writeString(value.toString());
+      return;
+    }
+    if (value instanceof Optional<?>) {
+      var optional = (Optional<?>)value;
+      if (optional.isEmpty()) {
+        writeByte(EMPTY);
+        return;
+      }
+      writeByte(PRESENT);
+      writeValue(optional.orElseThrow(), root);
+      return;
+    }
+    if (value instanceof List<?>) {
+      var list = (List<?>)value;
+      writeByte(LIST);
+      writeVarLong(list.size());
+      for(var element: list) {
+        writeValue(element, root);
+      }
+      return;
+    }
+    if (value instanceof Set<?>) {
+      writeByte(SET);
+      writeSorted((Set<?>)value, root);
+      return;
+    }
+    if (value instanceof Map<?, ?>) {
+      var map = (Map<?, ?>)value;
+      writeByte(MAP);
+      writeVarLong(map.size());
+      var entries = new ArrayList<byte[][]>();
+      for(var entry: map.entrySet()) {
+        entries.add(new byte[][] { encode(entry.getKey(), root), encode(entry.getValue(), root) });
+      }
+      entries.sort((e1, e2) -> Arrays.compare(e1[0], e2[0]));
+      for(var entry: entries) {
+        writeBytes(entry[0]);
+        writeBytes(entry[1]);
+      }
+      return;
+    }
+    throw new IllegalArgumentException("no canonical encoding for a value of " + value.getClass().getName());
+  }
+
+  private static byte[] encode(Object value, Root root) {
+    var encoder = new ConfigEncoder();
+    encoder.writeValue(value, root);
+    return Arrays.copyOf(encoder.buffer, encoder.size);
+  }
+
+  private void writeSorted(Collection<?> collection, Root root) {
+    writeVarLong(collection.size());
+    var elements = new ArrayList<byte[]>();
+    for(var element: collection) {
+      elements.add(encode(element, root));
+    }
+    elements.sort(Arrays::compare);
+    elements.forEach(this::writeBytes);
+  }
+
+  private void writeNode(Data data, Root root) {
+    writeByte(NODE);
+    writeString(data.type.getName());
+    var keys = data.map.keySet().toArray(new String[0]);
+    Arrays.sort(keys);
+    writeVarLong(keys.length);
+    for(var key: keys) {
+      writeString(key);
+      writeValue(data.map.get(key), root);
+    }
+  }
+
+
+  // MurmurHash3 x64 128 bits, see https://github.com/aappleby/smhasher
+
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  @SuppressWarnings("fallthrough")
+  static String hash(byte[] data) {
+    var length = data.length;
+    var blocks = length >>> 4;
+    long h1 = 0, h2 = 0;
+    for(var i = 0; i < blocks; i++) {
+      var k1 = getLong(data, i << 4);
+      var k2 = getLong(data, (i << 4) + 8);
+
+      h1 ^= mixK1(k1);
+      h1 = Long.rotateLeft(h1, 27);
+      h1 += h2;
+      h1 = h1 * 5 + 0x52dce729;
+
+      h2 ^= mixK2(k2);
+      h2 = Long.rotateLeft(h2, 31);
+      h2 += h1;
+      h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    // tail
+    var offset = blocks << 4;
+    long k1 = 0, k2 = 0;
+    switch(length & 15) {
+    case 15: k2 ^= (data[offset + 14] & 0xFFL) << 48;  // fallthrough
+    case 14: k2 ^= (data[offset + 13] & 0xFFL) << 40;  // fallthrough
+    case 13: k2 ^= (data[offset + 12] & 0xFFL) << 32;  // fallthrough
+    case 12: k2 ^= (data[offset + 11] & 0xFFL) << 24;  // fallthrough
+    case 11: k2 ^= (data[offset + 10] & 0xFFL) << 16;  // fallthrough
+    case 10: k2 ^= (data[offset + 9] & 0xFFL) << 8;    // fallthrough
+    case 9:  k2 ^= (data[offset + 8] & 0xFFL);
+             h2 ^= mixK2(k2);                          // fallthrough
+    case 8:  k1 ^= (data[offset + 7] & 0xFFL) << 56;   // fallthrough
+    case 7:  k1 ^= (data[offset + 6] & 0xFFL) << 48;   // fallthrough
+    case 6:  k1 ^= (data[offset + 5] & 0xFFL) << 40;   // fallthrough
+    case 5:  k1 ^= (data[offset + 4] & 0xFFL) << 32;   // fallthrough
+    case 4:  k1 ^= (data[offset + 3] & 0xFFL) << 24;   // fallthrough
+    case 3:  k1 ^= (data[offset + 2] & 0xFFL) << 16;   // fallthrough
+    case 2:  k1 ^= (data[offset + 1] & 0xFFL) << 8;    // fallthrough
+    case 1:  k1 ^= (data[offset] & 0xFFL);
+             h1 ^= mixK1(k1);
+             break;
+    default:
+    }
+
+    // finalization
+    h1 ^= length;
+    h2 ^= length;
+    h1 += h2;
+    h2 += h1;
+    h1 = fmix64(h1);
+    h2 = fmix64(h2);
+    h1 += h2;
+    h2 += h1;
+    return toHex(h1) + toHex(h2);
+  }
+
+  private static long getLong(byte[] data, int offset) {  // little endian
+    long value = 0;
+    for(var i = 7; i >= 0; i--) {
+      value = (value << 8) | (data[offset + i] & 0xFFL);
+    }
+    return value;
+  }
+
+  private static long mixK1(long k1) {
+    k1 *= C1;
+    k1 = Long.rotateLeft(k1, 31);
+    return k1 * C2;
+  }
+
+  private static long mixK2(long k2) {
+    k2 *= C2;
+    k2 = Long.rotateLeft(k2, 33);
+    return k2 * C1;
+  }
+
+  private static long fmix64(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+
+  private static String toHex(long value) {
+    var hex = Long.toHexString(value);
+    return "0".repeat(16 - hex.length()) + hex;
+  }
+}
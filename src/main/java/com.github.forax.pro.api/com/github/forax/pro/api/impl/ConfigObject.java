@@ -0,0 +1,73 @@
+package com.github.forax.pro.api.impl;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.util.Optional;
+
+import com.github.forax.pro.api.impl.Configs.Node;
+import com.github.forax.pro.api.impl.Configs.Query;
+
+/**
+ * Super class of the classes generated by {@link Configs} to implement
+ * the interfaces annotated with {@link com.github.forax.pro.api.TypeCheckedConfig}.
+ *
+ * A generated class is defined in the package of the interface it implements,
+ * each accessor of the interface is implemented by an invokedynamic that calls
+ * {@link #bootstrap(Lookup, String, MethodType, int)} once to find the corresponding method handle.
+ */
+public abstract class ConfigObject implements Query {
+  final Node node;
+
+  /**
+   * Called by the constructor of the generated classes.
+   * @param node the configuration node.
+   */
+  protected ConfigObject(Object node) {
+    this.node = (Node)node;
+  }
+
+  /**
+   * Bootstrap method of the invokedynamic of the generated classes.
+   *
+   * @param lookup the lookup of the generated class
+   * @param name the name of the accessor
+   * @param type the type of the accessor, the first parameter is the configuration object
+   * @param index the index of the accessor
+   * @return a constant call site.
+   */
+  public static CallSite bootstrap(Lookup lookup, String name, MethodType type, int index) {
+    var generatedClass = lookup.lookupClass();
+    if (generatedClass.getSuperclass() != ConfigObject.class) {
+      throw new IllegalArgumentException("invalid lookup class " + generatedClass.getName());
+    }
+    return new ConstantCallSite(Configs.accessor(generatedClass.getInterfaces()[0], index).asType(type));
+  }
+
+  @Override
+  public final void _set_(String key, Object value) {
+    node._set_(key, value);
+  }
+  @Override
+  public final void _derive_(String key, Configs.Eval eval) {
+    node._derive_(key, eval);
+  }
+  @Override
+  public final <T> Optional<T> _get_(String key, Class<T> type, boolean readOnly) {
+    return node._get_(key, type, readOnly);
+  }
+  @Override
+  public final String _id_() {
+    return node._id_();
+  }
+  @Override
+  public final Class<?> _type_() {
+    return node._type_();
+  }
+
+  @Override
+  public final String toString() {
+    return node.toString();
+  }
+}
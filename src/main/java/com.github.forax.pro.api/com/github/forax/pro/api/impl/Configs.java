@@ -1,54 +1,97 @@
 package com.github.forax.pro.api.impl;
 
 import static java.lang.invoke.MethodType.methodType;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+import static org.objectweb.asm.Opcodes.ACC_VARARGS;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.H_INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.IRETURN;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V11;
 
+import java.lang.invoke.CallSite;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Type;
+
+import com.github.forax.pro.api.ConfigKey;
 import com.github.forax.pro.api.TypeCheckedConfig;
 
+/**
+ * Implementation of the configuration objects.
+ *
+ * A configuration is a tree of {@link Data}, each data stores its values in a map
+ * and is seen by the user code through a {@link Node} whose instance implements an interface
+ * annotated with {@link TypeCheckedConfig}. For each of those interfaces, a class that extends
+ * {@link ConfigObject} is generated, its accessors directly call a method handle
+ * that reads/writes the map of the node with a precomputed key, type and flags.
+ *
+ * The data are shared when a configuration is duplicated and copied on write,
+ * so duplicating a configuration is a constant time operation.
+ *
+ * If the package of the interface is not open to this module or if the system property
+ * {@code pro.configProxy} is set to true, a {@link Proxy} is used instead of a generated class.
+ */
 public final class Configs {
   private Configs() {
     throw new AssertionError();
   }
-  
+
   public interface Query {
     public void _set_(String key, Object value);
     public void _derive_(String key, Eval eval);
     public <T> Optional<T> _get_(String key, Class<T> type, boolean readOnly);
-    public Map<String, Object> _map_();
     public String _id_();
     public Class<?> _type_();
-    public Object _duplicate_(EvalContext context);
   }
-  
+
+  private static final boolean USE_PROXY = Boolean.getBoolean("pro.configProxy");
+
   private static Query asQuery(Object proxy) {
     if (!(proxy instanceof Query)) {
       throw new IllegalStateException("invalid proxy object " + proxy);
     }
     return (Query)proxy;
   }
-  
+
   private static void setProperty(Object proxy, String key, Object value) {
     asQuery(proxy)._set_(key, value);
   }
-  
+
   private static <T> Optional<T> getProperty(Object proxy, String key, Class<T> type, boolean readOnly) {
     return asQuery(proxy)._get_(key, type, readOnly);
   }
-  
+
   @SuppressWarnings("unchecked")
   public static <T, U, V> void derive(T to, BiConsumer<? super T, ? super V> setter, U from, Function<? super U, ? extends V> eval) {
     var fromQuery = asQuery(from);
@@ -69,7 +112,7 @@ public final class Configs {
     }
     return result;
   }
-  
+
   private static String[] splitAsProperties(String key) {
     var properties = key.split("\\.");
     if (properties.length == 0) {
@@ -77,277 +120,859 @@ public final class Configs {
     }
     return properties;
   }
-  
-  static void set(Object proxy, String key, Object value) {
-    var properties = splitAsProperties(key);
-    var result = traverse(proxy, properties, properties.length - 1, key);
+
+  /**
+   * Implementation of {@link ConfigKey}, the qualified name is split once.
+   *
+   * @param <T> type of the value associated with the key.
+   */
+  static final class Key<T> implements ConfigKey<T> {
+    private final String name;
+    private final Class<T> type;
+    final String[] properties;
+
+    Key(String name, Class<T> type, String[] properties) {
+      this.name = name;
+      this.type = type;
+      this.properties = properties;
+    }
+
+    @Override
+    public String name() {
+      return name;
+    }
+    @Override
+    public Class<T> type() {
+      return type;
+    }
+
+    @Override
+    public String toString() {
+      return name + ':' + type.getName();
+    }
+  }
+
+  private static final ClassValue<ConcurrentHashMap<String, Key<?>>> KEYS = new ClassValue<>() {
+    @Override
+    protected ConcurrentHashMap<String, Key<?>> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+
+  /**
+   * Returns the interned key corresponding to a qualified name and a type.
+   * @param <T> type of the value associated with the key.
+   * @param name a qualified name.
+   * @param type type of the value associated with the key.
+   * @return the interned key.
+   *
+   * @see ConfigKey#of(String, Class)
+   */
+  public static <T> Key<T> key(String name, Class<T> type) {
+    var keys = KEYS.get(type);
+    @SuppressWarnings("unchecked")
+    var key = (Key<T>)keys.get(name);
+    if (key != null) {
+      return key;
+    }
+    @SuppressWarnings("unchecked")
+    var newKey = (Key<T>)keys.computeIfAbsent(name, __ -> new Key<>(name, type, splitAsProperties(name)));
+    return newKey;
+  }
+
+  static <T> Key<T> key(ConfigKey<T> key) {
+    if (key instanceof Key<?>) {
+      return (Key<T>)key;
+    }
+    return key(key.name(), key.type());
+  }
+
+  static void set(Object root, Key<?> key, Object value) {
+    var properties = key.properties;
+    var result = traverse(((Node)root).instance, properties, properties.length - 1, key.name());
     setProperty(result, properties[properties.length - 1], value);
   }
-  
-  static <T> Optional<T> get(Object proxy, String key, Class<T> type, boolean readOnly) {
-    var properties = splitAsProperties(key);
-    var result = traverse(proxy, properties, properties.length - 1, key);
-    return getProperty(result, properties[properties.length - 1], type, readOnly);
+
+  static <T> Optional<T> get(Object root, Key<T> key, boolean readOnly) {
+    var node = (Node)root;
+    var tree = node.root;
+    var modCount = tree.modCount;
+    var cacheable = readOnly && tree.frame() == null;  // a derived value has to record the keys it reads
+    if (cacheable) {
+      var resolved = tree.resolved.get(key);
+      if (resolved != null && resolved.modCount == modCount) {
+        @SuppressWarnings("unchecked")
+        var value = (Optional<T>)resolved.value;
+        return value;
+      }
+    }
+    var properties = key.properties;
+    var result = traverse(node.instance, properties, properties.length - 1, key.name());
+    var value = getProperty(result, properties[properties.length - 1], key.type(), readOnly);
+    if (cacheable) {
+      // if the tree was modified while resolving, the value will be resolved again
+      tree.resolved.put(key, new Resolved(modCount, value));
+    }
+    return value;
   }
 
-  static Stream<String> toStringStream(String prefix, Object value, EvalContext context) {
-    if (!(value instanceof Query)) {
+  /**
+   * The value associated with a key for a modification count of a configuration,
+   * immutable so it can be published to the other threads that read the configuration.
+   */
+  private static final class Resolved {
+    final int modCount;
+    final Optional<?> value;
+
+    Resolved(int modCount, Optional<?> value) {
+      this.modCount = modCount;
+      this.value = value;
+    }
+  }
+
+  private static Stream<String> toStringStream(String prefix, Object value, EvalContext context) {
+    if (!(value instanceof Data)) {
       return Stream.of(prefix + " = " + value);
     }
-    var map = ((Query)value)._map_();
+    var map = ((Data)value).map;
     return map.entrySet()
        .stream()
        .flatMap(entry -> toStringStream(prefix.isEmpty()? entry.getKey(): prefix + "." + entry.getKey(), eval(entry.getValue(), context), context));
   }
-  
+
   private static Object eval(Object value, EvalContext context) {
     if (value instanceof Eval) { // need to evaluate
       return ((Eval)value).eval(context);
     }
     return value;
   }
-  
-  static Object duplicate(Object proxy, EvalContext context) {
-    return asQuery(proxy)._duplicate_(context);
+
+  /**
+   * Duplicate a configuration in constant time, the data are shared by the two configurations
+   * and copied lazily when one of the configurations is modified.
+   *
+   * @param root the root of the configuration (created by {@link #newRoot(EvalContext)}).
+   * @param context the evaluation context of the new configuration.
+   * @return the root of the new configuration.
+   */
+  static Object duplicate(Object root, EvalContext context) {
+    return ((Node)root).duplicateRoot(context);
+  }
+
+  private static final ClassValue<Boolean> CONFIG_TYPES = new ClassValue<>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      return type.isAnnotationPresent(TypeCheckedConfig.class);
+    }
+  };
+
+  private static boolean isConfigType(Class<?> type) {
+    return CONFIG_TYPES.get(type);
+  }
+
+  /**
+   * The data of a node of the configuration tree, the values of the map are either a {@link Data},
+   * an {@link Eval} or a value.
+   * A data can be shared by several configurations, it can only be modified by the configuration
+   * that owns it, the other configurations have to copy it first (copy on write).
+   */
+  static final class Data {
+    final Class<?> type;
+    final boolean frozen;
+    final HashMap<String, Object> map;
+    final Object owner;
+
+    Data(Class<?> type, boolean frozen, HashMap<String, Object> map, Object owner) {
+      this.type = type;
+      this.frozen = frozen;
+      this.map = map;
+      this.owner = owner;
+    }
+
+    Data copy(Object owner) {
+      return new Data(type, frozen, new HashMap<>(map), owner);
+    }
   }
-  
-  private static Object getFromMap(EvalContext context, String id, Map<String, Object> map, Class<?> type, boolean readOnly, boolean frozen, String key) {
+
+  /**
+   * The root of a configuration tree.
+   * The owner is changed each time the configuration is duplicated, so the data are copied
+   * before being modified, the version is changed each time a path of the tree may have changed.
+   */
+  static final class Root {
+    final EvalContext context;
+    Data data;
+    Object owner = new Object();
+    int version;
+    int modCount;  // number of modifications of the values
+
+    // resolved values of the keys, the keys are interned
+    private final ConcurrentHashMap<Key<?>, Resolved> resolved = new ConcurrentHashMap<>();
+
+    // memoized derived values of this snapshot, a configuration can be read by several threads,
+    // a memo is only published once its value and its dependencies are computed
+    private final ConcurrentHashMap<Eval, Memo> memos = new ConcurrentHashMap<>();
+    private final HashMap<String, ArrayList<Memo>> dependents = new HashMap<>();  // guarded by dependents
+    private final ThreadLocal<Memo> frame = new ThreadLocal<>();  // the derived value currently evaluated by a thread
+
+    Root(EvalContext context) {
+      this.context = context;
+    }
+
+    /**
+     * Evaluate a derived value or return the value already computed if none of the keys
+     * read by the evaluation have been modified since.
+     */
+    Object eval(Eval eval) {
+      var enclosing = frame.get();
+      var memo = memos.get(eval);
+      if (memo != null) {
+        EVAL_CACHED.increment();
+        if (enclosing != null) {
+          enclosing.dependencies.addAll(memo.dependencies);
+        }
+        return memo.value;
+      }
+      EVAL_COMPUTED.increment();
+      memo = new Memo(eval);
+      frame.set(memo);
+      try {
+        memo.value = eval.eval(context);
+      } finally {
+        if (enclosing == null) {
+          frame.remove();
+        } else {
+          frame.set(enclosing);
+        }
+      }
+      synchronized(dependents) {
+        for(var dependency: memo.dependencies) {
+          var list = dependents.computeIfAbsent(dependency, __ -> new ArrayList<>());
+          list.removeIf(m -> !m.valid);
+          list.add(memo);
+        }
+      }
+      memos.put(eval, memo);
+      if (enclosing != null) {
+        enclosing.dependencies.addAll(memo.dependencies);
+      }
+      return memo.value;
+    }
+
+    /**
+     * Returns the derived value evaluated by the current thread or null,
+     * the keys read during the evaluation should be recorded as its dependencies.
+     */
+    Memo frame() {
+      return frame.get();
+    }
+
+    void written(String key) {
+      ArrayList<Memo> list;
+      synchronized(dependents) {
+        list = dependents.remove(key);
+      }
+      if (list == null) {
+        return;
+      }
+      for(var memo: list) {
+        memo.valid = false;
+        memos.remove(memo.eval, memo);
+      }
+    }
+  }
+
+  private static final class Memo {
+    final Eval eval;
+    final HashSet<String> dependencies = new HashSet<>();  // the keys read during the evaluation, only modified by the evaluating thread
     Object value;
-    if (type == Optional.class) {
-      value = map.get(key);
-      if (value == null) {
-        return Optional.empty();
+    volatile boolean valid = true;
+
+    Memo(Eval eval) {
+      this.eval = eval;
+    }
+  }
+
+  static final LongAdder EVAL_COMPUTED = new LongAdder();
+  static final LongAdder EVAL_CACHED = new LongAdder();
+
+  /**
+   * The data of a path for a version of the root, immutable so a node can be read by several threads.
+   */
+  private static final class CachedData {
+    final Data data;
+    final int version;
+
+    CachedData(Data data, int version) {
+      this.data = data;
+      this.version = version;
+    }
+  }
+
+  /**
+   * A node of the configuration tree, a node is a view of the data corresponding to a path
+   * from the root. Several nodes with different types can see the same data, by example
+   * a read only view or a view with the type of a builder.
+   */
+  static final class Node implements Query {
+    private final Class<?> type;
+    final Root root;
+    private final String[] path;
+    private String id;  // lazily computed
+    private final boolean readOnly;
+    private final Accessors accessors;
+    final Object instance;  // the object that implements type
+
+    private CachedData cached;  // cache the data corresponding to the path, or null
+
+    Node(Class<?> type, Root root, String[] path, boolean readOnly) {
+      this.type = type;
+      this.root = root;
+      this.path = path;
+      this.readOnly = readOnly;
+      this.accessors = ACCESSORS.get(type);
+      this.instance = accessors.newInstance(this);
+    }
+
+    Data data() {
+      var cached = this.cached;
+      var version = root.version;
+      if (cached == null || cached.version != version) {
+        var data = root.data;
+        for(var key: path) {
+          data = asData(data.map.get(key), key);
+        }
+        cached = new CachedData(data, version);
+        this.cached = cached;
       }
-    } else {
-      value = map.computeIfAbsent(key, __ -> { // auto-vivification if possible 
-        if (readOnly || !type.isAnnotationPresent(TypeCheckedConfig.class)) {
+      return cached.data;
+    }
+
+    private Data mutableData() {
+      var data = data();
+      var owner = root.owner;
+      if (data.owner == owner) {  // the path is already owned
+        return data;
+      }
+      data = root.data;
+      if (data.owner != owner) {
+        data = data.copy(owner);
+        root.data = data;
+      }
+      for(var key: path) {
+        var child = asData(data.map.get(key), key);
+        if (child.owner != owner) {
+          child = child.copy(owner);
+          data.map.put(key, child);
+        }
+        data = child;
+      }
+      root.version++;
+      this.cached = new CachedData(data, root.version);
+      return data;
+    }
+
+    private Data asData(Object value, String key) {
+      if (!(value instanceof Data)) {
+        throw new IllegalStateException("key " + key + " in " + _id_() + " is not a configuration anymore");
+      }
+      return (Data)value;
+    }
+
+    private void put(String key, Object value) {
+      var old = mutableData().map.put(key, value);
+      if (old instanceof Data || value instanceof Data) {  // the paths have changed
+        root.version++;
+      }
+      root.modCount++;
+      root.written(qualified(key));
+    }
+
+    private String qualified(String key) {
+      var id = _id_();
+      return id.isEmpty()? key: id + '.' + key;
+    }
+
+    private String[] childPath(String key) {
+      var childPath = Arrays.copyOf(path, path.length + 1);
+      childPath[path.length] = key;
+      return childPath;
+    }
+
+    Object get(String key, Class<?> type, boolean configType, boolean readOnly) {
+      var readOnlyView = this.readOnly | readOnly;
+      var frame = root.frame();
+      if (frame != null) {
+        frame.dependencies.add(qualified(key));
+      }
+      var value = data().map.get(key);
+      if (value == null) {
+        if (type == Optional.class) {
+          return Optional.empty();
+        }
+        // auto-vivification if possible
+        if (readOnlyView || !configType) {
           throw new NoSuchElementException("no value for key " + key);
         }
-        return proxy(type, context, id.isEmpty()? key: id + '.' + key, new HashMap<>(), /*readOnly*/ false, /*frozen*/ true);
-      });
+        value = new Data(type, /*frozen*/ true, new HashMap<>(), root.owner);
+        put(key, value);
+      }
+
+      if (value instanceof Eval) { // need to evaluate
+        value = root.eval((Eval)value);
+      }
+
+      if (type.isPrimitive()) {  //FIXME, use a wrapper type instead
+        return value;
+      }
+      if (!(value instanceof Data)) {
+        return (type == Optional.class)? Optional.of(value): type.cast(value);
+      }
+
+      var data = (Data)value;
+      var childPath = childPath(key);
+      if (type == Optional.class) {
+        return Optional.of(new Node(data.type, root, childPath, false).instance);
+      }
+      if (!readOnlyView && type.isAssignableFrom(data.type)) {  // avoid to create a view if not necessary
+        return new Node(data.type, root, childPath, false).instance;
+      }
+      // auto-wrapping, or wrap if readOnly
+      if (configType) {
+        return new Node(type, root, childPath, readOnlyView).instance;
+      }
+      return type.cast(new Node(data.type, root, childPath, false).instance);
     }
-    
-    if (value instanceof Eval) { // need to evaluate
-      value = ((Eval)value).eval(context);
+
+    void set(String key, Class<?> type, Object value) {
+      if (readOnly) {
+        throw readOnly(this.type, key);
+      }
+      put(key, checkValue(value, type));
+    }
+
+    Object duplicateRoot(EvalContext context) {
+      var root = this.root;
+      root.owner = new Object();  // the data are now shared
+      root.version++;
+      var newRoot = new Root(context);
+      newRoot.data = root.data;
+      return new Node(type, newRoot, path, readOnly);
+    }
+
+    @Override
+    public <T> Optional<T> _get_(String key, Class<T> type, boolean readOnly) {
+      var result = get(key, type, isConfigType(type), readOnly);
+      if (!(result instanceof Optional<?>)) {
+        if (type.isPrimitive()) {  // Class.cast() doesn't work with a primitive type
+          @SuppressWarnings("unchecked")
+          var value = (T)result;
+          return Optional.of(value);
+        }
+        return Optional.of(type.cast(result));
+      }
+      @SuppressWarnings("unchecked")
+      var optional = (Optional<T>)result;
+      return optional;
+    }
+
+    @Override
+    public void _set_(String key, Object value) {
+      if (readOnly) {
+        throw readOnly(type, key);
+      }
+      var setterType = accessors.setterTypes.get(key);
+      if (setterType == null) {
+        if (data().frozen) {
+          throw frozen(type, key);
+        }
+        setterType = Object.class;
+      }
+      put(key, checkValue(value, setterType));
     }
-    
-    if (type.isPrimitive()) {  //FIXME, use a wrapper type instead 
-      return value;
+
+    @Override
+    public void _derive_(String key, Eval eval) {
+      if (readOnly) {
+        throw readOnly(type, key);
+      }
+      if (data().frozen && !accessors.setterTypes.containsKey(key)) {
+        throw frozen(type, key);
+      }
+      put(key, checkValue(eval, Object.class));
     }
-    if (type == Optional.class) {
-      return Optional.of(value);
+
+    @Override
+    public String _id_() {
+      var id = this.id;
+      if (id == null) {
+        this.id = id = String.join(".", path);
+      }
+      return id;
     }
-    
-    if (!readOnly && type.isInstance(value)) {  // avoid to create a proxy if not necessary
-      return value;
+    @Override
+    public Class<?> _type_() {
+      return type;
     }
-    // auto-wrapping, or wrap if readOnly
-    if (value instanceof Query && type.isAnnotationPresent(TypeCheckedConfig.class)) {
-      var query = (Query)value;
-      return proxy(type, context, query._id_(), query._map_(), readOnly, frozen);
+
+    @Override
+    public String toString() {
+      return toStringStream("", data(), root.context).collect(Collectors.joining("\n", "{\n", "\n}"));
     }
-    return type.cast(value);
   }
-  
-  private static void setFromMap(Map<String, Object> map, Object value, String key, Class<?> type) {
+
+  private static Object checkValue(Object value, Class<?> type) {
     Objects.requireNonNull(value);
-    
+
     if (!(type.isPrimitive())) {  //FIXME, use a wrapper type instead
       type.cast(value);
       //checkTypeImmutable(value.getClass());  //TODO ??
     }
-    map.put(key, value);
+
+    // store the data of a configuration object
+    var node = nodeOf(value);
+    return (node == null)? value: node.data();
+  }
+
+  /**
+   * Returns the node of a configuration object or null if the value is not a configuration object.
+   * @param value a value
+   * @return the node of a configuration object or null.
+   */
+  static Node nodeOf(Object value) {
+    if (value instanceof ConfigObject) {
+      return ((ConfigObject)value).node;
+    }
+    if (Proxy.isProxyClass(value.getClass())) {
+      var handler = Proxy.getInvocationHandler(value);
+      if (handler instanceof ProxyHandler) {
+        return ((ProxyHandler)handler).node;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the canonical binary encoding of a value of a configuration.
+   * @param value a value of a configuration, by example a configuration object.
+   * @return the canonical binary encoding of the value.
+   * @throws IllegalArgumentException if the value contains a value with no canonical encoding.
+   *
+   * @see ConfigEncoder
+   */
+  public static byte[] encode(Object value) {
+    return ConfigEncoder.encode(value);
+  }
+
+  /**
+   * Returns a 128-bit hash of an encoded value as 32 hexadecimal digits.
+   * @param encoded an encoded value.
+   * @return a 128-bit hash of the encoded value.
+   *
+   * @see #encode(Object)
+   */
+  public static String hash(byte[] encoded) {
+    return ConfigEncoder.hash(encoded);
   }
-  
-  private static final int GETTER = 0, SETTER = 1;
-  static final MethodHandle GET_HASH, SET_HASH;
+
+  private static final MethodHandle GET, SET, LIST_OF, NODE;
   static {
     var lookup = MethodHandles.lookup();
     try {
-      GET_HASH = lookup.findStatic(Configs.class, "getFromMap", methodType(Object.class, EvalContext.class, String.class, Map.class, Class.class, boolean.class, boolean.class, String.class));
-      SET_HASH = lookup.findStatic(Configs.class, "setFromMap", methodType(void.class, Map.class, Object.class, String.class, Class.class));
-    } catch (NoSuchMethodException | IllegalAccessException e) {
+      GET = lookup.findVirtual(Node.class, "get", methodType(Object.class, String.class, Class.class, boolean.class, boolean.class));
+      SET = lookup.findVirtual(Node.class, "set", methodType(void.class, String.class, Class.class, Object.class));
+      LIST_OF = lookup.findStatic(List.class, "of", methodType(List.class, Object[].class))
+          .asType(methodType(Object.class, Object[].class));
+      NODE = lookup.findGetter(ConfigObject.class, "node", Node.class);
+    } catch (NoSuchMethodException | NoSuchFieldException | IllegalAccessException e) {
       throw new AssertionError(e);
     }
   }
-  
-  private static final ClassValue<HashMap<String, MethodHandle>[]> ACCESSORS = 
-      new ClassValue<>() {
-        @Override
-        protected HashMap<String, MethodHandle>[] computeValue(Class<?> type) {
-          var getterMap = new HashMap<String, MethodHandle>();
-          var setterMap = new HashMap<String, MethodHandle>();
-          for(var method: type.getMethods()) {
-            var declaringClass = method.getDeclaringClass();
-            if (declaringClass == Object.class) {
-              continue;
-            }
-            //FIXME support default method
-            
-            var name = method.getName();
-            switch(method.getParameterCount()) {
-            case 0: {
-              var mh = MethodHandles.insertArguments(GET_HASH, 6, name);
-              getterMap.put(name, mh);
-              continue;
-            }
-            case 1: {
-              if (method.isVarArgs()) {  // skip varags methods as they will hide the real implementation
-                continue;
-              }
-              var mh = MethodHandles.insertArguments(SET_HASH, 2, name, method.getParameterTypes()[0]);
-              setterMap.put(name, mh);
-              continue;
-            }
-            default:
-              throw new IllegalStateException("invalid method " + method + " on " + declaringClass.getName());
-            }
+
+  /**
+   * The accessors of an interface annotated with {@link TypeCheckedConfig}.
+   * The method handles of the getters have the type (Node)Object,
+   * the method handles of the setters have the type (Node, Object)void.
+   */
+  private static final class Accessors {
+    final HashMap<String, Class<?>> setterTypes = new HashMap<>();
+    final ArrayList<Method> methods = new ArrayList<>();
+    final ArrayList<MethodHandle> handles = new ArrayList<>();
+    final HashMap<Method, Integer> indexMap = new HashMap<>();   // only used by the proxies
+    MethodHandle constructor;  // (Node)Object or null if a proxy is used
+
+    Object newInstance(Node node) {
+      if (constructor == null) {
+        return Proxy.newProxyInstance(node.type.getClassLoader(),
+            new Class<?>[] { node.type, Query.class }, new ProxyHandler(node, this));
+      }
+      try {
+        return constructor.invokeExact(node);
+      } catch(RuntimeException | Error e) {
+        throw e;
+      } catch(Throwable t) {
+        throw new AssertionError(t);
+      }
+    }
+  }
+
+  private static boolean isObjectMethod(Method method) {
+    try {
+      Object.class.getMethod(method.getName(), method.getParameterTypes());
+      return true;
+    } catch(@SuppressWarnings("unused") NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private static Accessors createAccessors(Class<?> type) {
+    var accessors = new Accessors();
+    for(var method: type.getMethods()) {
+      if (Modifier.isStatic(method.getModifiers()) || isObjectMethod(method)) {
+        continue;
+      }
+      //FIXME support default method
+
+      var name = method.getName();
+      switch(method.getParameterCount()) {
+      case 0:
+        continue;
+      case 1:
+        if (!method.isVarArgs()) {  // the varargs methods use the type of the real implementation
+          accessors.setterTypes.put(name, method.getParameterTypes()[0]);
+        }
+        continue;
+      default:
+        throw new IllegalStateException("invalid method " + method + " on " + method.getDeclaringClass().getName());
+      }
+    }
+    for(var method: type.getMethods()) {
+      if (Modifier.isStatic(method.getModifiers()) || isObjectMethod(method)) {
+        continue;
+      }
+      var name = method.getName();
+      MethodHandle handle;
+      if (method.getParameterCount() == 0) {
+        var returnType = method.getReturnType();
+        handle = MethodHandles.insertArguments(GET, 1, name, returnType, isConfigType(returnType), false);
+      } else {
+        var parameterType = method.isVarArgs()? accessors.setterTypes.getOrDefault(name, List.class): method.getParameterTypes()[0];
+        handle = MethodHandles.insertArguments(SET, 1, name, parameterType);
+        if (method.isVarArgs()) {
+          handle = MethodHandles.filterArguments(handle, 1, LIST_OF);
+        }
+      }
+      accessors.indexMap.put(method, accessors.methods.size());
+      accessors.methods.add(method);
+      accessors.handles.add(handle);
+    }
+    return accessors;
+  }
+
+  private static final ClassValue<Accessors> ACCESSORS = new ClassValue<>() {
+    @Override
+    protected Accessors computeValue(Class<?> type) {
+      if (!isConfigType(type)) {
+        throw new IllegalArgumentException("can only proxy interface (" + type.getSimpleName() + ") tagged with @TypeCheckedConfig");
+      }
+      var module = Configs.class.getModule();
+      module.addReads(type.getModule());
+
+      var accessors = createAccessors(type);
+      var typeModule = type.getModule();
+      if (!USE_PROXY &&
+          typeModule.isOpen(type.getPackageName(), module) &&
+          typeModule.canRead(module)) {
+        // the generated class is in the module of the interface and extends ConfigObject
+        module.addExports(ConfigObject.class.getPackageName(), typeModule);
+        accessors.constructor = generate(type, accessors);
+      }
+      return accessors;
+    }
+  };
+
+  /**
+   * Returns the method handle of an accessor of a generated class,
+   * the first parameter of the method handle is the configuration object.
+   *
+   * @param type the interface implemented by the generated class.
+   * @param index the index of the accessor.
+   * @return the method handle of the accessor.
+   */
+  static MethodHandle accessor(Class<?> type, int index) {
+    var handle = ACCESSORS.get(type).handles.get(index);
+    return MethodHandles.filterArguments(handle, 0, NODE);
+  }
+
+  private static final Handle BSM = new Handle(H_INVOKESTATIC,
+      Type.getInternalName(ConfigObject.class), "bootstrap",
+      MethodType.methodType(CallSite.class, Lookup.class, String.class, MethodType.class, int.class).toMethodDescriptorString(),
+      false);
+  private static final Object GENERATE_LOCK = new Object();
+
+  private static MethodHandle generate(Class<?> type, Accessors accessors) {
+    var superName = Type.getInternalName(ConfigObject.class);
+    var className = Type.getInternalName(type) + "$$Config";
+
+    var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    writer.visit(V11, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, className, null, superName,
+        new String[] { Type.getInternalName(type) });
+
+    var init = writer.visitMethod(ACC_PUBLIC, "<init>", "(Ljava/lang/Object;)V", null, null);
+    init.visitCode();
+    init.visitVarInsn(ALOAD, 0);
+    init.visitVarInsn(ALOAD, 1);
+    init.visitMethodInsn(INVOKESPECIAL, superName, "<init>", "(Ljava/lang/Object;)V", false);
+    init.visitInsn(RETURN);
+    init.visitMaxs(-1, -1);
+    init.visitEnd();
+
+    for(var index = 0; index < accessors.methods.size(); index++) {
+      var method = accessors.methods.get(index);
+      var access = ACC_PUBLIC | (method.isVarArgs()? ACC_VARARGS: 0);
+      var mv = writer.visitMethod(access, method.getName(), Type.getMethodDescriptor(method), null, null);
+      mv.visitCode();
+      mv.visitVarInsn(ALOAD, 0);
+      var returnType = Type.getReturnType(method);
+      if (method.getParameterCount() == 0) {
+        mv.visitInvokeDynamicInsn(method.getName(), "(Ljava/lang/Object;)" + returnType.getDescriptor(), BSM, index);
+        mv.visitInsn(returnType.getOpcode(IRETURN));
+      } else {
+        var parameterType = Type.getArgumentTypes(method)[0];
+        mv.visitVarInsn(parameterType.getOpcode(ILOAD), 1);
+        mv.visitInvokeDynamicInsn(method.getName(), "(Ljava/lang/Object;" + parameterType.getDescriptor() + ")V", BSM, index);
+        if (returnType.getSort() == Type.VOID) {
+          mv.visitInsn(RETURN);
+        } else {  // acts as a builder
+          mv.visitVarInsn(ALOAD, 0);
+          mv.visitTypeInsn(CHECKCAST, returnType.getInternalName());
+          mv.visitInsn(ARETURN);
+        }
+      }
+      mv.visitMaxs(-1, -1);
+      mv.visitEnd();
+    }
+    writer.visitEnd();
+
+    try {
+      var lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+      Class<?> generatedClass;
+      synchronized(GENERATE_LOCK) {  // the same class can not be defined twice
+        try {
+          generatedClass = lookup.findClass(className.replace('/', '.'));
+        } catch(@SuppressWarnings("unused") ClassNotFoundException e) {
+          generatedClass = lookup.defineClass(writer.toByteArray());
+        }
+      }
+      return lookup.findConstructor(generatedClass, methodType(void.class, Object.class))
+          .asType(methodType(Object.class, Node.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new IllegalStateException("can not generate the implementation of " + type.getName(), e);
+    }
+  }
+
+  private static final class ProxyHandler implements InvocationHandler {
+    final Node node;
+    private final Accessors accessors;
+
+    ProxyHandler(Node node, Accessors accessors) {
+      this.node = node;
+      this.accessors = accessors;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      Class<?> declaringClass = method.getDeclaringClass();
+      var name = method.getName();
+      if (declaringClass == Query.class) {
+        switch(name) {
+        case "_get_":
+          return node._get_((String)args[0], (Class<?>)args[1], (Boolean)args[2]);
+        case "_set_":
+          node._set_((String)args[0], args[1]);
+          return null;
+        case "_derive_":
+          node._derive_((String)args[0], (Eval)args[1]);
+          return null;
+        case "_id_":
+          return node._id_();
+        case "_type_":
+          return node._type_();
+        default:
+        }
+      } else if (declaringClass == Object.class) {
+        switch(name) {
+        case "toString":
+          return node.toString();
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        default:
+        }
+      } else {
+        var index = accessors.indexMap.get(method);
+        if (index != null) {
+          var handle = accessors.handles.get(index);
+          if (method.getParameterCount() == 0) {
+            return handle.invoke(node);
           }
-          @SuppressWarnings("unchecked")
-          var accessors =
-            (HashMap<String, MethodHandle>[])new HashMap<?,?>[] { getterMap, setterMap};
-          return accessors;
+          handle.invoke(node, args[0]);
+          return (method.getReturnType() == void.class)? null: proxy; // acts as a builder
         }
-      };
-  
-      
+      }
+      throw new IllegalStateException("invalid method " + method + " on " + declaringClass.getName());
+    }
+  }
+
+
   public interface EvalContext {
     <T> Optional<T> get(String key, Class<T> type);
   }
-  
+
   @FunctionalInterface
-  private interface Eval {
+  interface Eval {
     Object eval(EvalContext context);
-  
+
     static Eval of(Eval eval) {
       return eval;
     }
   }
-      
-  
-  
+
+
+
   @TypeCheckedConfig
   private interface Group {
     // empty
   }
-  
+
   static Object newRoot(EvalContext context) {
-    return proxy(Group.class, context, "", new HashMap<>(), /*readOnly*/ false, /*frozen*/ false);
-  }
-  
-  private static <T> T proxy(Class<T> proxyClass, EvalContext context, String id, Map<String, Object> map,
-      boolean proxyReadOnly, boolean proxyFrozen) {
-    if (!proxyClass.isAnnotationPresent(TypeCheckedConfig.class)) {
-      throw new IllegalArgumentException("can only proxy interface (" + proxyClass.getSimpleName() + ") tagged with @TypeCheckedConfig");
-    }
-    Configs.class.getModule().addReads(proxyClass.getModule());
-    
-    var accessors = ACCESSORS.get(proxyClass);
-    var getterMap = accessors[GETTER];
-    var setterMap = accessors[SETTER];
-    return proxyClass.cast(Proxy.newProxyInstance(proxyClass.getClassLoader(),
-        new Class<?>[] { proxyClass, Query.class },
-        (Object proxy, Method method, Object[] args) -> {
-          Class<?> declaringClass = method.getDeclaringClass();
-          var name = method.getName();
-          if (declaringClass == Query.class) {
-            switch(name) {
-            case "_get_": {
-              var key = (String)args[0];
-              var type = (Class<?>)args[1];
-              var readOnly = (Boolean)args[2];
-              var mh = getterMap.get(key);
-              Object result;
-              if (mh == null) {
-                result = getFromMap(context, id, map, type, proxyReadOnly | readOnly, proxyFrozen, key);
-              } else {
-                result = mh.invokeExact(context, id, map, type, proxyReadOnly | readOnly, proxyFrozen);
-              }
-              if (!(result instanceof Optional<?>)) {
-                return Optional.of(result);
-              }
-              return result;
-            }
-            case "_set_": {
-              var key = (String)args[0];
-              var value = args[1];
-              if (proxyReadOnly) {
-                throw readOnly(proxyClass, key);
-              }
-              var mh = setterMap.get(key);
-              if (mh == null) {
-                if (proxyFrozen) {
-                  throw frozen(proxyClass, key);
-                }
-                setFromMap(map, value, key,  Object.class);
-              } else {
-                mh.invokeExact(map, value);
-              }
-              return null;
-            }
-            case "_derive_": {
-              var key = (String)args[0];
-              var eval = (Eval)args[1];
-              if (proxyReadOnly) {
-                throw readOnly(proxyClass, key);
-              }
-              if (proxyFrozen && !setterMap.containsKey(key)) {
-                throw frozen(proxyClass, key);
-              }
-              setFromMap(map, eval, key,  Object.class);
-              return null;
-            }
-            case "_map_":
-              return map;
-            case "_id_":
-              return id;
-            case "_type_":
-              return proxyClass;
-            case "_duplicate_": {
-              var ctx = (EvalContext)args[0];
-              var newMap = new HashMap<String, Object>();
-              map.forEach((key, value) -> {
-                Object newValue = (value instanceof Query)?((Query)value)._duplicate_(ctx): value;
-                newMap.put(key, newValue);
-              });
-              return proxy(proxyClass, ctx, id, newMap, proxyReadOnly, proxyFrozen);
-            }
-              
-            default:
-            }
-          } else {
-            if (declaringClass == Object.class) {
-              switch(name) {
-              case "toString":
-                return toStringStream("", proxy, context).collect(Collectors.joining("\n", "{\n", "\n}"));
-              case "equals":
-                return proxy == args[1];
-              case "hashCode":
-                return System.identityHashCode(proxy);
-              default:
-              }
-            } else {
-            	var parameterCount = method.getParameterCount();
-            	if (parameterCount == 0) {
-            		return getterMap.get(name).invokeExact(context, id, map, method.getReturnType(), proxyReadOnly, proxyFrozen);
-            	}
-            	if (parameterCount == 1) {
-            		if (proxyReadOnly) {
-            			throw readOnly(proxyClass, method.getName());
-            		}
-            		var value = method.isVarArgs()? List.of((Object[])args[0]): args[0];
-            		setterMap.get(name).invokeExact(map, value);
-            		return proxy; // acts as a builder;
-            	}
-            }
-          }
-          throw new IllegalStateException("invalid method " + method + " on " + declaringClass.getName());
-        }));
+    var root = new Root(context);
+    root.data = new Data(Group.class, /*frozen*/ false, new HashMap<>(), root.owner);
+    return new Node(Group.class, root, new String[0], /*readOnly*/ false);
   }
 
-  
-  
+
+  // cache of the keys of the setters, only for the setters that do not capture values
+  private static final ClassValue<ConcurrentHashMap<Class<?>, String>> KEY_CACHE = new ClassValue<>() {
+    @Override
+    protected ConcurrentHashMap<Class<?>, String> computeValue(Class<?> setterClass) {
+      if (setterClass.getDeclaredFields().length != 0) {  // capture some values
+        return null;
+      }
+      return new ConcurrentHashMap<>();
+    }
+  };
+
   private static <T> String findKeyOf(Class<T> type, BiConsumer<? super T, ?> setter) {
+    var cache = KEY_CACHE.get(setter.getClass());
+    if (cache == null) {
+      return computeKeyOf(type, setter);
+    }
+    return cache.computeIfAbsent(type, __ -> computeKeyOf(type, setter));
+  }
+
+  private static <T> String computeKeyOf(Class<T> type, BiConsumer<? super T, ?> setter) {
     var builder = new StringBuilder();
     Configs.class.getModule().addReads(type.getModule());
     T proxy = type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
@@ -358,11 +983,11 @@ public final class Configs {
     setter.accept(proxy, null);   //FIXME, will not work with primitive types :(
     return builder.toString();
   }
-  
+
   private static UnsupportedOperationException readOnly(Class<?> proxyClass, String key) {
     return new UnsupportedOperationException(proxyClass.getSimpleName() + "." + key +": configuration is read only");
   }
-  
+
   private static UnsupportedOperationException frozen(Class<?> proxyClass, String key) {
     return new UnsupportedOperationException(proxyClass.getSimpleName() + "." + key +": unknown key");
   }
@@ -1,20 +1,72 @@
 package com.github.forax.pro.api.impl;
 
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
 
 import com.github.forax.pro.api.Config;
+import com.github.forax.pro.api.ConfigKey;
 import com.github.forax.pro.api.MutableConfig;
 import com.github.forax.pro.api.impl.Configs.EvalContext;
 
 public class DefaultConfig implements MutableConfig, EvalContext {
+  /**
+   * Called the first time a top level key is accessed, so the corresponding node can be lazily initialized.
+   */
+  @FunctionalInterface
+  public interface Initializer {
+    /**
+     * Initialize the node corresponding to a top level key.
+     * @param config the configuration
+     * @param name the top level key
+     * @return true if the node has been initialized, false if the key is unknown.
+     */
+    boolean initialize(DefaultConfig config, String name);
+  }
+  
   private final Object root;
+  private final Initializer initializer;
+  private volatile Set<String> initialized;  // immutable, so it can be shared with the duplicates and read without lock
+  private final HashSet<String> initializing = new HashSet<>();  // guarded by initializing
   
   public DefaultConfig() {
+    this((config, name) -> false);
+  }
+  
+  public DefaultConfig(Initializer initializer) {
     this.root = Configs.newRoot(this);
+    this.initializer = initializer;
+    this.initialized = Set.of();
   }
 
-  private DefaultConfig(Object root) {  // warning duplicate the tree, use with care
-    this.root = Configs.duplicate(root, this);
+  private DefaultConfig(DefaultConfig config) {  // the tree is shared until modified
+    this.root = Configs.duplicate(config.root, this);
+    this.initializer = config.initializer;
+    this.initialized = config.initialized;
+  }
+  
+  /**
+   * Initialize the node corresponding to a top level key if it's not already initialized.
+   * @param name a top level key.
+   */
+  public void initialize(String name) {
+    if (initialized.contains(name)) {
+      return;
+    }
+    synchronized(initializing) {
+      if (initialized.contains(name) || !initializing.add(name)) {  // avoid re-entrant initialization
+        return;
+      }
+      try {
+        if (initializer.initialize(this, name)) {
+          var set = new HashSet<>(initialized);
+          set.add(name);
+          initialized = Set.copyOf(set);
+        }
+      } finally {
+        initializing.remove(name);
+      }
+    }
   }
   
   @Override
@@ -24,21 +76,67 @@ public class DefaultConfig implements MutableConfig, EvalContext {
   
   @Override
   public <T> Optional<T> get(String key, Class<T> type) {
-    return Configs.get(root, key, type, true);
+    return get(Configs.key(key, type));
+  }
+  
+  @Override
+  public <T> Optional<T> get(ConfigKey<T> key) {
+    var configKey = Configs.key(key);
+    initialize(configKey.properties[0]);
+    return Configs.get(root, configKey, true);
   }
   
   @Override
   public <T> T getOrUpdate(String key, Class<T> type) {
-    return Configs.get(root, key, type, false).orElseThrow();
+    return getOrUpdate(Configs.key(key, type));
+  }
+  
+  @Override
+  public <T> T getOrUpdate(ConfigKey<T> key) {
+    var configKey = Configs.key(key);
+    initialize(configKey.properties[0]);
+    return Configs.get(root, configKey, false).orElseThrow();
   }
   
   @Override
   public void set(String key, Object value) {
-    Configs.set(root, key, value);
+    set(Configs.key(key, Object.class), value);
+  }
+  
+  @Override
+  public void set(ConfigKey<?> key, Object value) {
+    var configKey = Configs.key(key);
+    initialize(configKey.properties[0]);
+    Configs.set(root, configKey, value);
   }
   
+  /**
+   * Duplicate the configuration in constant time, the two configurations share
+   * their values until one of them is modified.
+   * @return a new configuration.
+   */
   public DefaultConfig duplicate() {
-    return new DefaultConfig(root);
+    return new DefaultConfig(this);
+  }
+  
+  /**
+   * Returns the number of derived values computed since the start of the VM.
+   * @return the number of derived values computed.
+   * @see #derivedCached()
+   */
+  public static long derivedComputed() {
+    return Configs.EVAL_COMPUTED.sum();
+  }
+
+  /**
+   * Returns the number of derived values served from the cache since the start of the VM.
+   * A derived value is cached per configuration until one of the keys read
+   * to compute it is modified.
+   * @return the number of derived values served from the cache.
+   * @see #derivedComputed()
+   */
+  public static long derivedCached() {
+    return Configs.EVAL_CACHED.sum();
   }
   
   public static Config asNonMutable(Config config) {
@@ -47,6 +145,10 @@ public class DefaultConfig implements MutableConfig, EvalContext {
       public <T> Optional<T> get(String key, Class<T> type) {
         return config.get(key, type);
       }
+      @Override
+      public <T> Optional<T> get(ConfigKey<T> key) {
+        return config.get(key);
+      }
     };
   }
   
@@ -65,6 +167,11 @@ public class DefaultConfig implements MutableConfig, EvalContext {
         return DefaultConfig.this.get(key, type);
       }
       
+      @Override
+      public <T> Optional<T> get(ConfigKey<T> key) {
+        return DefaultConfig.this.get(key);
+      }
+      
       @Override
       public void set(String key, Object object) {
         if (!key.startsWith(prefix + ".")) {
@@ -0,0 +1,208 @@
+package com.github.forax.pro.api.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+import java.io.IOException;
+import java.lang.module.ModuleFinder;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A persistent index of the dynamic plugins stored in a plugin directory,
+ * it associates the name of a plugin to the sub-directory containing the plugin,
+ * the name of its provider class and the name of the modules of the sub-directory.
+ *
+ * The index is stored in the plugin directory, in a file named {@value #INDEX_FILE_NAME},
+ * and is rebuilt if a sub-directory is added or removed, if the last modified time
+ * of a sub-directory or of one of its files has changed or if the index can not be parsed.
+ * The index is written in a temporary file then moved, so a concurrent build never reads
+ * a partially written index.
+ */
+public final class PluginIndex {
+  static final String INDEX_FILE_NAME = "plugins.index";
+  private static final String HEADER = "pro-plugin-index 2";
+  private static final String FOOTER = "end";
+
+  /**
+   * An entry of the index.
+   */
+  public static final class Entry {
+    private final String name;
+    private final Path directory;
+    private final String providerClassName;
+    private final List<String> moduleNames;
+
+    Entry(String name, Path directory, String providerClassName, List<String> moduleNames) {
+      this.name = name;
+      this.directory = directory;
+      this.providerClassName = providerClassName;
+      this.moduleNames = List.copyOf(moduleNames);
+    }
+
+    public String name() {
+      return name;
+    }
+    public Path directory() {
+      return directory;
+    }
+    public String providerClassName() {
+      return providerClassName;
+    }
+    public List<String> moduleNames() {
+      return moduleNames;
+    }
+  }
+
+  private final HashMap<String, Entry> entries;
+
+  private PluginIndex(HashMap<String, Entry> entries) {
+    this.entries = entries;
+  }
+
+  /**
+   * Returns the entry of a plugin.
+   * @param name the name of the plugin.
+   * @return the entry of a plugin or {@code Optional.empty()} if the plugin is not in the index.
+   */
+  public Optional<Entry> find(String name) {
+    return Optional.ofNullable(entries.get(name));
+  }
+
+  /**
+   * Loads the index of the plugin directory, the index is rebuilt if it's not up to date.
+   *
+   * @param dynamicPluginDir the plugin directory.
+   * @return the index of the plugin directory.
+   * @throws IOException if an I/O error occurs while scanning the plugin directory.
+   */
+  public static PluginIndex load(Path dynamicPluginDir) throws IOException {
+    if (!Files.isDirectory(dynamicPluginDir)) {
+      return new PluginIndex(new HashMap<>());  // maybe there is no dynamic plugins
+    }
+    var stamps = stamps(dynamicPluginDir);
+    var indexFile = dynamicPluginDir.resolve(INDEX_FILE_NAME);
+    var index = read(indexFile, dynamicPluginDir, stamps);
+    if (index.isPresent()) {
+      return index.orElseThrow();
+    }
+
+    var entries = scan(stamps.keySet());
+    try {
+      write(indexFile, stamps, entries);
+    } catch(@SuppressWarnings("unused") IOException e) {
+      // the plugin directory may be read only, the index will be re-computed next time
+    }
+    return new PluginIndex(entries);
+  }
+
+  private static long stamp(Path directory) throws IOException {
+    var stamp = Files.getLastModifiedTime(directory).toMillis();
+    try(var stream = Files.list(directory)) {
+      for(var path: (Iterable<Path>)stream::iterator) {
+        stamp = Math.max(stamp, Files.getLastModifiedTime(path).toMillis());
+      }
+    }
+    return stamp;
+  }
+
+  private static LinkedHashMap<Path, Long> stamps(Path dynamicPluginDir) throws IOException {
+    var directories = new ArrayList<Path>();
+    try(var stream = Files.list(dynamicPluginDir)) {
+      stream.filter(Files::isDirectory).sorted().forEach(directories::add);
+    }
+    var stamps = new LinkedHashMap<Path, Long>();
+    for(var directory: directories) {
+      stamps.put(directory, stamp(directory));
+    }
+    return stamps;
+  }
+
+  private static HashMap<String, Entry> scan(Iterable<Path> directories) {
+    var entries = new HashMap<String, Entry>();
+    for(var directory: directories) {
+      var moduleNames = ModuleFinder.of(directory).findAll().stream()
+          .map(ref -> ref.descriptor().name())
+          .sorted()
+          .collect(toUnmodifiableList());
+      Plugins.findDynamicPlugins(directory, moduleNames).forEach(provider -> {
+        var name = provider.get().name();
+        entries.putIfAbsent(name, new Entry(name, directory, provider.type().getName(), moduleNames));
+      });
+    }
+    return entries;
+  }
+
+  // returns Optional.empty() if the index doesn't exist, is not up to date or can not be parsed
+  private static Optional<PluginIndex> read(Path indexFile, Path dynamicPluginDir, LinkedHashMap<Path, Long> stamps) {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(indexFile, UTF_8);
+    } catch(@SuppressWarnings("unused") IOException e) {  // no index or not readable
+      return Optional.empty();
+    }
+    if (lines.size() < 2 || !lines.get(0).equals(HEADER) || !lines.get(lines.size() - 1).equals(FOOTER)) {
+      return Optional.empty();  // truncated
+    }
+    try {
+      return parse(lines.subList(1, lines.size() - 1), dynamicPluginDir, stamps);
+    } catch(@SuppressWarnings("unused") NumberFormatException | InvalidPathException e) {  // corrupted
+      return Optional.empty();
+    }
+  }
+
+  private static Optional<PluginIndex> parse(List<String> lines, Path dynamicPluginDir, LinkedHashMap<Path, Long> stamps) {
+    var indexStamps = new LinkedHashMap<Path, Long>();
+    var entries = new HashMap<String, Entry>();
+    for(var line: lines) {
+      var tokens = line.split("\t");
+      switch(tokens[0]) {
+      case "directory":   // directory stamp dirName
+        if (tokens.length != 3) {
+          return Optional.empty();
+        }
+        indexStamps.put(dynamicPluginDir.resolve(tokens[2]), Long.parseLong(tokens[1]));
+        break;
+      case "plugin":      // plugin name providerClass moduleNames dirName
+        if (tokens.length != 5) {
+          return Optional.empty();
+        }
+        var moduleNames = tokens[3].isEmpty()? List.<String>of(): List.of(tokens[3].split(","));
+        entries.put(tokens[1], new Entry(tokens[1], dynamicPluginDir.resolve(tokens[4]), tokens[2], moduleNames));
+        break;
+      default:
+        return Optional.empty();
+      }
+    }
+    if (!indexStamps.equals(stamps)) {
+      return Optional.empty();
+    }
+    return Optional.of(new PluginIndex(entries));
+  }
+
+  private static void write(Path indexFile, LinkedHashMap<Path, Long> stamps, HashMap<String, Entry> entries) throws IOException {
+    var lines = new ArrayList<String>();
+    lines.add(HEADER);
+    stamps.forEach((directory, stamp) -> lines.add("directory\t" + stamp + '\t' + directory.getFileName()));
+    entries.values().stream()
+        .sorted((e1, e2) -> e1.name.compareTo(e2.name))
+        .forEach(entry -> lines.add("plugin\t" + entry.name + '\t' + entry.providerClassName + '\t' +
+            String.join(",", entry.moduleNames) + '\t' + entry.directory.getFileName()));
+    lines.add(FOOTER);
+
+    var tmpFile = Files.createTempFile(indexFile.getParent(), INDEX_FILE_NAME, ".tmp");
+    try {
+      Files.write(tmpFile, lines, UTF_8);
+      Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+  }
+}
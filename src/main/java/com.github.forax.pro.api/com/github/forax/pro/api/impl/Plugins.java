@@ -8,6 +8,7 @@ import java.lang.module.ModuleFinder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -24,9 +25,12 @@ public class Plugins {
   }
   
   private static Stream<Provider<Plugin>> findDynamicPlugins(Path path) {
+    var moduleNames = ModuleFinder.of(path).findAll().stream().map(ref -> ref.descriptor().name()).collect(toUnmodifiableSet());
+    return findDynamicPlugins(path, moduleNames);
+  }
+  
+  static Stream<Provider<Plugin>> findDynamicPlugins(Path path, Collection<String> moduleNames) {
     var finder = ModuleFinder.of(path);
-    var moduleNames = finder.findAll().stream().map(ref -> ref.descriptor().name()).collect(toUnmodifiableSet());
-    
     var boot = ModuleLayer.boot();
     var cf = boot.configuration().resolve(finder, ModuleFinder.of(), moduleNames);
 
@@ -34,7 +38,8 @@ public class Plugins {
     var layer = boot.defineModulesWithOneLoader(cf, classLoader);
 
     var serviceLoader = ServiceLoader.load(layer, Plugin.class);
-    return serviceLoader.stream();
+    return serviceLoader.stream()
+        .filter(provider -> provider.type().getModule().getLayer() == layer);  // skip the plugins of the parent layers
   }
   
   private static void loadDynamicPlugins(Path dynamicPluginDir, Consumer<? super Provider<Plugin>> consumer) throws IOException {
@@ -43,7 +48,7 @@ public class Plugins {
     }
     
     try(var stream = Files.list(dynamicPluginDir)) {
-      stream.flatMap(Plugins::findDynamicPlugins).forEach(consumer);
+      stream.filter(Files::isDirectory).flatMap(Plugins::findDynamicPlugins).forEach(consumer);
     }
   } 
   
@@ -54,6 +59,28 @@ public class Plugins {
     return plugins;
   }
   
+  /**
+   * Returns the plugins of the sub-directory of an {@link PluginIndex index} entry,
+   * only the modules of this sub-directory are loaded.
+   * 
+   * @param entry an entry of the plugin index
+   * @return the plugins of the sub-directory of the entry.
+   */
+  public static List<Plugin> getDynamicPlugins(PluginIndex.Entry entry) {
+    return findDynamicPlugins(entry.directory(), entry.moduleNames())
+        .map(Provider::get)
+        .sorted(Comparator.comparing(Plugin::name))   // have a stable order
+        .collect(toUnmodifiableList());
+  }
+  
+  public static List<Plugin> getCorePlugins() {
+    ServiceLoader<Plugin> loader = ServiceLoader.load(Plugin.class, Plugin.class.getClassLoader());
+    return loader.stream()
+        .map(Provider::get)
+        .sorted(Comparator.comparing(Plugin::name))   // have a stable order
+        .collect(toUnmodifiableList());
+  }
+  
   public static List<Plugin> getAllPlugins(Path dynamicPluginDir) throws IOException {
     var pluginMap = new HashMap<Class<?>, Plugin>();
     Consumer<Provider<Plugin>> addToMap = provider -> pluginMap.computeIfAbsent(provider.type(), __ -> provider.get());
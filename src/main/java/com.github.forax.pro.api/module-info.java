@@ -4,6 +4,7 @@ module com.github.forax.pro.api {
   requires java.se;   // temporary fix until the VM is able to complement module at runtime
   
   requires com.github.forax.pro.helper;
+  requires org.objectweb.asm;
   
   exports com.github.forax.pro.api;
   exports com.github.forax.pro.api.helper;
@@ -1,12 +1,12 @@
 package com.github.forax.pro.bootstrap;
 
 import static com.github.forax.pro.Pro.list;
-import static com.github.forax.pro.Pro.local;
 import static com.github.forax.pro.Pro.location;
 import static com.github.forax.pro.Pro.path;
 import static com.github.forax.pro.Pro.run;
 import static com.github.forax.pro.Pro.set;
 import static com.github.forax.pro.Pro.uri;
+import static com.github.forax.pro.Pro.workspace;
 import static com.github.forax.pro.helper.FileHelper.deleteAllFiles;
 import static com.github.forax.pro.helper.FileHelper.download;
 import static com.github.forax.pro.helper.FileHelper.walkAndFindCounterpart;
@@ -22,6 +22,7 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.github.forax.pro.Workspace;
 import com.github.forax.pro.helper.ModuleHelper;
 
 public class Bootstrap {
@@ -103,8 +104,11 @@ public class Bootstrap {
     
     run("modulefixer", "compiler", "docer", "packager");
 
-    compileAndPackagePlugin("runner", list("resolver", "modulefixer", "compiler", "packager"), () -> { /* empty */});
-    compileAndPackagePlugin("tester", list("resolver", "modulefixer", "compiler", "packager"), () -> {
+    // plugins do not depend on each other, they are compiled and packaged concurrently
+    // (the resolver serializes the accesses to the Maven local repository)
+    var workspace = workspace();
+    compileAndPackagePlugin(workspace, "runner", list("resolver", "modulefixer", "compiler", "packager"), () -> { /* empty */});
+    compileAndPackagePlugin(workspace, "tester", list("resolver", "modulefixer", "compiler", "packager"), () -> {
       // set("resolver.remoteRepositories", list(uri("https://oss.sonatype.org/content/repositories/snapshots")));
       var junitPlatformVersion = "1.7.1";
       var junitJupiterVersion = "5.7.1";
@@ -123,7 +127,7 @@ public class Bootstrap {
           "org.junit.jupiter.engine=org.junit.jupiter:junit-jupiter-engine:" + junitJupiterVersion
       ));
     });
-    compileAndPackagePlugin("perfer", list("resolver", "modulefixer", "compiler", "packager"), () -> {
+    compileAndPackagePlugin(workspace, "perfer", list("resolver", "modulefixer", "compiler", "packager"), () -> {
       var jmhVersion = "1.23";
       var commonMath3Version = "3.6.1";
       var joptSimpleVersion = "5.0.4";
@@ -153,7 +157,7 @@ public class Bootstrap {
     // "org.codehaus.animal.sniffer.annotations=org.codehaus.mojo:animal-sniffer-annotations:1.14"
     //      ));
     //    });
-    compileAndPackagePlugin("formatter", list("compiler", "packager"), () -> {
+    compileAndPackagePlugin(workspace, "formatter", list("compiler", "packager"), () -> {
       var gjfVersion = "1.9";
       var base = "https://github.com/google/google-java-format/releases/download/google-java-format";
       download(
@@ -161,7 +165,8 @@ public class Bootstrap {
           location("plugins/formatter/libs"));
     });
 
-    compileAndPackagePlugin("frozer", list("resolver", "modulefixer", "compiler", "packager"), () -> { /* empty */});
+    compileAndPackagePlugin(workspace, "frozer", list("resolver", "modulefixer", "compiler", "packager"), () -> { /* empty */});
+    workspace.run();
     
     run("linker" /*, "uberpackager" */);
 
@@ -199,10 +204,10 @@ public class Bootstrap {
     }
   }
   
-  private static void compileAndPackagePlugin(String name, List<String> plugins, Runnable extras) {
-    deleteAllFiles(location("plugins/" + name + "/target"), false);
-
-    local("plugins/" + name, () -> {
+  private static void compileAndPackagePlugin(Workspace workspace, String name, List<String> plugins, Runnable extras) {
+    workspace.project("plugins/" + name, () -> {
+      deleteAllFiles(location("plugins/" + name + "/target"), false);
+      
       set("resolver.moduleDependencyPath",
           path("plugins/" + name + "/deps", "target/main/artifact/", "deps"));
       set("compiler.moduleDependencyPath",
@@ -14,6 +14,20 @@ public class Builders {
     java.util.List<java.lang.String> arguments();
     ProBuilder arguments(java.lang.String... arguments);
     ProBuilder arguments(java.util.List<java.lang.String> arguments);
+    boolean buildCache();
+    ProBuilder buildCache(boolean buildCache);
+    java.util.List<java.lang.String> buildCacheCommands();
+    ProBuilder buildCacheCommands(java.lang.String... buildCacheCommands);
+    ProBuilder buildCacheCommands(java.util.List<java.lang.String> buildCacheCommands);
+    long buildCacheMaxSize();
+    ProBuilder buildCacheMaxSize(long buildCacheMaxSize);
+    java.nio.file.Path buildCachePath();
+    ProBuilder buildCachePath(java.nio.file.Path buildCachePath);
+    boolean buildResult();
+    ProBuilder buildResult(boolean buildResult);
+    java.util.List<java.lang.String> commandTimeouts();
+    ProBuilder commandTimeouts(java.lang.String... commandTimeouts);
+    ProBuilder commandTimeouts(java.util.List<java.lang.String> commandTimeouts);
     java.util.Optional<java.util.List<java.lang.String>> commands();
     ProBuilder commands(java.lang.String... commands);
     ProBuilder commands(java.util.List<java.lang.String> commands);
@@ -25,8 +39,16 @@ public class Builders {
     ProBuilder exitOnError(boolean exitOnError);
     java.lang.String loglevel();
     ProBuilder loglevel(java.lang.String loglevel);
+    int parallelism();
+    ProBuilder parallelism(int parallelism);
     java.nio.file.Path pluginDir();
     ProBuilder pluginDir(java.nio.file.Path pluginDir);
+    int timeout();
+    ProBuilder timeout(int timeout);
+    java.util.Optional<java.nio.file.Path> traceFile();
+    ProBuilder traceFile(java.nio.file.Path traceFile);
+    boolean upToDateCheck();
+    ProBuilder upToDateCheck(boolean upToDateCheck);
   }
   
   public static final CompilerBuilder compiler =
@@ -40,6 +62,9 @@ public class Builders {
     java.util.Optional<java.util.List<java.nio.file.Path>> files();
     CompilerBuilder files(java.nio.file.Path... files);
     CompilerBuilder files(java.util.List<java.nio.file.Path> files);
+    java.util.Optional<java.util.List<java.lang.String>> isolatingProcessors();
+    CompilerBuilder isolatingProcessors(java.lang.String... isolatingProcessors);
+    CompilerBuilder isolatingProcessors(java.util.List<java.lang.String> isolatingProcessors);
     java.util.Optional<java.lang.String> lint();
     CompilerBuilder lint(java.lang.String lint);
     java.util.Optional<java.lang.String> module();
@@ -51,6 +76,8 @@ public class Builders {
     CompilerBuilder moduleExplodedSourcePath(java.nio.file.Path moduleExplodedSourcePath);
     java.nio.file.Path moduleExplodedTestPath();
     CompilerBuilder moduleExplodedTestPath(java.nio.file.Path moduleExplodedTestPath);
+    java.nio.file.Path moduleGraphPath();
+    CompilerBuilder moduleGraphPath(java.nio.file.Path moduleGraphPath);
     java.nio.file.Path moduleMergedTestPath();
     CompilerBuilder moduleMergedTestPath(java.nio.file.Path moduleMergedTestPath);
     java.util.Optional<java.util.List<java.nio.file.Path>> modulePath();
@@ -68,6 +95,8 @@ public class Builders {
     java.util.List<java.nio.file.Path> moduleTestResourcesPath();
     CompilerBuilder moduleTestResourcesPath(java.nio.file.Path... moduleTestResourcesPath);
     CompilerBuilder moduleTestResourcesPath(java.util.List<java.nio.file.Path> moduleTestResourcesPath);
+    java.util.Optional<java.lang.Integer> parallelism();
+    CompilerBuilder parallelism(int parallelism);
     java.util.List<java.nio.file.Path> processorModuleSourcePath();
     CompilerBuilder processorModuleSourcePath(java.nio.file.Path... processorModuleSourcePath);
     CompilerBuilder processorModuleSourcePath(java.util.List<java.nio.file.Path> processorModuleSourcePath);
@@ -333,6 +362,8 @@ public class Builders {
     java.util.List<java.nio.file.Path> moduleDependencyPath();
     ResolverBuilder moduleDependencyPath(java.nio.file.Path... moduleDependencyPath);
     ResolverBuilder moduleDependencyPath(java.util.List<java.nio.file.Path> moduleDependencyPath);
+    java.nio.file.Path moduleGraphPath();
+    ResolverBuilder moduleGraphPath(java.nio.file.Path moduleGraphPath);
     java.net.URI moduleNameList();
     ResolverBuilder moduleNameList(java.net.URI moduleNameList);
     java.util.Optional<java.util.List<java.nio.file.Path>> modulePath();
@@ -3,4 +3,5 @@ module com.github.forax.pro.builder {
   requires com.github.forax.pro.api;
   
   exports com.github.forax.pro.builder;
+  opens com.github.forax.pro.builder to com.github.forax.pro.api;  // the implementation of the builders is generated
 }
\ No newline at end of file
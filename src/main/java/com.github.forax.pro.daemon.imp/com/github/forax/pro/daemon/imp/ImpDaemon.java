@@ -104,7 +104,7 @@ public class ImpDaemon implements Daemon {
         } 
       }
       if (errorCode == 0) {
-        var log = Log.create("daemon", config.getOrThrow("pro", ProConf.class).loglevel());
+        var log = Log.create("daemon", config.getOrThrow(ProConf.KEY).loglevel());
         log.info(null, __ -> "DONE !");
       }
     }
@@ -325,7 +325,7 @@ public class ImpDaemon implements Daemon {
       firstPlugin.watch(config, roots::add);
       
       // start a new watcher thread
-      var log = Log.create("daemon", config.getOrThrow("pro", ProConf.class).loglevel());
+      var log = Log.create("daemon", config.getOrThrow(ProConf.KEY).loglevel());
       Thread watcherThread = new Thread(() -> watcherLoop(watcher, refresher, log, roots));
       watcherThread.start();
       
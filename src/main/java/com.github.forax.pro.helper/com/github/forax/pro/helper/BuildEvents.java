@@ -0,0 +1,126 @@
+package com.github.forax.pro.helper;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events emitted during a build,
+ * they can be recorded using {@code -XX:StartFlightRecording} and analyzed with JDK Mission Control.
+ *
+ * If the recording is not started, {@link Event#begin()} and {@link Event#commit()} do nothing,
+ * so the values that are costly to compute should only be computed if {@link Event#shouldCommit()}
+ * returns true.
+ *
+ * <pre>
+ *   var event = new BuildEvents.JavacEvent();
+ *   event.begin();
+ *   ...
+ *   if (event.shouldCommit()) {
+ *     event.fileCount = ...
+ *     event.commit();
+ *   }
+ * </pre>
+ */
+public final class BuildEvents {
+  private BuildEvents() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Execution of a command.
+   */
+  @Name("com.github.forax.pro.Command")
+  @Label("Command")
+  @Category({"Pro", "Command"})
+  @Description("Execution of a command or a plugin")
+  @StackTrace(false)
+  public static final class CommandEvent extends Event {
+    @Label("Name")
+    public String name;
+
+    @Label("Error Code")
+    public int errorCode;
+  }
+
+  /**
+   * Invocation of javac.
+   */
+  @Name("com.github.forax.pro.Javac")
+  @Label("Javac")
+  @Category({"Pro", "Compiler"})
+  @Description("Invocation of javac")
+  @StackTrace(false)
+  public static final class JavacEvent extends Event {
+    @Label("Pass")
+    public String pass;
+
+    @Label("File Count")
+    public int fileCount;
+
+    @Label("Module Count")
+    public int moduleCount;
+
+    @Label("Error Code")
+    public int errorCode;
+  }
+
+  /**
+   * Walk of a file tree, and copy of the files if the operation is a copy.
+   */
+  @Name("com.github.forax.pro.FileOperation")
+  @Label("File Operation")
+  @Category({"Pro", "File"})
+  @Description("Walk, copy or delete of a file tree")
+  @StackTrace(false)
+  public static final class FileOperationEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Path")
+    public String path;
+
+    @Label("File Count")
+    public int fileCount;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+  }
+
+  /**
+   * Resolution of Maven artifacts using Aether.
+   */
+  @Name("com.github.forax.pro.Resolution")
+  @Label("Resolution")
+  @Category({"Pro", "Resolver"})
+  @Description("Collect or download of Maven artifacts")
+  @StackTrace(false)
+  public static final class ResolutionEvent extends Event {
+    @Label("Phase")
+    public String phase;
+
+    @Label("Artifact Count")
+    public int artifactCount;
+  }
+
+  /**
+   * Execution of the tests of a module.
+   */
+  @Name("com.github.forax.pro.TestModule")
+  @Label("Test Module")
+  @Category({"Pro", "Tester"})
+  @Description("Execution of the tests of a module")
+  @StackTrace(false)
+  public static final class TestModuleEvent extends Event {
+    @Label("Module")
+    public String module;
+
+    @Label("Exit Code")
+    public int exitCode;
+  }
+}
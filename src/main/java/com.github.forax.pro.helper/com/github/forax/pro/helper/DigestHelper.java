@@ -0,0 +1,51 @@
+package com.github.forax.pro.helper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Helper methods to compute the SHA-256 hashes used by the caches of the build.
+ */
+public class DigestHelper {
+  private DigestHelper() {
+    throw new AssertionError();
+  }
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  /**
+   * Returns a new SHA-256 message digest.
+   * @return a new SHA-256 message digest.
+   */
+  public static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e);  // SHA-256 is supported by all platforms
+    }
+  }
+
+  /**
+   * Returns the SHA-256 hash of an array of bytes as an hexadecimal string.
+   * @param bytes an array of bytes
+   * @return the SHA-256 hash of the bytes as an hexadecimal string.
+   */
+  public static String hash(byte[] bytes) {
+    return toHex(newDigest().digest(bytes));
+  }
+
+  /**
+   * Returns the hexadecimal representation of an array of bytes.
+   * @param bytes an array of bytes, by example a digest.
+   * @return the lowercase hexadecimal representation of the bytes.
+   */
+  public static String toHex(byte[] bytes) {
+    var chars = new char[bytes.length << 1];
+    for(var i = 0; i < bytes.length; i++) {
+      var b = bytes[i];
+      chars[i << 1] = HEX_DIGITS[(b >>> 4) & 0xF];
+      chars[(i << 1) + 1] = HEX_DIGITS[b & 0xF];
+    }
+    return new String(chars);
+  }
+}
@@ -85,6 +85,9 @@ public class FileHelper {
    */
   public static void deleteAllFiles(Path directory, boolean removeDirectory) {
     // IOExceptions are suppressed
+    var event = new BuildEvents.FileOperationEvent();
+    event.begin();
+    var fileCount = new int[1];
     runUnchecked(() -> walkFileTree(directory, new FileVisitor<>() {
       @Override
       public FileVisitResult postVisitDirectory(Path path, IOException e) throws IOException {
@@ -102,6 +105,7 @@ public class FileHelper {
       @Override
       public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
         Files.delete(path);
+        fileCount[0]++;
         return CONTINUE;
       }
 
@@ -110,6 +114,12 @@ public class FileHelper {
         return CONTINUE;
       }
     }));
+    if (event.shouldCommit()) {
+      event.operation = "delete";
+      event.path = directory.toString();
+      event.fileCount = fileCount[0];
+      event.commit();
+    }
   }
   
   public static Predicate<Path> pathFilenameEndsWith(String text) {
@@ -131,7 +141,9 @@ public class FileHelper {
 
   public static List<Path> walkIfNecessary(List<Path> list, Predicate<? super Path> filter) {
     // IOExceptions are suppressed
-    return list.stream()
+    var event = new BuildEvents.FileOperationEvent();
+    event.begin();
+    var paths = list.stream()
                .flatMap(suppress(path -> {
                    if (!isDirectory(path)) {
                      return Stream.of(path);
@@ -139,17 +151,40 @@ public class FileHelper {
                    return walk(path).filter(filter);
                }))
                .collect(toUnmodifiableList());
+    if (event.shouldCommit()) {
+      event.operation = "walk";
+      event.path = list.toString();
+      event.fileCount = paths.size();
+      event.commit();
+    }
+    return paths;
   }
   
   public static void walkAndFindCounterpart(Path srcPath, Path dstPath, Function<Stream<Path>, Stream<Path>> configure, Unchecked.IOBiConsumer<Path, Path> consumer) {
     // IOExceptions are suppressed
+    var event = new BuildEvents.FileOperationEvent();
+    event.begin();
+    var enabled = event.isEnabled();
+    var fileCount = new int[1];
+    var bytes = new long[1];
     try(var stream = getUnchecked(() -> Files.walk(srcPath))) {
       configure.apply(stream)
         .forEach(suppress(path -> {
           var targetPath = dstPath.resolve(srcPath.relativize(path));
           consumer.accept(path, targetPath);
+          if (enabled && Files.isRegularFile(path)) {  // only compute the size if recording
+            fileCount[0]++;
+            bytes[0] += Files.size(path);
+          }
       }));
     }
+    if (event.shouldCommit()) {
+      event.operation = "copy";
+      event.path = srcPath.toString();
+      event.fileCount = fileCount[0];
+      event.bytes = bytes[0];
+      event.commit();
+    }
   }
   
   public static void download(URI uri, Path targetDirectory) {
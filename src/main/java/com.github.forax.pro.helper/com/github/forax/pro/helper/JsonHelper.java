@@ -0,0 +1,44 @@
+package com.github.forax.pro.helper;
+
+/**
+ * Helper methods to write JSON by hand, used by the build reports and the trace files.
+ */
+public class JsonHelper {
+  private JsonHelper() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Escape a text to be used as the content of a JSON string.
+   *
+   * @param text a text
+   * @return the text with the quotes, the backslashes and the control characters escaped.
+   */
+  public static String escape(String text) {
+    var builder = new StringBuilder();
+    for(var i = 0; i < text.length(); i++) {
+      var c = text.charAt(i);
+      switch(c) {
+      case '"':
+        builder.append("\\\"");
+        break;
+      case '\\':
+        builder.append("\\\\");
+        break;
+      case '\n':
+        builder.append("\\n");
+        break;
+      case '\t':
+        builder.append("\\t");
+        break;
+      default:
+        if (c < 0x20) {
+          builder.append(String.format("\\u%04x", (int)c));
+        } else {
+          builder.append(c);
+        }
+      }
+    }
+    return builder.toString();
+  }
+}
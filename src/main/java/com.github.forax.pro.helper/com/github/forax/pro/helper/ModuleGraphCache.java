@@ -0,0 +1,314 @@
+package com.github.forax.pro.helper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleDescriptor.Requires;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.forax.pro.helper.ModuleHelper.ResolverListener;
+
+/**
+ * A cache of the module graphs resolved by {@link ModuleHelper#resolveOnlyRequires(ModuleFinder, List, ResolverListener)},
+ * shared by the plugins of a build and persisted across builds.
+ *
+ * A graph is identified by a fingerprint of the root modules (their names and their requires),
+ * of the content of the dependency path (the size and the last modified time of the jars
+ * and of the module-info of the exploded modules) and of the installed JDK.
+ * A graph records the modules reached from the roots, with their location and their requires,
+ * and the modules that were not found, so replaying the resolution on the graph
+ * reports exactly the same modules and the same missing dependencies
+ * without opening the jars of the dependency path.
+ *
+ * The graphs are kept in memory and saved in a cache directory, one file by fingerprint,
+ * only the most recently written files are kept. Reading a graph doesn't modify the cache directory,
+ * so the directory can be declared as an output of a plugin without making it out of date.
+ */
+public final class ModuleGraphCache {
+  private ModuleGraphCache() {
+    throw new AssertionError();
+  }
+
+  private static final int MAX_GRAPH_COUNT = 16;
+  private static final String EXTENSION = ".graph";
+
+  // fingerprint hash -> graph, in access order
+  private static final LinkedHashMap<String, Graph> GRAPHS = new LinkedHashMap<>(16, 0.75f, true) {  // guarded by GRAPHS
+    private static final long serialVersionUID = 1;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Graph> eldest) {
+      return size() > MAX_GRAPH_COUNT;
+    }
+  };
+
+  private static final class Node {
+    final String location;  // empty if the module has no location
+    final List<String> requires;
+
+    Node(String location, List<String> requires) {
+      this.location = location;
+      this.requires = requires;
+    }
+  }
+
+  private static final class Graph {
+    final LinkedHashMap<String, Node> nodes = new LinkedHashMap<>();  // module name -> node, null if not found
+
+    ModuleFinder finder() {
+      var moduleRefs = new HashSet<ModuleReference>();
+      nodes.forEach((name, node) -> {
+        if (node != null) {
+          moduleRefs.add(moduleReference(name, node));
+        }
+      });
+      return ModuleHelper.moduleFinder(moduleRefs);
+    }
+  }
+
+  private static ModuleReference moduleReference(String name, Node node) {
+    var builder = ModuleDescriptor.newModule(name);
+    node.requires.forEach(builder::requires);
+    var descriptor = builder.build();
+    var location = node.location.isEmpty()? null: URI.create(node.location);
+    return new ModuleReference(descriptor, location) {
+      @Override
+      public ModuleReader open() {
+        throw new UnsupportedOperationException("module " + name + " from the module graph cache");
+      }
+
+      @Override
+      public String toString() {
+        return name + " at " + node.location;
+      }
+    };
+  }
+
+  /**
+   * Resolve the requires of the modules of the module finder (see
+   * {@link ModuleHelper#resolveOnlyRequires(ModuleFinder, List, ResolverListener)}) against the modules
+   * of the dependency path and the system modules, reusing the graph of a previous resolution
+   * if neither the modules of the module finder, the dependency path nor the JDK have changed.
+   *
+   * @param log the log.
+   * @param cacheDirectory the directory that contains the graphs.
+   * @param moduleFinder the finder of the root modules.
+   * @param dependencyPath the dependency path.
+   * @param listener the listener notified of the modules found and the dependencies not found.
+   * @return true if all dependencies are resolved.
+   * @throws IOException if an I/O error occurs.
+   */
+  public static boolean resolveOnlyRequires(Log log, Path cacheDirectory, ModuleFinder moduleFinder, List<Path> dependencyPath,
+      ResolverListener listener) throws IOException {
+    var moduleRefs = moduleFinder.findAll();
+    var rootNames = moduleRefs.stream().map(ref -> ref.descriptor().name()).collect(Collectors.toList());
+    var hash = DigestHelper.hash(fingerprint(moduleRefs, dependencyPath).getBytes(UTF_8));
+    var graphFile = cacheDirectory.resolve(hash + EXTENSION);
+
+    Graph graph;
+    synchronized(GRAPHS) {
+      graph = GRAPHS.get(hash);
+    }
+    if (graph == null) {
+      graph = read(graphFile);
+    }
+    if (graph != null) {
+      log.debug(rootNames, roots -> "module graph of " + roots + " found in cache");
+      synchronized(GRAPHS) {
+        GRAPHS.put(hash, graph);
+      }
+      return ModuleHelper.resolveOnlyRequires(graph.finder(), rootNames, listener);
+    }
+
+    log.debug(rootNames, roots -> "resolve module graph of " + roots);
+    var dependencyFinder = ModuleFinder.compose(
+        dependencyPath.stream()
+            .map(ModuleFinder::of)
+            .toArray(ModuleFinder[]::new));
+    var finder = ModuleFinder.compose(moduleFinder, dependencyFinder, ModuleHelper.systemModulesFinder());
+    var visited = new ArrayList<String>();
+    var resolved = ModuleHelper.resolveOnlyRequires(finder, rootNames, new ResolverListener() {
+      @Override
+      public void module(String moduleName) {
+        visited.add(moduleName);
+        listener.module(moduleName);
+      }
+      @Override
+      public void dependencyNotFound(String moduleName, String dependencyChain) {
+        listener.dependencyNotFound(moduleName, dependencyChain);
+      }
+    });
+
+    var newGraph = new Graph();
+    for(var name: visited) {
+      newGraph.nodes.put(name, finder.find(name).map(ModuleGraphCache::node).orElse(null));
+    }
+    synchronized(GRAPHS) {
+      GRAPHS.put(hash, newGraph);
+    }
+    write(graphFile, newGraph);
+    return resolved;
+  }
+
+  private static Node node(ModuleReference moduleRef) {
+    var location = moduleRef.location().map(URI::toString).orElse("");
+    var requires = moduleRef.descriptor().requires().stream()
+        .filter(require -> !require.modifiers().contains(Requires.Modifier.STATIC))  // skip static requires
+        .map(Requires::name)
+        .sorted()
+        .collect(Collectors.toUnmodifiableList());
+    return new Node(location, requires);
+  }
+
+  // the root modules, the dependency path and the JDK
+  private static String fingerprint(Iterable<ModuleReference> moduleRefs, List<Path> dependencyPath) {
+    var builder = new StringBuilder();
+    builder.append("jdk ").append(System.getProperty("java.home")).append(' ').append(Runtime.version()).append('\n');
+
+    var roots = new TreeSet<String>();
+    for(var moduleRef: moduleRefs) {
+      roots.add(moduleRef.descriptor().name() + " " + node(moduleRef).requires);
+    }
+    roots.forEach(root -> builder.append("root ").append(root).append('\n'));
+
+    for(var path: dependencyPath) {
+      var absolutePath = path.toAbsolutePath().normalize();
+      builder.append("path ").append(absolutePath).append(' ').append(stamp(absolutePath)).append('\n');
+    }
+    return builder.toString();
+  }
+
+  // the stamp of a jar, an exploded module or a directory of modules
+  private static String stamp(Path path) {
+    if (!Files.isDirectory(path)) {
+      return fileStamp(path);
+    }
+    var moduleInfo = path.resolve("module-info.class");
+    if (Files.exists(moduleInfo)) {  // exploded module
+      return "module-info " + fileStamp(moduleInfo);
+    }
+    try(Stream<Path> stream = Files.list(path)) {
+      return stream
+          .sorted(Comparator.comparing(Path::getFileName))
+          .map(entry -> entry.getFileName() + " " +
+              (Files.isDirectory(entry)? fileStamp(entry.resolve("module-info.class")): fileStamp(entry)))
+          .collect(Collectors.joining(" ", "[", "]"));
+    } catch(IOException e) {
+      return "";  // the directory will be reported by the module finder
+    }
+  }
+
+  // a missing file has an empty stamp
+  private static String fileStamp(Path file) {
+    try {
+      return Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+    } catch(IOException e) {
+      return "";
+    }
+  }
+
+  // the format is one line per module, "+ name location requires..." if found, "- name" otherwise
+  private static Graph read(Path graphFile) {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(graphFile, UTF_8);
+    } catch(IOException e) {  // no graph
+      return null;
+    }
+    var graph = new Graph();
+    for(var line: lines) {
+      var tokens = line.split(" ");
+      if (tokens.length < 2) {
+        return null;  // corrupted
+      }
+      switch(tokens[0]) {
+      case "+": {
+        if (tokens.length < 3) {
+          return null;
+        }
+        var location = tokens[2].equals("-")? "": tokens[2];
+        var requires = List.of(tokens).subList(3, tokens.length);
+        graph.nodes.put(tokens[1], new Node(location, requires));
+        break;
+      }
+      case "-":
+        graph.nodes.put(tokens[1], null);
+        break;
+      default:
+        return null;
+      }
+    }
+    try {
+      graph.finder();
+    } catch(IllegalArgumentException | IllegalStateException e) {  // invalid module names
+      return null;
+    }
+    return graph;
+  }
+
+  private static void write(Path graphFile, Graph graph) throws IOException {
+    var lines = new ArrayList<String>();
+    graph.nodes.forEach((name, node) -> {
+      if (node == null) {
+        lines.add("- " + name);
+        return;
+      }
+      var builder = new StringBuilder().append("+ ").append(name).append(' ').append(node.location.isEmpty()? "-": node.location);
+      node.requires.forEach(require -> builder.append(' ').append(require));
+      lines.add(builder.toString());
+    });
+
+    var cacheDirectory = graphFile.getParent();
+    Files.createDirectories(cacheDirectory);
+    var tmpFile = Files.createTempFile(cacheDirectory, "graph", ".tmp");
+    Files.write(tmpFile, lines, UTF_8);
+    Files.move(tmpFile, graphFile, StandardCopyOption.REPLACE_EXISTING);
+
+    prune(cacheDirectory);
+  }
+
+  // only keep the most recently written graphs
+  private static void prune(Path cacheDirectory) throws IOException {
+    List<Path> graphFiles;
+    try(Stream<Path> stream = Files.list(cacheDirectory)) {
+      graphFiles = stream.filter(path -> path.getFileName().toString().endsWith(EXTENSION)).collect(Collectors.toList());
+    }
+    if (graphFiles.size() <= MAX_GRAPH_COUNT) {
+      return;
+    }
+    var lastModifiedTimes = new HashMap<Path, FileTime>();
+    for(var graphFile: graphFiles) {
+      lastModifiedTimes.put(graphFile, lastModifiedTime(graphFile));
+    }
+    graphFiles.sort(Comparator.comparing(lastModifiedTimes::get, Comparator.reverseOrder()));
+    for(var graphFile: graphFiles.subList(MAX_GRAPH_COUNT, graphFiles.size())) {
+      Files.deleteIfExists(graphFile);
+    }
+  }
+
+  private static FileTime lastModifiedTime(Path file) {
+    try {
+      return Files.getLastModifiedTime(file);
+    } catch(IOException e) {  // already deleted
+      return FileTime.fromMillis(0);
+    }
+  }
+}
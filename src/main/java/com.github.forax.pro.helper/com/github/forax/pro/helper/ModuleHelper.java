@@ -45,6 +45,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -439,14 +440,14 @@ public class ModuleHelper {
         $(String.format(text, mapper.apply(descriptor))); return this;
       }
       <T> Generator $(String text, Function<ModuleDescriptor, ? extends Collection<? extends T>> elementMapper, Function<T, String> mapper) {
-        streams.add(elementMapper.apply(descriptor).stream().map(e -> String.format(text, mapper.apply(e)))); return this;
+        streams.add(elementMapper.apply(descriptor).stream().map(e -> String.format(text, mapper.apply(e))).sorted()); return this;
       }
       <T> Generator $(String text, Function<ModuleDescriptor, ? extends Collection<? extends T>> elementMapper, Function<? super T, String> mapper, String text2, Function<? super T, Collection<? extends String>> mapper2) {
         streams.add(elementMapper.apply(descriptor).stream().map(e -> {
             Collection<? extends String> values = mapper2.apply(e);
             String format = values.isEmpty()? text: String.format(text, "%s " + text2);
             return String.format(format, mapper.apply(e), values.stream().collect(Collectors.joining(",")));
-          }));
+          }).sorted());
         return this;
       }
       String join() {
@@ -458,8 +459,8 @@ public class ModuleHelper {
           .$("%s",             desc -> desc.isOpen()? "open":"")
           .$("module %s {",    ModuleDescriptor::name)
           .$("  requires %s;", ModuleDescriptor::requires, Requires::toString)
-          .$("  exports %s;",  ModuleDescriptor::exports,  Exports::source,   "to %s", Exports::targets)
-          .$("  opens %s;",    ModuleDescriptor::opens,    Opens::source,     "to %s", Opens::targets)
+          .$("  exports %s;",  ModuleDescriptor::exports,  Exports::source,   "to %s", e -> new TreeSet<>(e.targets()))
+          .$("  opens %s;",    ModuleDescriptor::opens,    Opens::source,     "to %s", o -> new TreeSet<>(o.targets()))
           .$("")
           .$("  uses %s;",     ModuleDescriptor::uses,     identity())
           .$("  provides %s;", ModuleDescriptor::provides, Provides::service, "with %s", Provides::providers)
@@ -0,0 +1,49 @@
+package com.github.forax.pro.helper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class ProcessHelper {
+  private ProcessHelper() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Copy the output of a process to an output stream and wait for the process to finish.
+   * If the current thread is interrupted while waiting, the process and all its descendants
+   * are destroyed.
+   *
+   * @param process a process
+   * @param output the output stream that receives the output of the process.
+   * @return the exit code of the process.
+   * @throws InterruptedException if the current thread is interrupted while waiting.
+   */
+  public static int waitFor(Process process, OutputStream output) throws InterruptedException {
+    var pump = new Thread(() -> {
+      try {
+        process.getInputStream().transferTo(output);
+      } catch (@SuppressWarnings("unused") IOException e) {
+        // the process has been destroyed
+      }
+    }, "pro-process-" + process.pid());
+    pump.setDaemon(true);
+    pump.start();
+    try {
+      var exitCode = process.waitFor();
+      pump.join();  // wait the end of the output
+      return exitCode;
+    } catch(InterruptedException e) {
+      destroy(process);
+      throw e;
+    }
+  }
+
+  /**
+   * Destroy forcibly a process and all its descendants.
+   * @param process a process
+   */
+  public static void destroy(Process process) {
+    process.descendants().forEach(ProcessHandle::destroyForcibly);
+    process.destroyForcibly();
+  }
+}
@@ -0,0 +1,226 @@
+package com.github.forax.pro.helper;
+
+import static com.github.forax.pro.helper.JsonHelper.escape;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Records the timeline of a build as a list of spans,
+ * the timeline can be saved in the Chrome trace event format
+ * and opened with chrome://tracing or https://ui.perfetto.dev.
+ *
+ * A build {@link #record() starts a recording} and {@link #with(Recording, Supplier) binds} it
+ * to the threads that execute its commands, a span is added to the recording bound to the thread
+ * that creates it, so each build only sees its own spans even if the VM runs several builds
+ * concurrently, by example with the daemon or with the sub-projects of a workspace.
+ * A task executed by another thread should be {@link #wrap(Callable) wrapped} to keep the recording.
+ * If there is no recording bound to the current thread, creating a span does nothing.
+ *
+ * <pre>
+ *   try(var span = Trace.span("compiler", "javac")) {
+ *     ...
+ *   }
+ * </pre>
+ */
+public final class Trace {
+  private Trace() {
+    throw new AssertionError();
+  }
+
+  /**
+   * A span of time, the span ends when it's closed.
+   */
+  public interface Span extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private static final Span NO_SPAN = () -> { /* empty */ };
+
+  private static final class Event {
+    final String category;
+    final String name;
+    final long threadId;
+    final String threadName;
+    final long start;     // in microseconds
+    final long duration;  // in microseconds
+
+    Event(String category, String name, long threadId, String threadName, long start, long duration) {
+      this.category = category;
+      this.name = name;
+      this.threadId = threadId;
+      this.threadName = threadName;
+      this.start = start;
+      this.duration = duration;
+    }
+  }
+
+  private static final long ORIGIN = System.nanoTime();
+  private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+
+  /**
+   * The spans recorded during a build.
+   * A recording must be closed at the end of the build to stop recording the spans.
+   */
+  public static final class Recording implements AutoCloseable {
+    private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+    private volatile boolean closed;
+
+    private Recording() {
+      // use Trace.record()
+    }
+
+    /**
+     * Write the spans recorded so far in the Chrome trace event format.
+     *
+     * @param traceFile the file to write.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(Path traceFile) throws IOException {
+      var pid = ProcessHandle.current().pid();
+      var threadNames = new LinkedHashMap<Long, String>();
+      events.forEach(event -> threadNames.putIfAbsent(event.threadId, event.threadName));
+
+      var builder = new StringBuilder("{\"traceEvents\":[\n");
+      var separator = "";
+      for(var entry: threadNames.entrySet()) {
+        builder.append(separator)
+          .append("{\"ph\":\"M\",\"name\":\"thread_name\",\"pid\":").append(pid)
+          .append(",\"tid\":").append(entry.getKey())
+          .append(",\"args\":{\"name\":\"").append(escape(entry.getValue())).append("\"}}");
+        separator = ",\n";
+      }
+      for(var event: events) {
+        builder.append(separator)
+          .append("{\"ph\":\"X\",\"cat\":\"").append(escape(event.category))
+          .append("\",\"name\":\"").append(escape(event.name))
+          .append("\",\"pid\":").append(pid)
+          .append(",\"tid\":").append(event.threadId)
+          .append(",\"ts\":").append(event.start)
+          .append(",\"dur\":").append(event.duration)
+          .append('}');
+        separator = ",\n";
+      }
+      builder.append("\n]}\n");
+
+      var parent = traceFile.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      Files.writeString(traceFile, builder, UTF_8);
+    }
+
+    /**
+     * Stops recording the spans, the recorded spans can still be {@link #write(Path) written}.
+     */
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  /**
+   * Starts a new recording, the recording only records the spans of the threads
+   * it is {@link #with(Recording, Supplier) bound to}.
+   *
+   * @return a new recording.
+   */
+  public static Recording record() {
+    return new Recording();
+  }
+
+  /**
+   * Returns the recording bound to the current thread.
+   * @return the recording bound to the current thread or null.
+   */
+  public static Recording current() {
+    return CURRENT.get();
+  }
+
+  private static void bind(Recording recording) {
+    if (recording == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(recording);
+    }
+  }
+
+  /**
+   * Executes an action with a recording bound to the current thread,
+   * the previous recording is bound again once the action is finished.
+   *
+   * @param <T> the type of the result.
+   * @param recording the recording or null to not record the spans of the action.
+   * @param action the action.
+   * @return the result of the action.
+   */
+  public static <T> T with(Recording recording, Supplier<? extends T> action) {
+    var previous = CURRENT.get();
+    if (previous == recording) {
+      return action.get();
+    }
+    bind(recording);
+    try {
+      return action.get();
+    } finally {
+      bind(previous);
+    }
+  }
+
+  /**
+   * Returns a task that executes the task with the recording bound to the current thread,
+   * so the spans of the task are recorded even if the task is executed by another thread.
+   *
+   * @param <T> the type of the result.
+   * @param task the task.
+   * @return a task that executes the task with the recording of the current thread.
+   */
+  public static <T> Callable<T> wrap(Callable<T> task) {
+    var recording = CURRENT.get();
+    if (recording == null) {
+      return task;
+    }
+    return () -> {
+      var previous = CURRENT.get();
+      bind(recording);
+      try {
+        return task.call();
+      } finally {
+        bind(previous);
+      }
+    };
+  }
+
+  private static long now() {
+    return (System.nanoTime() - ORIGIN) / 1_000;
+  }
+
+  /**
+   * Starts a new span on the current thread,
+   * when closed the span is added to the recording bound to the current thread if it's not closed.
+   *
+   * @param category the category of the span, by example the name of a plugin.
+   * @param name the name of the span.
+   * @return a new span that must be closed.
+   */
+  public static Span span(String category, String name) {
+    var recording = CURRENT.get();
+    if (recording == null || recording.closed) {
+      return NO_SPAN;
+    }
+    var thread = Thread.currentThread();
+    var start = now();
+    return () -> {
+      if (!recording.closed) {
+        recording.events.add(new Event(category, name, thread.getId(), thread.getName(), start, now() - start));
+      }
+    };
+  }
+}
@@ -1,5 +1,6 @@
 module com.github.forax.pro.helper {
   requires jdk.compiler;
+  requires transitive jdk.jfr;
   requires org.objectweb.asm;
   requires org.objectweb.asm.tree;
   
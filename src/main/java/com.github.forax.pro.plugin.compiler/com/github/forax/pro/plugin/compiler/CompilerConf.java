@@ -54,6 +54,8 @@ public interface CompilerConf {
   
   List<Path> moduleDependencyPath();
   void moduleDependencyPath(List<Path> path);
+  Path moduleGraphPath();
+  void moduleGraphPath(Path path);
   
   Optional<String> module();
   void module(String module);
@@ -63,4 +65,10 @@ public interface CompilerConf {
   
   Optional<List<Path>> files();
   void files(List<Path> files);
+  
+  Optional<List<String>> isolatingProcessors();
+  void isolatingProcessors(List<String> processors);
+  
+  Optional<Integer> parallelism();
+  void parallelism(int parallelism);
 }
@@ -9,49 +9,57 @@ import static com.github.forax.pro.api.helper.OptionAction.toPrettyString;
 import static com.github.forax.pro.helper.FileHelper.deleteAllFiles;
 import static com.github.forax.pro.helper.FileHelper.pathFilenameEndsWith;
 import static com.github.forax.pro.helper.FileHelper.pathFilenameEquals;
-import static com.github.forax.pro.helper.FileHelper.walkAndFindCounterpart;
 import static com.github.forax.pro.helper.FileHelper.walkIfNecessary;
 import static com.github.forax.pro.helper.ModuleHelper.mergeModuleDescriptor;
 import static com.github.forax.pro.helper.ModuleHelper.moduleDescriptorToSource;
 import static com.github.forax.pro.helper.ModuleSourceLayout.JDK_LAYOUT;
 import static com.github.forax.pro.helper.util.Unchecked.getUnchecked;
-import static java.nio.file.Files.copy;
-import static java.nio.file.Files.exists;
 import static java.nio.file.Files.isDirectory;
 import static java.nio.file.Files.walk;
 import static java.nio.file.Files.write;
-import static java.nio.file.StandardOpenOption.CREATE_NEW;
-import static java.util.function.Function.identity;
+import static java.nio.file.StandardCopyOption.COPY_ATTRIBUTES;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static java.util.function.Predicate.not;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toUnmodifiableList;
 
 import com.github.forax.pro.api.Config;
+import com.github.forax.pro.api.InputOutputRegistry;
 import com.github.forax.pro.api.MutableConfig;
 import com.github.forax.pro.api.Plugin;
 import com.github.forax.pro.api.WatcherRegistry;
 import com.github.forax.pro.api.helper.CmdLine;
 import com.github.forax.pro.api.helper.OptionAction;
 import com.github.forax.pro.api.helper.ProConf;
+import com.github.forax.pro.helper.BuildEvents;
 import com.github.forax.pro.helper.FileHelper;
 import com.github.forax.pro.helper.Log;
+import com.github.forax.pro.helper.ModuleGraphCache;
 import com.github.forax.pro.helper.ModuleHelper;
 import com.github.forax.pro.helper.ModuleHelper.ResolverListener;
 import com.github.forax.pro.helper.ModuleSourceLayout;
+import com.github.forax.pro.helper.Trace;
+import com.sun.source.util.JavacTask;
 import java.io.File;
 import java.io.IOException;
 import java.lang.module.ModuleFinder;
 import java.lang.module.ModuleReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.spi.ToolProvider;
 import java.util.stream.Stream;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
 
 public class CompilerPlugin implements Plugin {
   @Override
@@ -82,6 +90,9 @@ public class CompilerPlugin implements Plugin {
     derive(compilerConf, CompilerConf::moduleExplodedSourcePath, convention, c -> c.javaModuleExplodedSourcePath().get(0));
     derive(compilerConf, CompilerConf::moduleMergedTestPath, convention, c -> c.javaModuleMergedTestPath().get(0));
     derive(compilerConf, CompilerConf::moduleExplodedTestPath, convention, c -> c.javaModuleExplodedTestPath().get(0));
+    
+    // cache
+    derive(compilerConf, CompilerConf::moduleGraphPath, convention, ConventionFacade::javaModuleGraphPath);
   }
   
   @Override
@@ -96,13 +107,42 @@ public class CompilerPlugin implements Plugin {
     compilerConf.processorModuleTestPath().forEach(registry::watch);
   }
   
+  @Override
+  public void inputsAndOutputs(Config config, InputOutputRegistry registry) {
+    var compilerConf = config.getOrThrow(name(), CompilerConf.class);
+    compilerConf.moduleDependencyPath().forEach(registry::input);
+    compilerConf.modulePath().ifPresent(modulePath -> modulePath.forEach(registry::input));
+    compilerConf.upgradeModulePath().ifPresent(modulePath -> modulePath.forEach(registry::input));
+    compilerConf.moduleSourcePath().forEach(registry::input);
+    compilerConf.moduleSourceResourcesPath().forEach(registry::input);
+    compilerConf.processorModuleSourcePath().forEach(registry::input);
+    compilerConf.moduleTestPath().forEach(registry::input);
+    compilerConf.moduleTestResourcesPath().forEach(registry::input);
+    compilerConf.processorModuleTestPath().forEach(registry::input);
+    
+    registry.output(compilerConf.moduleExplodedSourcePath());
+    registry.output(compilerConf.moduleMergedTestPath());
+    registry.output(compilerConf.moduleExplodedTestPath());
+    
+    // the states kept next to the destinations describe their content, so they are cached and restored with them
+    for(var destination: List.of(compilerConf.moduleExplodedSourcePath(), compilerConf.moduleExplodedTestPath())) {
+      registry.output(IncrementalState.stateFile(destination));
+      registry.output(IncrementalState.generatedDirectory(destination));
+      registry.output(ResourceSync.stateFile(destination));
+      registry.output(JavacProfile.profileFile(destination));
+    }
+    registry.output(compilerConf.moduleGraphPath());
+  }
+  
   private enum JavacOption {
     RELEASE(actionMaybe("--release", Javac::release)),
     VERBOSE(exists("-verbose", Javac::verbose)),
     LINT(javac -> javac.lint().map(lint -> line -> line.add("-Xlint:" + lint))),
+    IMPLICIT(javac -> javac.implicit().map(implicit -> line -> line.add("-implicit:" + implicit))),
     ENABLE_PREVIEW(exists("--enable-preview", Javac::enablePreview)),
     RAW_ARGUMENTS(rawValues(Javac::rawArguments)),
     DESTINATION(actionMaybe("-d", Javac::destination)),
+    GENERATED_SOURCE_DESTINATION(actionMaybe("-s", Javac::generatedSourceDestination)),
     MODULE_SOURCE_PATH(actionMaybe("--module-source-path", Javac::moduleSourcePath, File.pathSeparator)),
     SOURCE_PATH(actionMaybe("-sourcepath", Javac::sourcePath, File.pathSeparator)),
     MODULE(actionMaybe("--module", Javac::module)),
@@ -143,11 +183,12 @@ public class CompilerPlugin implements Plugin {
   }
 
   @Override
+  @SuppressWarnings("try")
   public int execute(Config config) throws IOException {
-    var log = Log.create(name(), config.getOrThrow("pro", ProConf.class).loglevel());
+    var log = Log.create(name(), config.getOrThrow(ProConf.KEY).loglevel());
     log.debug(config, conf -> "config " + config);
     
-    var javacTool = ToolProvider.findFirst("javac")
+    var javacTool = Optional.ofNullable(ToolProvider.getSystemJavaCompiler())
         .orElseThrow(() -> new IllegalStateException("can not find javac"));
     var compiler = config.getOrThrow(name(), CompilerConf.class);
 
@@ -214,8 +255,9 @@ public class CompilerPlugin implements Plugin {
       log.verbose(compilerModuleTestResourcePath, path -> "compilerModuleTestResourcePath: " + path);
       log.verbose(compilerModulePath, path -> "compilerModulePath: " + path);
 
-      deleteAllFiles(compilerModuleMergedTestPath, false);
-      merge(log, moduleSourceFinder, testModuleRefs, compilerModuleMergedTestPath);
+      try(var span = Trace.span("compiler", "merge tests")) {
+        merge(log, moduleSourceFinder, testModuleRefs, compilerModuleMergedTestPath);
+      }
 
       // reload testModuleRefs but from merged to get the module-infos right
       var mergedTestModuleRefs = ModuleHelper.topologicalSort(JDK_LAYOUT.findModuleRefs(List.of(compilerModuleMergedTestPath)));
@@ -243,20 +285,12 @@ public class CompilerPlugin implements Plugin {
     return 0;
   }
 
-  private static boolean resolveModuleGraph(Log log, ModuleFinder moduleFinder, List<Path> compilerModulePath,  String pass) {
-    var dependencyFinder = ModuleFinder.compose(
-        compilerModulePath.stream()
-            .map(ModuleFinder::of)
-            .toArray(ModuleFinder[]::new));
-    var systemFinder = ModuleHelper.systemModulesFinder();
-
+  private static boolean resolveModuleGraph(Log log, ModuleFinder moduleFinder, List<Path> compilerModulePath, Path moduleGraphPath, String pass) throws IOException {
     log.debug(moduleFinder, finder -> pass + " modules " + finder.findAll().stream().map(ref -> ref.descriptor().name()).sorted().collect(joining(", ")));
-    log.debug(dependencyFinder, finder -> pass + " dependency modules " + finder.findAll().stream().map(ref -> ref.descriptor().name()).sorted().collect(joining(", ")));
-    log.debug(systemFinder, finder -> pass + " system modules " + finder.findAll().stream().map(ref -> ref.descriptor().name()).sorted().collect(joining(", ")));
+    log.debug(compilerModulePath, modulePath -> pass + " dependency path " + modulePath);
 
-    return ModuleHelper.resolveOnlyRequires(
-        ModuleFinder.compose(moduleFinder, dependencyFinder, systemFinder),
-        moduleFinder.findAll().stream().map(ref -> ref.descriptor().name()).collect(toList()),
+    // the graph is only resolved again if a module-info or the dependencies have changed
+    return ModuleGraphCache.resolveOnlyRequires(log, moduleGraphPath, moduleFinder, compilerModulePath,
         new ResolverListener() {
           @Override
           public void module(String moduleName) {
@@ -269,7 +303,8 @@ public class CompilerPlugin implements Plugin {
         });
   }
 
-  private static int compile(Log log, ToolProvider javacTool,
+  @SuppressWarnings("try")
+  private static int compile(Log log, JavaCompiler javacTool,
       Set<ModuleReference> moduleRefs,
       ModuleFinder moduleFinder,
       Optional<Integer> release,
@@ -283,13 +318,11 @@ public class CompilerPlugin implements Plugin {
       String pass) throws IOException {
 
     // try to resolve the module graph to see if something is missing ?
-    var resolved = resolveModuleGraph(log, moduleFinder, compilerModulePath,  pass);
+    var resolved = resolveModuleGraph(log, moduleFinder, compilerModulePath, compiler.moduleGraphPath(), pass);
     if (!resolved) {
       return 1;  //FIXME
     }
     
-    deleteAllFiles(destination, false);
-    
     var javac = new Javac();
     release.ifPresent(javac::release);
     compiler.verbose().ifPresent(javac::verbose);
@@ -300,6 +333,26 @@ public class CompilerPlugin implements Plugin {
     compiler.module().ifPresent(javac::module);
     compiler.rootModules().ifPresent(javac::rootModules);
 
+    // the incremental compilation is disabled if the files are specified explicitly
+    var incremental = compiler.files().isEmpty();
+    
+    // the sources generated by the annotation processors are kept next to the destination,
+    // so they are not deleted by an incremental compilation
+    var isolatingProcessors = compiler.isolatingProcessors().orElse(List.of());
+    var generatedDirectory = IncrementalState.generatedDirectory(destination);
+    if (!compilerProcessorModulePath.isEmpty()) {
+      javac.generatedSourceDestination(generatedDirectory);
+    }
+    
+    // the time spent by javac in each phase, by module and by compilation unit
+    var moduleDirectories = new HashMap<Path, String>();
+    for(var moduleRef: moduleRefs) {
+      var moduleName = moduleRef.descriptor().name();
+      moduleRef.location().ifPresent(uri -> moduleDirectories.put(Path.of(uri), moduleName));
+      moduleDirectories.put(generatedDirectory.resolve(moduleName), moduleName);
+    }
+    var profile = new JavacProfile(moduleDirectories);
+    
     var compatibilityMode = release.map(_release -> _release <= 8).orElse(false);
     if (!compatibilityMode) {
       // module mode, compile all java files at once using moduleSourcePath
@@ -310,44 +363,105 @@ public class CompilerPlugin implements Plugin {
 
       var files = compiler.files()
           .orElseGet(() -> walkIfNecessary(expandPath(compilerModuleSourcePath), pathFilenameEndsWith(".java")));
-
-      var errorCode = compileAllFiles(log, javacTool, javac, release, files);
-      if (errorCode != 0) {
-        return errorCode;
+      
+      // the modules can be compiled concurrently if a parallelism is specified
+      var parallelism = compiler.parallelism().orElse(1);
+      var parallel = parallelism > 1 && moduleRefs.size() > 1 && compiler.files().isEmpty() && compiler.module().isEmpty();
+      
+      var state = loadIncrementalState(log, javac, concat(compilerModulePath, compilerProcessorModulePath), isolatingProcessors, destination, incremental, false);
+      var filesToCompile = state.plan(log, files);
+      while(!filesToCompile.isEmpty()) {
+        var errorCode = parallel?
+            compileModulesInParallel(log, javacTool, javac, release, moduleRefs, List.copyOf(filesToCompile), parallelism, pass, state, isolatingProcessors, profile):
+            compileAllFiles(log, javacTool, javac, release, List.copyOf(filesToCompile), moduleRefs.size(), pass, state, isolatingProcessors, profile);
+        if (errorCode != 0) {
+          state.save();
+          return errorCode;
+        }
+        // recompile the dependent modules if the ABI of a module changed
+        filesToCompile = state.propagate(log);
       }
+      state.save();
     } else {
-      // compatibility mode, compile modules one by one, moduleRefs is already in topological order
+      // compatibility mode, compile each module without its module-info using the sourcePath,
+      // a module is compiled once the modules it requires are compiled, modules that don't depend
+      // on each other can be compiled concurrently if a parallelism is specified.
+      // All the modules share the same class path, the dependencies and the destination of each module
       var classPath = compilerModulePath.stream().flatMap(CompilerPlugin::asClassPath).collect(toUnmodifiableList());
       var processorPath = compilerProcessorModulePath.stream().flatMap(CompilerPlugin::asClassPath).collect(toUnmodifiableList());
-      Optional.of(classPath).filter(not(List::isEmpty)).ifPresent(javac::classPath);
       Optional.of(processorPath).filter(not(List::isEmpty)).ifPresent(javac::processorPath);
-
+      var sharedClassPath = Stream.concat(
+            classPath.stream(),
+            moduleRefs.stream().map(moduleRef -> destination.resolve(moduleRef.descriptor().name())))
+          .collect(toUnmodifiableList());
+      var parallelism = compiler.parallelism().orElse(1);
+      
+      var moduleInfo = pathFilenameEquals("module-info.java");
+      var moduleSourcePathMap = new LinkedHashMap<ModuleReference, List<Path>>();
+      var moduleFilesMap = new LinkedHashMap<ModuleReference, List<Path>>();
       for(var moduleRef: moduleRefs) {
-        // compile modules one by one using the sourcePath, without the module-info
-        var sourcePath = layout.toModulePath(moduleRef, compiler.moduleSourcePath());
-        javac.sourcePath(sourcePath);
-        javac.destination(destination.resolve(moduleRef.descriptor().name()));
-        var moduleInfo = pathFilenameEquals("module-info.java");
-        var files = compiler.files()
-            .orElseGet(() -> walkIfNecessary(sourcePath, pathFilenameEndsWith(".java").and(not(moduleInfo))));
-        var errorCode = compileAllFiles(log, javacTool, javac, release, files);
+        // the directory containing the module-info, also works for the merged test modules 
+        var sourcePath = moduleRef.location().map(uri -> List.of(Path.of(uri)))
+            .orElseGet(() -> layout.toModulePath(moduleRef, compiler.moduleSourcePath()));
+        moduleSourcePathMap.put(moduleRef, sourcePath);
+        moduleFilesMap.put(moduleRef, compiler.files()
+            .orElseGet(() -> walkIfNecessary(sourcePath, pathFilenameEndsWith(".java"))));
+      }
+      
+      var state = loadIncrementalState(log, javac, concat(classPath, processorPath), isolatingProcessors, destination, incremental, true);
+      var filesToCompile = state.plan(log, moduleFilesMap.values().stream().flatMap(List::stream).collect(toList()));
+      while(!filesToCompile.isEmpty()) {
+        var toCompile = filesToCompile;
+        var errorCode = ModuleScheduler.execute(log, moduleRefs, parallelism, moduleRef -> {
+          var files = moduleFilesMap.get(moduleRef).stream()
+              .filter(toCompile::contains)
+              .filter(not(moduleInfo))
+              .collect(toUnmodifiableList());
+          if (files.isEmpty()) {  // up to date
+            return 0;
+          }
+          var moduleJavac = new Javac(javac);
+          moduleJavac.sourcePath(moduleSourcePathMap.get(moduleRef));
+          moduleJavac.destination(destination.resolve(moduleRef.descriptor().name()));
+          moduleJavac.classPath(sharedClassPath);
+          javac.generatedSourceDestination().ifPresent(__ -> moduleJavac.generatedSourceDestination(generatedDirectory.resolve(moduleRef.descriptor().name())));
+          return compileAllFiles(log, javacTool, moduleJavac, release, files, 1, pass, state, isolatingProcessors, profile);
+        });
         if (errorCode != 0) {
+          state.save();
           return errorCode;
         }
-        
-        // compile the module-info with release 9
-        javac.classPath(null); // reset classpath
-        Optional.of(compilerModulePath).filter(not(List::isEmpty)).ifPresent(javac::modulePath);  // use modulePath instead
-        files = walkIfNecessary(sourcePath, moduleInfo);
-        errorCode = compileAllFiles(log, javacTool, javac, Optional.of(9), files);
-        if (errorCode != 0) {
-          return errorCode;
+
+        // compile all the module-infos at once with release 9 using the moduleSourcePath,
+        // the classes of the modules are read from the destination
+        var moduleInfos = filesToCompile.stream().filter(moduleInfo).collect(toUnmodifiableList());
+        if (!moduleInfos.isEmpty()) {
+          var moduleInfoJavac = new Javac(javac);
+          moduleInfoJavac.moduleSourcePath(compilerModuleSourcePath);
+          Optional.of(compilerModulePath).filter(not(List::isEmpty)).ifPresent(moduleInfoJavac::modulePath);
+          moduleInfoJavac.destination(destination);
+          moduleInfoJavac.implicit("none");
+          errorCode = compileAllFiles(log, javacTool, moduleInfoJavac, Optional.of(9), moduleInfos, moduleInfos.size(), pass, state, isolatingProcessors, profile);
+          if (errorCode != 0) {
+            state.save();
+            return errorCode;
+          }
         }
+        // recompile the dependent modules if the ABI of a module changed
+        filesToCompile = state.propagate(log);
       }
+      state.save();
     }
     
-    //copy all resources
-    copyAllResources(log, moduleRefs, resourcesPath, layout, destination);
+    // report the time spent by javac
+    profile.log(log, pass);
+    profile.write(JavacProfile.profileFile(destination), pass);
+    
+    // copy the resources that have changed, the destination is not cleaned by an incremental compilation
+    try(var span = Trace.span("compiler", "copy resources " + pass)) {
+      var parallelism = compiler.parallelism().orElseGet(Runtime.getRuntime()::availableProcessors);
+      ResourceSync.sync(log, moduleRefs, resourcesPath, layout, destination, parallelism);
+    }
 
     // declare all services for the classpath
     declareAllServicesForTheClassPath(moduleRefs, destination);
@@ -356,31 +470,98 @@ public class CompilerPlugin implements Plugin {
   }
 
 
-  private static int compileAllFiles(Log log, ToolProvider javacTool, Javac javac, Optional<Integer> release, List<Path> files) {
-    release.ifPresent(javac::release);
-    var cmdLine = gatherAll(JavacOption.class, option -> option.action).apply(javac, new CmdLine());
-    files.forEach(cmdLine::add);
-
-    var arguments = cmdLine.toArguments();
-    log.verbose(files, fs -> toPrettyString(JavacOption.class, option -> option.action).apply(javac, "javac") + "\n" + fs.stream().map(Path::toString).collect(joining(" ")));
-
-    return javacTool.run(System.out, System.err, arguments);
+  private static IncrementalState loadIncrementalState(Log log, Javac javac, List<Path> dependencies, List<String> isolatingProcessors,
+      Path destination, boolean incremental, boolean compatibilityMode) throws IOException {
+    var options = toPrettyString(JavacOption.class, option -> option.action).apply(javac, "javac") +
+        (isolatingProcessors.isEmpty()? "": " isolating processors " + isolatingProcessors);
+    var fingerprint = IncrementalState.fingerprint(options, dependencies);
+    return IncrementalState.load(log, destination, fingerprint, incremental, compatibilityMode);
   }
 
-  private static void copyAllResources(Log log, Set<ModuleReference> moduleRefs,
-      List<Path> resourcesPath, ModuleSourceLayout layout, Path destination) {
+  private static int compileModulesInParallel(Log log, JavaCompiler javacTool, Javac javac, Optional<Integer> release,
+      Set<ModuleReference> moduleRefs, List<Path> files, int parallelism, String pass, IncrementalState state,
+      List<String> isolatingProcessors, JavacProfile profile) throws IOException {
+    var moduleDirectories = new LinkedHashMap<String, Path>();
     for(var moduleRef: moduleRefs) {
-      for(var resourceDir : layout.toModulePath(moduleRef, resourcesPath)) {
-        var destinationDir = destination.resolve(moduleRef.descriptor().name());
-        log.verbose(null, __ -> "copy resources from directory " + resourceDir + " to " + destinationDir);
-        walkAndFindCounterpart(resourceDir, destinationDir, identity(), (src, dest) -> {
-          if (isDirectory(src) && isDirectory(dest)) { // do not overwrite directory
-            return;
+      moduleRef.location().ifPresent(uri -> moduleDirectories.put(moduleRef.descriptor().name(), Path.of(uri)));
+    }
+    var moduleFilesMap = new HashMap<String, List<Path>>();
+    for(var file: files) {
+      var absoluteFile = file.toAbsolutePath().normalize();
+      var moduleName = moduleDirectories.entrySet().stream()
+          .filter(entry -> absoluteFile.startsWith(entry.getValue()))
+          .map(Map.Entry::getKey)
+          .findFirst();
+      if (moduleName.isEmpty()) {  // not in a module directory, compile all files at once
+        return compileAllFiles(log, javacTool, javac, release, files, moduleRefs.size(), pass, state, isolatingProcessors, profile);
+      }
+      moduleFilesMap.computeIfAbsent(moduleName.orElseThrow(), __ -> new ArrayList<>()).add(file);
+    }
+    
+    log.verbose(moduleFilesMap, map -> pass + " compile " + map.size() + " module(s), at most " + parallelism + " concurrently");
+    return ModuleScheduler.execute(log, moduleRefs, parallelism, moduleRef -> {
+      var moduleFiles = moduleFilesMap.get(moduleRef.descriptor().name());
+      if (moduleFiles == null) {  // up to date
+        return 0;
+      }
+      // the required modules are already compiled in the destination, javac should read their classes
+      // and not regenerate them concurrently with the compilation of another module 
+      var moduleJavac = new Javac(javac);
+      moduleJavac.implicit("none");
+      return compileAllFiles(log, javacTool, moduleJavac, release, moduleFiles, 1, pass, state, isolatingProcessors, profile);
+    });
+  }
+
+  @SuppressWarnings("try")
+  private static int compileAllFiles(Log log, JavaCompiler javacTool, Javac javac, Optional<Integer> release, List<Path> files, int moduleCount, String pass,
+      IncrementalState state, List<String> isolatingProcessors, JavacProfile profile) throws IOException {
+    release.ifPresent(javac::release);
+    var arguments = ProcessorTracker.javacArguments(gatherAll(JavacOption.class, option -> option.action).apply(javac, new CmdLine()).toArguments());
+    log.verbose(files, fs -> toPrettyString(JavacOption.class, option -> option.action).apply(javac, "javac") + "\n" + fs.stream().map(Path::toString).collect(joining(" ")));
+
+    var event = new BuildEvents.JavacEvent();
+    event.begin();
+    int errorCode;
+    var compilation = state.compilation();
+    var pooled = FileManagerPool.acquire(javacTool, arguments);
+    var reusable = false;
+    try(var span = Trace.span("compiler", "javac")) {
+      var fileManager = pooled.fileManager();
+      var compilationUnits = fileManager.getJavaFileObjects(files.toArray(Path[]::new));
+      try {
+        var task = javacTool.getTask(null, compilation.recorder(fileManager), null, List.of(arguments), null, compilationUnits);
+        if (task instanceof JavacTask) {
+          profile.listen((JavacTask)task);
+        }
+        var processors = ProcessorTracker.track(task, fileManager, javac, isolatingProcessors, compilation);  // may be null
+        try {
+          errorCode = task.call()? 0: 1;
+        } finally {
+          if (processors != null) {
+            processors.close();
           }
-          copy(src, dest);
-        });
+        }
+        reusable = true;
+      } catch(IllegalArgumentException | IllegalStateException e) {  // invalid option
+        log.error(e, _e -> "javac: " + _e.getMessage());
+        errorCode = 2;
       }
+    } finally {
+      FileManagerPool.release(pooled, reusable);
+    }
+    if (errorCode == 0) {
+      compilation.compiled(files);
+    } else {
+      compilation.failed();
+    }
+    if (event.shouldCommit()) {
+      event.pass = pass;
+      event.fileCount = files.size();
+      event.moduleCount = moduleCount;
+      event.errorCode = errorCode;
+      event.commit();
     }
+    return errorCode;
   }
 
   private static void declareAllServicesForTheClassPath(Set<ModuleReference> moduleRefs,
@@ -395,7 +576,7 @@ public class CompilerPlugin implements Plugin {
       }
       for(var provide: provides) {
         var servicePath = servicesPath.resolve(provide.service());
-        write(servicePath, (Iterable<String>)provide.providers().stream()::iterator, CREATE_NEW);
+        write(servicePath, (Iterable<String>)provide.providers().stream()::iterator);
       }
     }
   }
@@ -408,11 +589,22 @@ public class CompilerPlugin implements Plugin {
         if (!jars.isEmpty()) {
           return jars.stream();  
         }
+        // a directory of exploded modules
+        var explodedModules = FileHelper.list(path).filter(ModuleAbi::isExplodedModule).collect(toUnmodifiableList());
+        if (!explodedModules.isEmpty()) {
+          return explodedModules.stream();
+        }
       }
       return Stream.of(path);
     });
   }
   
+  /**
+   * Merge the source files and the test files of each test module into the merged test directory.
+   * The merge is incremental, the merged files are hard links (or copies if a hard link can not
+   * be created) that are only re-created if the original file changed, the files that do not
+   * exist anymore are removed and the merged module-info.java is only written if its content changed.
+   */
   private static void merge(Log log, ModuleFinder moduleSourceFinder,
       Set<ModuleReference> testModuleRefs, Path moduleMergedTestPath) throws IOException {
     Files.createDirectories(moduleMergedTestPath);
@@ -420,11 +612,15 @@ public class CompilerPlugin implements Plugin {
     log.verbose(testModuleRefs, __ -> "merge testModuleRefs: " + testModuleRefs);
     log.verbose(moduleSourceFinder, __ -> "merge moduleSourceFinder: " + moduleSourceFinder);
 
+    var testModuleNames = new HashSet<String>();
     for(var testRef: testModuleRefs) {
       var testModuleName = testRef.descriptor().name();
       var testModuleDestination = moduleMergedTestPath.resolve(testModuleName);
+      testModuleNames.add(testModuleName);
 
+      var files = new LinkedHashMap<Path, Path>();  // merged file -> original file
       Predicate<Path> predicate;
+      Path mergedModuleInfo = null;
       var sourceRefOpt = moduleSourceFinder.find(testModuleName);
       if (sourceRefOpt.isPresent()) {
         var sourceRef = sourceRefOpt.orElseThrow();
@@ -432,17 +628,12 @@ public class CompilerPlugin implements Plugin {
         var sourcePath = Path.of(sourceRef.location().orElseThrow());
         var skipModuleInfoDotJava = not(pathFilenameEquals("module-info.java"));
 
-        log.verbose(null, __ -> "copy source from directory " + sourcePath + " to " + testModuleDestination);
-        walkAndFindCounterpart(sourcePath, testModuleDestination,
-            stream -> stream.filter(skipModuleInfoDotJava),
-            (source, target) -> {
-              log.debug(null, __ -> "copy file " + source + " to " + target);
-              Files.copy(source, target);
-            });
-
+        log.verbose(null, __ -> "merge source from directory " + sourcePath + " to " + testModuleDestination);
+        findCounterparts(sourcePath, testModuleDestination, skipModuleInfoDotJava, files);
 
         var descriptor = mergeModuleDescriptor(sourceRef.descriptor(), testRef.descriptor());
-        write(testModuleDestination.resolve("module-info.java"), List.of(moduleDescriptorToSource(descriptor)));
+        mergedModuleInfo = testModuleDestination.resolve("module-info.java");
+        writeIfChanged(log, mergedModuleInfo, moduleDescriptorToSource(descriptor) + "\n");
         
         predicate = skipModuleInfoDotJava;
         
@@ -451,16 +642,93 @@ public class CompilerPlugin implements Plugin {
       }
 
       var testPath = Path.of(testRef.location().orElseThrow());
-      log.verbose(null, __ -> "copy test from directory " + testPath + " to " + testModuleDestination);
-      walkAndFindCounterpart(testPath, testModuleDestination, stream -> stream.filter(predicate),
-          (srcPath, dstPath) -> {
-            if (exists(dstPath) && isDirectory(dstPath)) {
-              return;  // skip existing path
-            }
-            log.debug(null, __ -> "copy file " + srcPath + " to " + dstPath);
-            copy(srcPath, dstPath);
-          });
+      log.verbose(null, __ -> "merge test from directory " + testPath + " to " + testModuleDestination);
+      findCounterparts(testPath, testModuleDestination, predicate, files);  // a test file replaces a source file
+
+      linkAll(log, testModuleDestination, files, mergedModuleInfo);
+    }
+
+    // remove the modules that have no test anymore
+    try(var stream = FileHelper.list(moduleMergedTestPath)) {
+      stream.filter(path -> !testModuleNames.contains(path.getFileName().toString()))
+          .forEach(path -> deleteAllFiles(path, true));
+    }
+  }
+
+  private static void findCounterparts(Path srcPath, Path dstPath, Predicate<Path> predicate, Map<Path, Path> files) throws IOException {
+    try(var stream = walk(srcPath)) {
+      stream.filter(Files::isRegularFile)
+          .filter(predicate)
+          .forEach(path -> files.put(dstPath.resolve(srcPath.relativize(path)), path));
+    }
+  }
+
+  // never write in place, the file may be a hard link to a file of the test directory
+  private static void writeIfChanged(Log log, Path path, String content) throws IOException {
+    if (Files.isRegularFile(path) && Files.readString(path).equals(content)) {
+      return;
+    }
+    log.debug(path, _path -> "write " + _path);
+    var directory = path.getParent();
+    Files.createDirectories(directory);
+    var tmpFile = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+    try {
+      Files.writeString(tmpFile, content);
+      Files.move(tmpFile, path, REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tmpFile);
+    }
+  }
+
+  private static void linkAll(Log log, Path moduleDestination, Map<Path, Path> files, Path mergedModuleInfo) throws IOException {
+    // remove the files that are not part of the merge anymore
+    var removed = 0;
+    if (Files.isDirectory(moduleDestination)) {
+      var staleFiles = new ArrayList<Path>();
+      try(var stream = walk(moduleDestination)) {
+        stream.filter(Files::isRegularFile)
+            .filter(path -> !files.containsKey(path) && !path.equals(mergedModuleInfo))
+            .forEach(staleFiles::add);
+      }
+      for(var staleFile: staleFiles) {
+        log.debug(staleFile, file -> "remove file " + file);
+        Files.delete(staleFile);
+      }
+      removed = staleFiles.size();
+    }
+
+    var linked = 0;
+    for(var entry: files.entrySet()) {
+      var target = entry.getKey();
+      var source = entry.getValue();
+      if (isSameContent(source, target)) {
+        continue;
+      }
+      log.debug(null, __ -> "link file " + source + " to " + target);
+      Files.createDirectories(target.getParent());
+      Files.deleteIfExists(target);
+      try {
+        Files.createLink(target, source);
+      } catch(UnsupportedOperationException | IOException e) {  // not the same file system
+        Files.copy(source, target, COPY_ATTRIBUTES);
+      }
+      linked++;
+    }
 
+    var _removed = removed;
+    var _linked = linked;
+    log.verbose(moduleDestination, dest -> "merge " + dest + ": " + _linked + " file(s) linked, " + _removed + " file(s) removed, " + (files.size() - _linked) + " file(s) unchanged");
+  }
+
+  // a hard link of the source or a copy with the same size and last modified time
+  private static boolean isSameContent(Path source, Path target) throws IOException {
+    if (!Files.isRegularFile(target)) {
+      return false;
+    }
+    if (Files.isSameFile(source, target)) {
+      return true;
     }
+    return Files.size(source) == Files.size(target) &&
+        Files.getLastModifiedTime(source).equals(Files.getLastModifiedTime(target));
   }
 }
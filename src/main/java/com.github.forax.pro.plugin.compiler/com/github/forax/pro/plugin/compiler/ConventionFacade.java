@@ -17,4 +17,5 @@ public interface ConventionFacade {
   List<Path> javaModuleExplodedTestPath();
   
   List<Path> javaModuleDependencyPath();
+  Path javaModuleGraphPath();
 }
@@ -0,0 +1,180 @@
+package com.github.forax.pro.plugin.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+
+/**
+ * A pool of warm javac file managers shared by all the compilations of the same VM,
+ * the source and the test passes but also the successive builds of the daemon.
+ *
+ * A file manager keeps the jars it has opened indexed, so reusing it avoids to re-open
+ * and re-index all the jars of the module path at each compilation.
+ *
+ * Javac doesn't reset the locations of a file manager between two tasks, a task created
+ * with a file manager already used keeps the locations (-d, --module-path, etc) of the previous task,
+ * so a file manager is only reused by a compilation that uses exactly the same options,
+ * by example the same pass of the next build of the daemon.
+ * A file manager is discarded if one of the jars it may have indexed has been modified
+ * or if an element of a path that was missing now exists (javac caches the missing elements).
+ */
+final class FileManagerPool {
+  private FileManagerPool() {
+    throw new AssertionError();
+  }
+
+  private static final Set<String> PATH_OPTIONS = Set.of(
+      "--module-path", "-p", "--upgrade-module-path",
+      "--class-path", "-classpath", "-cp",
+      "--processor-path", "-processorpath", "--processor-module-path");
+  private static final int MAX_IDLE_COUNT = Runtime.getRuntime().availableProcessors();
+
+  private static final ArrayDeque<Entry> IDLE = new ArrayDeque<>();  // guarded by IDLE
+
+  static final class Entry {
+    private final String key;
+    private final StandardJavaFileManager fileManager;
+    private final HashMap<Path, String> archives = new HashMap<>();  // path -> stamp (see stamp())
+
+    private Entry(String key, StandardJavaFileManager fileManager) {
+      this.key = key;
+      this.fileManager = fileManager;
+    }
+
+    StandardJavaFileManager fileManager() {
+      return fileManager;
+    }
+
+    private boolean isUpToDate(HashMap<Path, String> currentArchives) {
+      for(var entry: currentArchives.entrySet()) {
+        var stamp = archives.get(entry.getKey());
+        if (stamp != null && !stamp.equals(entry.getValue())) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Returns a file manager able to compile with the arguments, either an idle one
+   * or a new one if there is no idle file manager compatible with the arguments.
+   *
+   * @param compiler the compiler used to create a new file manager.
+   * @param arguments the arguments of the compilation.
+   * @return an entry containing the file manager, the entry should be {@link #release(Entry, boolean) released}
+   *         after the compilation.
+   */
+  static Entry acquire(JavaCompiler compiler, String[] arguments) {
+    var key = key(arguments);
+    var currentArchives = archives(arguments);
+    Entry found = null;
+    synchronized(IDLE) {
+      for(Iterator<Entry> it = IDLE.iterator(); it.hasNext();) {
+        var entry = it.next();
+        if (!entry.key.equals(key)) {
+          continue;
+        }
+        it.remove();
+        if (entry.isUpToDate(currentArchives)) {
+          found = entry;
+          break;
+        }
+        close(entry);  // a jar or a path has changed, the index is stale
+      }
+    }
+    if (found == null) {
+      found = new Entry(key, compiler.getStandardFileManager(null, null, null));
+    }
+    found.archives.putAll(currentArchives);
+    return found;
+  }
+
+  /**
+   * Gives back a file manager to the pool.
+   *
+   * @param entry the entry returned by {@link #acquire(JavaCompiler, String[])}.
+   * @param reusable false if the compilation has not completed normally,
+   *                 in that case the file manager is closed.
+   */
+  static void release(Entry entry, boolean reusable) {
+    if (reusable) {
+      synchronized(IDLE) {
+        if (IDLE.size() < MAX_IDLE_COUNT) {
+          IDLE.addFirst(entry);
+          return;
+        }
+      }
+    }
+    close(entry);
+  }
+
+  private static void close(Entry entry) {
+    try {
+      entry.fileManager.close();
+    } catch(IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // the options and their values
+  private static String key(String[] arguments) {
+    return String.join("\n", arguments);
+  }
+
+  private static HashMap<Path, String> archives(String[] arguments) {
+    var archives = new HashMap<Path, String>();
+    for(var i = 0; i < arguments.length - 1; i++) {
+      if (!PATH_OPTIONS.contains(arguments[i])) {
+        continue;
+      }
+      for(var element: arguments[i + 1].split(File.pathSeparator)) {
+        if (element.isEmpty()) {
+          continue;
+        }
+        var path = Path.of(element).toAbsolutePath();
+        if (!Files.exists(path)) {
+          archives.put(path, "");
+          continue;
+        }
+        if (Files.isDirectory(path)) {   // a directory of a module path may contain jars
+          archives.put(path, "directory");
+          try(Stream<Path> stream = Files.list(path)) {
+            stream.filter(FileManagerPool::isArchive).forEach(archive -> archives.put(archive, stamp(archive)));
+          } catch(IOException e) {
+            // the directory will be reported by javac
+          }
+          continue;
+        }
+        if (isArchive(path)) {
+          archives.put(path, stamp(path));
+        }
+      }
+    }
+    return archives;
+  }
+
+  private static boolean isArchive(Path path) {
+    var filename = path.getFileName().toString();
+    return filename.endsWith(".jar") || filename.endsWith(".zip");
+  }
+
+  // a missing path has an empty stamp
+  private static String stamp(Path archive) {
+    try {
+      return Files.size(archive) + " " + Files.getLastModifiedTime(archive).toMillis();
+    } catch(IOException e) {
+      return "";  // missing archive
+    }
+  }
+}
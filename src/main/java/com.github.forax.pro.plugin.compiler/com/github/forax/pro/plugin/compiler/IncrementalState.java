@@ -0,0 +1,764 @@
+package com.github.forax.pro.plugin.compiler;
+
+import static com.github.forax.pro.helper.FileHelper.deleteAllFiles;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.StandardJavaFileManager;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Opcodes;
+
+import com.github.forax.pro.helper.DigestHelper;
+import com.github.forax.pro.helper.Log;
+
+/**
+ * State of the incremental compilation of a destination directory.
+ *
+ * For each source file, the state records its size, last modified time and hash,
+ * the class files generated from it and, for each class, the classes it references
+ * (found in the constant pool of the class file).
+ *
+ * When a source file is modified or removed, its class files are deleted and the source files
+ * of the same module that depend on its classes, transitively, are recompiled.
+ * The source files of the other modules are only recompiled if the {@link ModuleAbi ABI} of the module
+ * changed (see {@link #propagate(Log)}). A full compilation is done if the options of javac or
+ * the ABI of the dependencies changed, if a module-info changed or if a class declaring
+ * constants changed (javac inlines the constants so the dependency is not visible in the class files).
+ *
+ * The state also records the files generated by the incremental annotation processors
+ * (see {@link ProcessorTracker}) with the source files of their originating elements.
+ * The generated sources are stored in a directory next to the destination directory so they survive
+ * an incremental compilation. When a source file is recompiled, the files generated from it are deleted
+ * and generated again by the isolating processors, an aggregating processor processes again
+ * all the originating source files of its generated files. If a processor is not incremental,
+ * a full compilation is done if a source file changed.
+ *
+ * The state is stored in a file next to the destination directory.
+ */
+final class IncrementalState {
+  private static final class ClassState {
+    final String name;
+    final String file;  // relative to the destination
+    final boolean hasConstants;
+    final List<String> dependencies;
+
+    ClassState(String name, String file, boolean hasConstants, List<String> dependencies) {
+      this.name = name;
+      this.file = file;
+      this.hasConstants = hasConstants;
+      this.dependencies = dependencies;
+    }
+
+    String module() {
+      var index = file.indexOf('/');
+      return (index == -1)? "": file.substring(0, index);
+    }
+  }
+
+  private static final class SourceState {
+    final long size;
+    final long lastModified;
+    final String hash;
+    final List<ClassState> classes;
+
+    SourceState(long size, long lastModified, String hash, List<ClassState> classes) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+      this.classes = classes;
+    }
+  }
+
+  private static final class GeneratedState {
+    final String processor;
+    final boolean isolating;
+    final List<Path> origins;  // the source files of the originating elements
+
+    GeneratedState(String processor, boolean isolating, List<Path> origins) {
+      this.processor = processor;
+      this.isolating = isolating;
+      this.origins = origins;
+    }
+  }
+
+  private final Path destination;
+  private final Path generatedDirectory;
+  private final Path stateFile;
+  private final String fingerprint;
+  private final boolean full;
+  private final boolean allPackages;
+  private final HashMap<Path, SourceState> sources;        // keys are absolute paths
+  private final HashMap<String, String> abis;              // module name -> ABI hash
+  private final HashMap<Path, GeneratedState> generated;   // keys are absolute paths
+  private final HashSet<String> untrackedProcessors;       // the annotation processors that are not incremental
+
+  // the source files of the current build, the source files compiled and the modified classes by module,
+  // the concurrent compilations update sources, compiled and modifiedClasses with the lock of this
+  private final HashMap<Path, Path> current = new HashMap<>();
+  private final HashSet<Path> compiled = new HashSet<>();
+  private final HashMap<String, HashSet<String>> modifiedClasses = new HashMap<>();
+
+  private IncrementalState(Path destination, Path stateFile, String fingerprint, boolean full, boolean allPackages,
+                           HashMap<Path, SourceState> sources, HashMap<String, String> abis,
+                           HashMap<Path, GeneratedState> generated, HashSet<String> untrackedProcessors) {
+    this.destination = destination;
+    this.generatedDirectory = generatedDirectory(destination);
+    this.stateFile = stateFile;
+    this.fingerprint = fingerprint;
+    this.full = full;
+    this.allPackages = allPackages;
+    this.sources = sources;
+    this.abis = abis;
+    this.generated = generated;
+    this.untrackedProcessors = untrackedProcessors;
+  }
+
+  /**
+   * Returns the directory of the sources generated by the annotation processors.
+   * @param destination the destination directory of javac.
+   * @return the directory of the generated sources, next to the destination directory.
+   */
+  static Path generatedDirectory(Path destination) {
+    return destination.resolveSibling(destination.getFileName() + ".generated");
+  }
+
+  /**
+   * Returns the file that stores the state of a destination directory.
+   * @param destination the destination directory of javac.
+   * @return the state file, next to the destination directory.
+   */
+  static Path stateFile(Path destination) {
+    return destination.resolveSibling(destination.getFileName() + ".incremental");
+  }
+
+  /**
+   * Load the state of a destination directory.
+   *
+   * @param log the log
+   * @param destination the destination directory of javac.
+   * @param fingerprint the fingerprint of the options and the dependencies of javac.
+   * @param enabled true if the incremental compilation is enabled.
+   * @param allPackages true if all the packages of a module are visible from the other modules
+   *        (compatibility mode).
+   * @return the state of the previous compilation or a state requiring a full compilation.
+   */
+  static IncrementalState load(Log log, Path destination, String fingerprint, boolean enabled, boolean allPackages) {
+    var stateFile = stateFile(destination);
+    if (enabled && Files.isDirectory(destination)) {
+      try {
+        var sources = new HashMap<Path, SourceState>();
+        var abis = new HashMap<String, String>();
+        var generated = new HashMap<Path, GeneratedState>();
+        var untrackedProcessors = new HashSet<String>();
+        if (read(stateFile, fingerprint, sources, abis, generated, untrackedProcessors)) {
+          log.verbose(destination, dest -> "incremental: options and ABI of the dependencies unchanged for " + dest);
+          return new IncrementalState(destination, stateFile, fingerprint, false, allPackages, sources, abis, generated, untrackedProcessors);
+        }
+        log.verbose(destination, dest -> "incremental: no previous state, options or ABI of the dependencies changed, full compilation of " + dest);
+      } catch(IOException | RuntimeException e) {
+        log.verbose(e, _e -> "incremental: can not read " + stateFile + " " + _e.getMessage());
+      }
+    }
+    return new IncrementalState(destination, stateFile, fingerprint, true, allPackages, new HashMap<>(), new HashMap<>(), new HashMap<>(), new HashSet<>());
+  }
+
+  /**
+   * Compute a fingerprint of the options of javac and of its dependencies.
+   * The exploded modules are represented by their {@link ModuleAbi ABI},
+   * the other files by their size and last modified time.
+   *
+   * @param options the options of javac.
+   * @param dependencies the dependencies (module path, class path, etc.)
+   * @return a fingerprint.
+   * @throws IOException if an I/O error occurs.
+   */
+  static String fingerprint(String options, List<Path> dependencies) throws IOException {
+    var digest = DigestHelper.newDigest();
+    digest.update(options.getBytes(UTF_8));
+    for(var dependency: dependencies) {
+      if (!Files.exists(dependency)) {
+        continue;
+      }
+      if (ModuleAbi.isExplodedModule(dependency)) {
+        digest.update(("abi " + dependency + " " + ModuleAbi.hash(dependency, false) + "\n").getBytes(UTF_8));
+        continue;
+      }
+      try(var stream = Files.walk(dependency)) {
+        var iterator = stream.sorted().iterator();
+        while(iterator.hasNext()) {
+          var path = iterator.next();
+          if (Files.isDirectory(path) && ModuleAbi.isExplodedModule(path)) {
+            digest.update(("abi " + path + " " + ModuleAbi.hash(path, false) + "\n").getBytes(UTF_8));
+            continue;
+          }
+          if (!Files.isRegularFile(path) || isInExplodedModule(dependency, path)) {
+            continue;
+          }
+          digest.update((path + " " + Files.size(path) + " " + Files.getLastModifiedTime(path).toMillis() + "\n").getBytes(UTF_8));
+        }
+      } catch(UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+    return DigestHelper.toHex(digest.digest());
+  }
+
+  private static boolean isInExplodedModule(Path root, Path path) {
+    for(var parent = path.getParent(); parent != null && !parent.equals(root); parent = parent.getParent()) {
+      if (ModuleAbi.isExplodedModule(parent)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Find the files to compile among the source files, delete the class files of the source files
+   * that have to be recompiled or that were removed.
+   *
+   * @param log the log
+   * @param files all the source files.
+   * @return the files that need to be compiled.
+   * @throws IOException if an I/O error occurs.
+   */
+  Set<Path> plan(Log log, Collection<Path> files) throws IOException {
+    for(var file: files) {
+      current.put(key(file), file);
+    }
+    if (full) {
+      deleteAllFiles(destination, false);
+      deleteAllFiles(generatedDirectory, false);
+      return new LinkedHashSet<>(files);
+    }
+
+    var dirty = new LinkedHashSet<Path>();
+    for(var file: files) {
+      var sourceState = sources.get(key(file));
+      if (sourceState == null || isModified(file, sourceState)) {
+        dirty.add(key(file));
+      }
+    }
+    for(var entry: sources.entrySet()) {
+      var source = entry.getKey();
+      if (!current.containsKey(source)) {
+        // removed or compiled implicitly by javac
+        if (!Files.exists(source) || isModified(source, entry.getValue())) {
+          dirty.add(source);
+        }
+      }
+    }
+    // a generated file that was modified or removed is generated again
+    generated.forEach((file, generatedState) -> {
+      if (dirty.contains(file) || !Files.exists(file)) {
+        dirty.addAll(generatedState.origins);
+      }
+    });
+    if (dirty.isEmpty()) {
+      log.verbose(destination, dest -> "incremental: " + dest + " is up to date");
+      return Set.of();
+    }
+
+    if (!untrackedProcessors.isEmpty()) {
+      log.verbose(untrackedProcessors, processors -> "incremental: annotation processors " + processors + " are not incremental, full compilation");
+      return fullCompilation(files);
+    }
+    for(var entry: generated.entrySet()) {
+      var generatedState = entry.getValue();
+      if (generatedState.origins.isEmpty()) {
+        log.verbose(entry.getKey(), file -> "incremental: " + file + " generated without originating source file, full compilation");
+        return fullCompilation(files);
+      }
+      if (!generatedState.isolating) {  // an aggregating processor processes again all its originating source files
+        dirty.addAll(generatedState.origins);
+      }
+    }
+
+    for(var source: dirty) {
+      var sourceState = sources.get(source);
+      if (sourceState == null) {  // a new source file
+        continue;
+      }
+      if (source.getFileName().toString().equals("module-info.java")) {
+        log.verbose(source, src -> "incremental: " + src + " changed, full compilation");
+        return fullCompilation(files);
+      }
+      if (sourceState.classes.stream().anyMatch(classState -> classState.hasConstants)) {
+        log.verbose(source, src -> "incremental: " + src + " declares constants, full compilation");
+        return fullCompilation(files);
+      }
+    }
+
+    var toCompile = invalidate(dirty);
+    log.verbose(toCompile, _toCompile -> "incremental: " + _toCompile.size() + "/" + files.size() + " source files to compile in " + destination);
+    return toCompile;
+  }
+
+  private Set<Path> fullCompilation(Collection<Path> files) {
+    sources.clear();
+    abis.clear();
+    generated.clear();
+    untrackedProcessors.clear();
+    deleteAllFiles(destination, false);
+    deleteAllFiles(generatedDirectory, false);
+    return new LinkedHashSet<>(files);
+  }
+
+  /**
+   * Find the source files of the other modules that need to be recompiled because the ABI
+   * of a module compiled since the last call changed.
+   *
+   * @param log the log.
+   * @return the source files that need to be compiled.
+   * @throws IOException if an I/O error occurs.
+   */
+  Set<Path> propagate(Log log) throws IOException {
+    var dependents = dependents();
+    var dirty = new LinkedHashSet<Path>();
+    for(var entry: modifiedClasses.entrySet()) {
+      var module = entry.getKey();
+      var moduleDirectory = destination.resolve(module);
+      var abi = Files.isDirectory(moduleDirectory)? ModuleAbi.hash(moduleDirectory, allPackages): "";
+      var previousAbi = abis.put(module, abi);
+      var sourceDependents = new LinkedHashSet<Path>();
+      for(var className: entry.getValue()) {
+        for(var dependent: dependents.getOrDefault(className, List.of())) {
+          var sourceState = sources.get(dependent);
+          if (sourceState != null && !compiled.contains(dependent) && !isInModule(sourceState, module)) {
+            sourceDependents.add(dependent);
+          }
+        }
+      }
+      if (sourceDependents.isEmpty()) {
+        continue;
+      }
+      if (abi.equals(previousAbi)) {
+        log.verbose(module, _module -> "incremental: ABI of module " + _module + " unchanged, " + sourceDependents.size() + " dependent source files of other modules are not recompiled");
+        continue;
+      }
+      log.verbose(module, _module -> "incremental: ABI of module " + _module + " changed, recompile " + sourceDependents.size() + " dependent source files of other modules");
+      dirty.addAll(sourceDependents);
+    }
+    modifiedClasses.clear();
+    return invalidate(dirty);
+  }
+
+  // propagate to the dependent source files of the same module and to the generated source files,
+  // delete the stale class files and the stale generated files and returns the source files to compile
+  private Set<Path> invalidate(LinkedHashSet<Path> dirty) throws IOException {
+    var dependents = dependents();
+    var generatedFiles = generatedFiles();
+    var work = new ArrayDeque<>(dirty);
+    while(!work.isEmpty()) {
+      var source = work.poll();
+      for(var file: generatedFiles.getOrDefault(source, List.of())) {
+        if (generated.remove(file) == null) {
+          continue;
+        }
+        Files.deleteIfExists(file);  // will be generated again
+        if (sources.containsKey(file) && dirty.add(file)) {
+          work.offer(file);
+        }
+      }
+      var sourceState = sources.get(source);
+      if (sourceState == null) {
+        continue;
+      }
+      for(var classState: sourceState.classes) {
+        for(var dependent: dependents.getOrDefault(classState.name, List.of())) {
+          var dependentState = sources.get(dependent);
+          if (dependentState != null && isInModule(dependentState, classState.module()) && dirty.add(dependent)) {
+            work.offer(dependent);
+          }
+        }
+      }
+    }
+
+    for(var source: dirty) {
+      var sourceState = sources.remove(source);
+      if (sourceState == null) {
+        continue;
+      }
+      for(var classState: sourceState.classes) {
+        modifiedClasses.computeIfAbsent(classState.module(), __ -> new HashSet<>()).add(classState.name);
+        Files.deleteIfExists(destination.resolve(classState.file));
+      }
+    }
+
+    var toCompile = new LinkedHashSet<Path>();
+    for(var source: dirty) {
+      if (Files.exists(source)) {
+        toCompile.add(current.getOrDefault(source, source));
+      }
+    }
+    return toCompile;
+  }
+
+  // class name -> source files that depend on it
+  private HashMap<String, List<Path>> dependents() {
+    var dependents = new HashMap<String, List<Path>>();
+    sources.forEach((source, sourceState) -> {
+      for(var classState: sourceState.classes) {
+        for(var dependency: classState.dependencies) {
+          dependents.computeIfAbsent(dependency, __ -> new ArrayList<>()).add(source);
+        }
+      }
+    });
+    return dependents;
+  }
+
+  // source file -> files generated from it
+  private HashMap<Path, List<Path>> generatedFiles() {
+    var generatedFiles = new HashMap<Path, List<Path>>();
+    generated.forEach((file, generatedState) -> {
+      for(var origin: generatedState.origins) {
+        generatedFiles.computeIfAbsent(origin, __ -> new ArrayList<>()).add(file);
+      }
+    });
+    return generatedFiles;
+  }
+
+  private static boolean isInModule(SourceState sourceState, String module) {
+    for(var classState: sourceState.classes) {
+      if (classState.module().equals(module)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Starts to record a javac compilation, several compilations may run concurrently.
+   * @return a new compilation.
+   */
+  Compilation compilation() {
+    return new Compilation();
+  }
+
+  /**
+   * Records the class files generated from each source file by one javac compilation.
+   */
+  final class Compilation {
+    private final LinkedHashMap<Path, List<Path>> outputs = new LinkedHashMap<>();  // guarded by itself
+    private final LinkedHashMap<Path, GeneratedState> generatedOutputs = new LinkedHashMap<>();  // guarded by outputs
+    private final HashSet<String> untrackedOutputs = new HashSet<>();  // guarded by outputs
+
+    private Compilation() {
+      // use compilation()
+    }
+
+    /**
+     * Returns a file manager that records the class files generated from each source file.
+     * @param fileManager the file manager to delegate to.
+     * @return a file manager that records the class files generated from each source file.
+     */
+    JavaFileManager recorder(StandardJavaFileManager fileManager) {
+      return new ForwardingJavaFileManager<>(fileManager) {
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind, FileObject sibling) throws IOException {
+          var output = super.getJavaFileForOutput(location, className, kind, sibling);
+          if (kind == Kind.CLASS && sibling != null && "file".equals(sibling.toUri().getScheme())) {
+            synchronized(outputs) {
+              outputs.computeIfAbsent(key(Path.of(sibling.toUri())), __ -> new ArrayList<>()).add(Path.of(output.toUri()));
+            }
+          }
+          return output;
+        }
+      };
+    }
+
+    /**
+     * Records a file generated by an incremental annotation processor.
+     * @param processor the name of the annotation processor.
+     * @param isolating true if the processor is isolating, false if it is aggregating.
+     * @param file the generated file.
+     * @param origins the source files of the originating elements.
+     */
+    void generated(String processor, boolean isolating, Path file, Collection<Path> origins) {
+      var generatedState = new GeneratedState(processor, isolating, origins.stream().map(IncrementalState::key).collect(toList()));
+      synchronized(outputs) {
+        generatedOutputs.put(key(file), generatedState);
+      }
+    }
+
+    /**
+     * Records that annotation processors which are not incremental are used by the compilation.
+     * @param processors the names of the annotation processors.
+     */
+    void untracked(Collection<String> processors) {
+      synchronized(outputs) {
+        untrackedOutputs.addAll(processors);
+      }
+    }
+
+    /**
+     * Update the state with the files that were compiled.
+     * @param files the source files that were compiled.
+     * @throws IOException if an I/O error occurs.
+     */
+    void compiled(Collection<Path> files) throws IOException {
+      var sourceFiles = new LinkedHashSet<Path>();
+      for(var file: files) {
+        sourceFiles.add(key(file));
+      }
+      var sourceStates = new LinkedHashMap<Path, SourceState>();
+      var generatedStates = new LinkedHashMap<Path, GeneratedState>();
+      var untracked = new HashSet<String>();
+      synchronized(outputs) {
+        generatedStates.putAll(generatedOutputs);
+        untracked.addAll(untrackedOutputs);
+        generatedOutputs.clear();
+        untrackedOutputs.clear();
+        sourceFiles.addAll(outputs.keySet());
+        for(var source: sourceFiles) {
+          var classes = new ArrayList<ClassState>();
+          for(var classFile: outputs.getOrDefault(source, List.of())) {
+            classes.add(analyze(key(destination).relativize(classFile).toString().replace('\\', '/'), Files.readAllBytes(classFile)));
+          }
+          sourceStates.put(source, new SourceState(Files.size(source), Files.getLastModifiedTime(source).toMillis(), hash(source), classes));
+        }
+        outputs.clear();
+      }
+      synchronized(IncrementalState.this) {
+        generated.putAll(generatedStates);
+        untrackedProcessors.addAll(untracked);
+        sourceStates.forEach((source, sourceState) -> {
+          for(var classState: sourceState.classes) {
+            modifiedClasses.computeIfAbsent(classState.module(), __ -> new HashSet<>()).add(classState.name);
+          }
+          sources.put(source, sourceState);
+        });
+        compiled.addAll(sourceFiles);
+      }
+    }
+
+    /**
+     * Delete the class files generated by a compilation that failed.
+     * The corresponding source files will be recompiled by the next compilation.
+     * @throws IOException if an I/O error occurs.
+     */
+    void failed() throws IOException {
+      synchronized(outputs) {
+        for(var entry: outputs.entrySet()) {
+          synchronized(IncrementalState.this) {
+            sources.remove(entry.getKey());
+          }
+          for(var classFile: entry.getValue()) {
+            Files.deleteIfExists(classFile);
+          }
+        }
+        for(var file: generatedOutputs.keySet()) {
+          Files.deleteIfExists(file);
+        }
+        outputs.clear();
+        generatedOutputs.clear();
+        untrackedOutputs.clear();
+      }
+    }
+  }
+
+  /**
+   * Save the state next to the destination directory.
+   * @throws IOException if an I/O error occurs.
+   */
+  void save() throws IOException {
+    var lines = new ArrayList<String>();
+    lines.add(fingerprint);
+    abis.forEach((module, abi) -> {
+      // A module abi
+      lines.add("A " + module + ' ' + abi);
+    });
+    sources.forEach((source, sourceState) -> {
+      // S size lastModified hash path
+      lines.add("S " + sourceState.size + ' ' + sourceState.lastModified + ' ' + sourceState.hash + ' ' + source);
+      for(var classState: sourceState.classes) {
+        // C hasConstants name file
+        lines.add("C " + (classState.hasConstants? 1: 0) + ' ' + classState.name + ' ' + classState.file);
+        // D dependencies
+        lines.add("D" + classState.dependencies.stream().map(dependency -> ' ' + dependency).collect(joining()));
+      }
+    });
+    generated.forEach((file, generatedState) -> {
+      // G isolating processor path
+      lines.add("G " + (generatedState.isolating? 1: 0) + ' ' + generatedState.processor + ' ' + file);
+      for(var origin: generatedState.origins) {
+        // O origin
+        lines.add("O " + origin);
+      }
+    });
+    for(var processor: untrackedProcessors) {
+      // U processor
+      lines.add("U " + processor);
+    }
+    Files.createDirectories(stateFile.getParent());
+    Files.write(stateFile, lines, UTF_8);
+  }
+
+  private static boolean read(Path stateFile, String fingerprint, HashMap<Path, SourceState> sources, HashMap<String, String> abis,
+                              HashMap<Path, GeneratedState> generated, HashSet<String> untrackedProcessors) throws IOException {
+    if (!Files.exists(stateFile)) {
+      return false;
+    }
+    var lines = Files.readAllLines(stateFile, UTF_8);
+    if (lines.isEmpty() || !lines.get(0).equals(fingerprint)) {
+      return false;
+    }
+    List<ClassState> classes = null;
+    List<Path> origins = null;
+    String name = null, file = null;
+    var hasConstants = false;
+    for(var line: lines.subList(1, lines.size())) {
+      switch(line.charAt(0)) {
+      case 'A': {
+        var tokens = line.split(" ", 3);
+        abis.put(tokens[1], tokens[2]);
+        break;
+      }
+      case 'S': {
+        var tokens = line.split(" ", 5);
+        classes = new ArrayList<>();
+        sources.put(Path.of(tokens[4]), new SourceState(Long.parseLong(tokens[1]), Long.parseLong(tokens[2]), tokens[3], classes));
+        break;
+      }
+      case 'C': {
+        var tokens = line.split(" ", 4);
+        hasConstants = tokens[1].equals("1");
+        name = tokens[2];
+        file = tokens[3];
+        break;
+      }
+      case 'D': {
+        var dependencies = line.length() == 1? List.<String>of(): List.of(line.substring(2).split(" "));
+        classes.add(new ClassState(name, file, hasConstants, dependencies));
+        break;
+      }
+      case 'G': {
+        var tokens = line.split(" ", 4);
+        origins = new ArrayList<>();
+        generated.put(Path.of(tokens[3]), new GeneratedState(tokens[2], tokens[1].equals("1"), origins));
+        break;
+      }
+      case 'O':
+        origins.add(Path.of(line.substring(2)));
+        break;
+      case 'U':
+        untrackedProcessors.add(line.substring(2));
+        break;
+      default:
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Path key(Path path) {
+    return path.toAbsolutePath().normalize();
+  }
+
+  private static boolean isModified(Path source, SourceState sourceState) throws IOException {
+    var size = Files.size(source);
+    if (size != sourceState.size) {
+      return true;
+    }
+    if (Files.getLastModifiedTime(source).toMillis() == sourceState.lastModified) {
+      return false;
+    }
+    return !hash(source).equals(sourceState.hash);
+  }
+
+  private static ClassState analyze(String file, byte[] bytecode) {
+    var reader = new ClassReader(bytecode);
+    var dependencies = new LinkedHashSet<String>();
+    var buffer = new char[reader.getMaxStringLength()];
+    for(var i = 1; i < reader.getItemCount(); i++) {
+      var offset = reader.getItem(i);
+      if (offset == 0) {  // second slot of a long or a double
+        continue;
+      }
+      switch(reader.readByte(offset - 1)) {
+      case 7: {  // CONSTANT_Class
+        var internalName = reader.readUTF8(offset, buffer);
+        if (internalName.startsWith("[")) {
+          addTypes(dependencies, internalName);
+        } else {
+          addType(dependencies, internalName);
+        }
+        break;
+      }
+      case 1: {  // CONSTANT_Utf8, descriptors and signatures
+        var length = reader.readUnsignedShort(offset);
+        addTypes(dependencies, new String(bytecode, offset + 2, length, UTF_8));
+        break;
+      }
+      default:
+      }
+    }
+    var name = reader.getClassName();
+    dependencies.remove(name);
+    var hasConstants = new boolean[1];
+    reader.accept(new ClassVisitor(Opcodes.ASM9) {
+      @Override
+      public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+        if (value != null) {
+          hasConstants[0] = true;
+        }
+        return null;
+      }
+    }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    return new ClassState(name, file, hasConstants[0], dependencies.stream().collect(toList()));
+  }
+
+  // find the internal names of the classes of a descriptor or a signature
+  private static void addTypes(Set<String> dependencies, String text) {
+    if (text.indexOf(';') == -1) {
+      return;
+    }
+    for(var i = 0; i < text.length(); i++) {
+      if (text.charAt(i) != 'L') {
+        continue;
+      }
+      var start = i + 1;
+      var end = start;
+      while(end < text.length() && "<;.".indexOf(text.charAt(end)) == -1) {
+        end++;
+      }
+      if (end != start && end < text.length()) {
+        addType(dependencies, text.substring(start, end));
+      }
+      i = end;
+    }
+  }
+
+  private static void addType(Set<String> dependencies, String internalName) {
+    if (internalName.startsWith("java/") || internalName.startsWith("javax/") || internalName.indexOf(' ') != -1) {
+      return;
+    }
+    dependencies.add(internalName);
+  }
+
+  private static String hash(Path source) throws IOException {
+    return DigestHelper.hash(Files.readAllBytes(source));
+  }
+}
@@ -8,6 +8,7 @@ import java.util.Optional;
 class Javac {
   private Integer release;
   private Path destination;
+  private Path generatedSourceDestination;
   private List<Path> moduleSourcePath;
   private List<Path> sourcePath;
   private List<Path> modulePath;
@@ -19,6 +20,7 @@ class Javac {
   private List<String> rootModules;
   private boolean verbose; 
   private String lint;
+  private String implicit;
   private boolean enablePreview;
   private List<String> rawArguments;
   
@@ -26,6 +28,26 @@ class Javac {
     // empty
   }
   
+  Javac(Javac javac) {  // copy
+    this.release = javac.release;
+    this.destination = javac.destination;
+    this.generatedSourceDestination = javac.generatedSourceDestination;
+    this.moduleSourcePath = javac.moduleSourcePath;
+    this.sourcePath = javac.sourcePath;
+    this.modulePath = javac.modulePath;
+    this.classPath = javac.classPath;
+    this.upgradeModulePath = javac.upgradeModulePath;
+    this.processorModulePath = javac.processorModulePath;
+    this.processorPath = javac.processorPath;
+    this.module = javac.module;
+    this.rootModules = javac.rootModules;
+    this.verbose = javac.verbose;
+    this.lint = javac.lint;
+    this.implicit = javac.implicit;
+    this.enablePreview = javac.enablePreview;
+    this.rawArguments = javac.rawArguments;
+  }
+  
   public void destination(Path destination) {
     this.destination = Objects.requireNonNull(destination);
   }
@@ -33,6 +55,13 @@ class Javac {
     return Optional.ofNullable(destination);
   }
   
+  public void generatedSourceDestination(Path generatedSourceDestination) {
+    this.generatedSourceDestination = Objects.requireNonNull(generatedSourceDestination);
+  }
+  public Optional<Path> generatedSourceDestination() {
+    return Optional.ofNullable(generatedSourceDestination);
+  }
+  
   public void release(int release) {
     this.release = release;
   }
@@ -68,6 +97,13 @@ class Javac {
     this.lint = Objects.requireNonNull(lint);
   }
   
+  public Optional<String> implicit() {
+    return Optional.ofNullable(implicit);
+  }
+  public void implicit(String implicit) {
+    this.implicit = Objects.requireNonNull(implicit);
+  }
+  
   public boolean enablePreview() {
     return enablePreview;
   }
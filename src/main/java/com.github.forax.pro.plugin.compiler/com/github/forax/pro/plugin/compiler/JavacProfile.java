@@ -0,0 +1,289 @@
+package com.github.forax.pro.plugin.compiler;
+
+import static com.github.forax.pro.helper.JsonHelper.escape;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.tools.JavaFileObject;
+
+import com.github.forax.pro.helper.Log;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+/**
+ * Time spent by javac in each phase ({@link TaskEvent.Kind}), for each module
+ * and for each compilation unit, accumulated over all the javac tasks of a compilation pass,
+ * the tasks may run concurrently.
+ *
+ * The phases are nested, by example the annotation processing includes the parsing
+ * and the analysis of the generated sources, so the times of the phases do not add up.
+ * The time of a module or of a compilation unit is the sum of the times spent
+ * to parse, enter, analyze and generate its compilation units.
+ * Javac may start a phase for several compilation units before finishing it for all of them
+ * (by example, all the compilation units are entered at once), in that case the time of the phase
+ * is evenly split between the compilation units.
+ */
+final class JavacProfile {
+  private static final int SLOWEST_UNIT_COUNT = 10;
+  private static final TaskEvent.Kind[] UNIT_KINDS = {
+      TaskEvent.Kind.PARSE, TaskEvent.Kind.ENTER, TaskEvent.Kind.ANALYZE, TaskEvent.Kind.GENERATE };
+
+  private static final class UnitTime {
+    final String module;
+    final long[] times = new long[UNIT_KINDS.length];  // in nanoseconds
+
+    UnitTime(String module) {
+      this.module = module;
+    }
+
+    long total() {
+      var total = 0L;
+      for(var time: times) {
+        total += time;
+      }
+      return total;
+    }
+  }
+
+  private final HashMap<Path, String> moduleDirectories;  // directory -> module name
+  private final EnumMap<TaskEvent.Kind, Long> kindTimes = new EnumMap<>(TaskEvent.Kind.class);  // guarded by this
+  private final HashMap<Path, UnitTime> unitTimes = new HashMap<>();                          // guarded by this
+  private int taskCount;                                                                     // guarded by this
+
+  /**
+   * Returns the file that contains the profile of the compilation of a destination directory.
+   * @param destination the destination directory of javac.
+   * @return the profile file, next to the destination directory.
+   */
+  static Path profileFile(Path destination) {
+    return destination.resolveSibling(destination.getFileName() + ".profile.json");
+  }
+
+  /**
+   * Creates an empty profile.
+   * @param moduleDirectories the name of the module of each source directory,
+   *        used to find the module of a compilation unit.
+   */
+  JavacProfile(Map<Path, String> moduleDirectories) {
+    var map = new HashMap<Path, String>();
+    moduleDirectories.forEach((directory, module) -> map.put(directory.toAbsolutePath().normalize(), module));
+    this.moduleDirectories = map;
+  }
+
+  /**
+   * Register a listener on the task, the listener records the time spent in each phase.
+   * @param task a javac task.
+   */
+  void listen(JavacTask task) {
+    synchronized(this) {
+      taskCount++;
+    }
+    task.addTaskListener(new TaskListener() {
+      private final EnumMap<TaskEvent.Kind, Batch> batches = new EnumMap<>(TaskEvent.Kind.class);
+
+      @Override
+      public void started(TaskEvent event) {
+        var batch = batches.computeIfAbsent(event.getKind(), __ -> new Batch());
+        if (batch.running++ == 0) {
+          batch.start = System.nanoTime();
+        }
+        var unit = unit(event.getSourceFile());
+        if (unit != null) {
+          batch.units.add(unit);
+        }
+      }
+
+      @Override
+      public void finished(TaskEvent event) {
+        var batch = batches.get(event.getKind());
+        if (batch == null || batch.running == 0 || --batch.running != 0) {
+          return;
+        }
+        record(event.getKind(), batch.units, System.nanoTime() - batch.start);
+        batch.units.clear();
+      }
+    });
+  }
+
+  // the compilation units of a phase that have started but not all finished
+  private static final class Batch {
+    int running;
+    long start;
+    final ArrayList<Path> units = new ArrayList<>();
+  }
+
+  private static Path unit(JavaFileObject sourceFile) {
+    if (sourceFile == null || !"file".equals(sourceFile.toUri().getScheme())) {
+      return null;
+    }
+    return Path.of(sourceFile.toUri());
+  }
+
+  private void record(TaskEvent.Kind kind, List<Path> units, long time) {
+    var index = unitKindIndex(kind);
+    synchronized(this) {
+      kindTimes.merge(kind, time, Long::sum);
+      if (index == -1 || units.isEmpty()) {
+        return;
+      }
+      var unitTime = time / units.size();
+      for(var unit: units) {
+        unitTimes.computeIfAbsent(unit, path -> new UnitTime(module(path))).times[index] += unitTime;
+      }
+    }
+  }
+
+  private static int unitKindIndex(TaskEvent.Kind kind) {
+    for(var i = 0; i < UNIT_KINDS.length; i++) {
+      if (UNIT_KINDS[i] == kind) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // the module of the longest directory containing the compilation unit
+  private String module(Path unit) {
+    Path found = null;
+    for(var directory: moduleDirectories.keySet()) {
+      if (unit.startsWith(directory) && (found == null || directory.getNameCount() > found.getNameCount())) {
+        found = directory;
+      }
+    }
+    return (found == null)? "": moduleDirectories.get(found);
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1_000_000.0;
+  }
+
+  private static long micros(long nanos) {
+    return nanos / 1_000;
+  }
+
+  // module name -> times by unit kind, the last slot is the number of units
+  private TreeMap<String, long[]> moduleTimes() {
+    var moduleTimes = new TreeMap<String, long[]>();
+    unitTimes.values().forEach(unitTime -> {
+      var times = moduleTimes.computeIfAbsent(unitTime.module, __ -> new long[UNIT_KINDS.length + 1]);
+      for(var i = 0; i < UNIT_KINDS.length; i++) {
+        times[i] += unitTime.times[i];
+      }
+      times[UNIT_KINDS.length]++;
+    });
+    return moduleTimes;
+  }
+
+  private ArrayList<Map.Entry<Path, UnitTime>> slowestUnits() {
+    var units = new ArrayList<>(unitTimes.entrySet());
+    units.sort(Comparator.<Map.Entry<Path, UnitTime>>comparingLong(entry -> entry.getValue().total()).reversed());
+    return new ArrayList<>(units.subList(0, Math.min(SLOWEST_UNIT_COUNT, units.size())));
+  }
+
+  private static String moduleName(String module) {
+    return module.isEmpty()? "(unnamed)": module;
+  }
+
+  /**
+   * Log the profile as tables.
+   * @param log the log.
+   * @param pass the compilation pass.
+   */
+  synchronized void log(Log log, String pass) {
+    if (taskCount == 0) {
+      return;
+    }
+    log.verbose(this, profile -> {
+      var builder = new StringBuilder();
+      builder.append(pass).append(" javac profile, ").append(taskCount).append(" task(s)\n");
+      builder.append(String.format("  %-28s %10s\n", "phase", "ms"));
+      kindTimes.forEach((kind, time) -> builder.append(String.format("  %-28s %10.1f\n", kind, millis(time))));
+
+      builder.append(String.format("  %-28s %6s %10s %10s %10s %10s %10s\n", "module", "units", "parse", "enter", "analyze", "generate", "total"));
+      moduleTimes().forEach((module, times) -> {
+        var total = 0L;
+        for(var i = 0; i < UNIT_KINDS.length; i++) {
+          total += times[i];
+        }
+        builder.append(String.format("  %-28s %6d %10.1f %10.1f %10.1f %10.1f %10.1f\n", moduleName(module), times[UNIT_KINDS.length],
+            millis(times[0]), millis(times[1]), millis(times[2]), millis(times[3]), millis(total)));
+      });
+
+      builder.append("  slowest compilation units (ms)\n");
+      for(var entry: slowestUnits()) {
+        builder.append(String.format("  %10.1f %s\n", millis(entry.getValue().total()), entry.getKey()));
+      }
+      return builder.substring(0, builder.length() - 1);  // remove the last \n
+    });
+  }
+
+  /**
+   * Write the profile encoded in JSON in a file, the times are in microseconds.
+   * Nothing is written if no javac task was profiled.
+   *
+   * @param file the file to write.
+   * @param pass the compilation pass.
+   * @throws IOException if an I/O error occurs.
+   */
+  synchronized void write(Path file, String pass) throws IOException {
+    if (taskCount == 0) {
+      return;
+    }
+    var builder = new StringBuilder()
+        .append("{\n  \"pass\": \"").append(escape(pass))
+        .append("\",\n  \"tasks\": ").append(taskCount)
+        .append(",\n  \"phases\": [");
+    var separator = "\n";
+    for(var entry: kindTimes.entrySet()) {
+      builder.append(separator)
+        .append("    {\"kind\": \"").append(entry.getKey())
+        .append("\", \"time\": ").append(micros(entry.getValue()))
+        .append('}');
+      separator = ",\n";
+    }
+    builder.append("\n  ],\n  \"modules\": [");
+    separator = "\n";
+    for(var entry: moduleTimes().entrySet()) {
+      var times = entry.getValue();
+      builder.append(separator)
+        .append("    {\"name\": \"").append(escape(entry.getKey()))
+        .append("\", \"units\": ").append(times[UNIT_KINDS.length]);
+      var total = 0L;
+      for(var i = 0; i < UNIT_KINDS.length; i++) {
+        builder.append(", \"").append(UNIT_KINDS[i].name().toLowerCase(Locale.ROOT)).append("\": ").append(micros(times[i]));
+        total += times[i];
+      }
+      builder.append(", \"total\": ").append(micros(total)).append('}');
+      separator = ",\n";
+    }
+    builder.append("\n  ],\n  \"slowestUnits\": [");
+    separator = "\n";
+    for(var entry: slowestUnits()) {
+      builder.append(separator)
+        .append("    {\"file\": \"").append(escape(entry.getKey().toString()))
+        .append("\", \"module\": \"").append(escape(entry.getValue().module))
+        .append("\", \"total\": ").append(micros(entry.getValue().total()))
+        .append('}');
+      separator = ",\n";
+    }
+    builder.append("\n  ]\n}\n");
+
+    var parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Files.writeString(file, builder, UTF_8);
+  }
+}
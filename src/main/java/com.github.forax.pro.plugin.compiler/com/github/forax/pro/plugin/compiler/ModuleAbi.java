@@ -0,0 +1,233 @@
+package com.github.forax.pro.plugin.compiler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toSet;
+import static org.objectweb.asm.Opcodes.ACC_NATIVE;
+import static org.objectweb.asm.Opcodes.ACC_PROTECTED;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_STRICT;
+import static org.objectweb.asm.Opcodes.ACC_SYNCHRONIZED;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+
+import java.io.IOException;
+import java.lang.module.ModuleDescriptor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import com.github.forax.pro.helper.DigestHelper;
+
+/**
+ * Compute the ABI (application binary interface) of an exploded module,
+ * i.e. the part of the classes of a module that is visible when compiling another module.
+ *
+ * The ABI is made of the module descriptor and, for each public or protected class
+ * of an exported package, its signature, its annotations, the signatures and the annotations
+ * of its public or protected fields and methods and the values of the constants. The supertypes of those classes that are
+ * declared in the module are also part of the ABI whatever their visibility or their package,
+ * because their public or protected members are accessible through the exported subclasses.
+ * A change in the body of a method or in a class of a non exported package that is not
+ * a supertype of an exported class doesn't change the ABI.
+ * If the module has no module-info or is compiled in compatibility mode, all the packages are considered.
+ */
+final class ModuleAbi {
+  private ModuleAbi() {
+    throw new AssertionError();
+  }
+
+  private static final int IGNORED_FLAGS = ACC_SYNCHRONIZED | ACC_NATIVE | ACC_STRICT;
+
+  /**
+   * Returns true if the directory is an exploded module.
+   * @param directory a directory.
+   * @return true if the directory contains a module-info.class.
+   */
+  static boolean isExplodedModule(Path directory) {
+    return Files.isRegularFile(directory.resolve("module-info.class"));
+  }
+
+  /**
+   * Returns a hash of the ABI of an exploded module.
+   *
+   * @param moduleDirectory the directory of the exploded module.
+   * @param allPackages true if all the packages are part of the ABI, not only the exported ones.
+   * @return a hash of the ABI of the module.
+   * @throws IOException if an I/O error occurs.
+   */
+  static String hash(Path moduleDirectory, boolean allPackages) throws IOException {
+    var abi = new TreeMap<String, String>();  // sorted by class name
+    Set<String> packages = null;              // null means all packages
+    var moduleInfo = moduleDirectory.resolve("module-info.class");
+    if (Files.isRegularFile(moduleInfo)) {
+      ModuleDescriptor descriptor;
+      try(var input = Files.newInputStream(moduleInfo)) {
+        descriptor = ModuleDescriptor.read(input);
+      }
+      abi.put("module-info", descriptor(descriptor));
+      if (!allPackages && !descriptor.isOpen()) {
+        packages = descriptor.exports().stream().map(export -> export.source().replace('.', '/')).collect(toSet());
+      }
+    }
+
+    var exportedPackages = packages;
+    var visited = new HashSet<String>();        // internal names of the classes already in the ABI
+    var supertypes = new ArrayDeque<String>();  // internal names of the supertypes to add to the ABI
+    try(var stream = Files.walk(moduleDirectory)) {
+      for(var path: (Iterable<Path>)stream.filter(p -> p.getFileName().toString().endsWith(".class"))::iterator) {
+        var relative = moduleDirectory.relativize(path).toString().replace('\\', '/');
+        if (relative.equals("module-info.class")) {
+          continue;
+        }
+        var index = relative.lastIndexOf('/');
+        var packageName = (index == -1)? "": relative.substring(0, index);
+        if (exportedPackages != null && !exportedPackages.contains(packageName)) {
+          continue;
+        }
+        var reader = new ClassReader(Files.readAllBytes(path));
+        if (!isVisible(reader.getAccess())) {
+          continue;
+        }
+        visited.add(reader.getClassName());
+        abi.put(relative, classAbi(reader));
+        addSupertypes(reader, supertypes);
+      }
+    }
+
+    // the members of the supertypes are accessible through the subclasses
+    while(!supertypes.isEmpty()) {
+      var supertype = supertypes.poll();
+      if (!visited.add(supertype)) {
+        continue;
+      }
+      var path = moduleDirectory.resolve(supertype + ".class");
+      if (!Files.isRegularFile(path)) {  // not declared in the module
+        continue;
+      }
+      var reader = new ClassReader(Files.readAllBytes(path));
+      abi.put(supertype + ".class", classAbi(reader));
+      addSupertypes(reader, supertypes);
+    }
+
+    var digest = DigestHelper.newDigest();
+    abi.forEach((name, text) -> {
+      digest.update(name.getBytes(UTF_8));
+      digest.update(text.getBytes(UTF_8));
+    });
+    return DigestHelper.toHex(digest.digest());
+  }
+
+  private static String descriptor(ModuleDescriptor descriptor) {
+    var lines = new ArrayList<String>();
+    lines.add("module " + descriptor.name() + " " + sorted(descriptor.modifiers()));
+    descriptor.requires().forEach(require -> lines.add("requires " + require.name() + " " + sorted(require.modifiers())));
+    descriptor.exports().forEach(export -> lines.add("exports " + export.source() + " " + sorted(export.targets())));
+    descriptor.opens().forEach(open -> lines.add("opens " + open.source() + " " + sorted(open.targets())));
+    descriptor.uses().forEach(use -> lines.add("uses " + use));
+    descriptor.provides().forEach(provide -> lines.add("provides " + provide.service() + " " + provide.providers()));
+    return lines.stream().sorted().collect(joining("\n"));
+  }
+
+  private static String sorted(Collection<?> collection) {
+    return collection.stream().map(Object::toString).sorted().collect(joining(","));
+  }
+
+  private static boolean isVisible(int access) {
+    return (access & (ACC_PUBLIC | ACC_PROTECTED)) != 0 && (access & ACC_SYNTHETIC) == 0;
+  }
+
+  private static void addSupertypes(ClassReader reader, ArrayDeque<String> supertypes) {
+    var superName = reader.getSuperName();
+    if (superName != null) {
+      supertypes.add(superName);
+    }
+    supertypes.addAll(Arrays.asList(reader.getInterfaces()));
+  }
+
+  private static String classAbi(ClassReader reader) {
+    var members = new ArrayList<String>();
+    var header = new StringBuilder();
+    reader.accept(new ClassVisitor(Opcodes.ASM9) {
+      private String className;
+
+      @Override
+      public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        className = name;
+        header.append(access & ~IGNORED_FLAGS).append(' ').append(name).append(' ').append(signature)
+            .append(' ').append(superName).append(' ').append(Arrays.toString(interfaces));
+      }
+      @Override
+      public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+        members.add("@" + descriptor);
+        return null;
+      }
+      @Override
+      public void visitInnerClass(String name, String outerName, String innerName, int access) {
+        if (isVisible(access) && className.equals(outerName)) {  // only the member classes
+          members.add("inner " + (access & ~IGNORED_FLAGS) + ' ' + name);
+        }
+      }
+      @Override
+      public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+        if (!isVisible(access)) {
+          return null;
+        }
+        var member = new StringBuilder()
+            .append("field ").append(access & ~IGNORED_FLAGS).append(' ').append(name).append(' ').append(descriptor)
+            .append(' ').append(signature).append(' ').append(value);
+        return new FieldVisitor(Opcodes.ASM9) {
+          @Override
+          public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            member.append(" @").append(descriptor);
+            return null;
+          }
+          @Override
+          public void visitEnd() {
+            members.add(member.toString());
+          }
+        };
+      }
+      @Override
+      public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+        if (!isVisible(access)) {
+          return null;
+        }
+        var member = new StringBuilder()
+            .append("method ").append(access & ~IGNORED_FLAGS).append(' ').append(name).append(' ').append(descriptor)
+            .append(' ').append(signature).append(' ').append(Arrays.toString(exceptions));
+        return new MethodVisitor(Opcodes.ASM9) {
+          @Override
+          public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            member.append(" @").append(descriptor);
+            return null;
+          }
+          @Override
+          public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+            member.append(" @").append(parameter).append(' ').append(descriptor);
+            return null;
+          }
+          @Override
+          public void visitEnd() {
+            members.add(member.toString());
+          }
+        };
+      }
+    }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    members.sort(null);
+    members.add(0, header.toString());
+    return String.join("\n", members);
+  }
+}
@@ -0,0 +1,146 @@
+package com.github.forax.pro.plugin.compiler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.module.ModuleReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.github.forax.pro.helper.Log;
+import com.github.forax.pro.helper.Trace;
+
+/**
+ * Compile the modules concurrently, a module is compiled once all the modules
+ * it requires (directly or not) are compiled.
+ */
+final class ModuleScheduler {
+  private ModuleScheduler() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Compile a module.
+   */
+  @FunctionalInterface
+  interface ModuleCompiler {
+    /**
+     * Compile a module.
+     * @param moduleRef the module to compile.
+     * @return an error code, 0 means no error.
+     * @throws IOException if an I/O error occurs.
+     */
+    int compile(ModuleReference moduleRef) throws IOException;
+  }
+
+  private static final class Node {
+    final ModuleReference moduleRef;
+    final ArrayList<Node> successors = new ArrayList<>();
+    int predecessorCount;
+    int errorCode;
+
+    Node(ModuleReference moduleRef) {
+      this.moduleRef = moduleRef;
+    }
+  }
+
+  /**
+   * Compile all the modules, at most {@code parallelism} modules concurrently.
+   * If the compilation of a module fails, no other compilation is started and
+   * the error code is returned once the running compilations are finished.
+   *
+   * @param log the log.
+   * @param moduleRefs the modules in topological order.
+   * @param parallelism the maximum number of modules compiled concurrently.
+   * @param compiler the function that compiles a module.
+   * @return an error code, 0 means no error.
+   * @throws IOException if an I/O error occurs.
+   */
+  static int execute(Log log, Set<ModuleReference> moduleRefs, int parallelism, ModuleCompiler compiler) throws IOException {
+    var nodeMap = new HashMap<String, Node>();
+    for(var moduleRef: moduleRefs) {
+      nodeMap.put(moduleRef.descriptor().name(), new Node(moduleRef));
+    }
+    for(var node: nodeMap.values()) {
+      for(var requires: node.moduleRef.descriptor().requires()) {
+        var predecessor = nodeMap.get(requires.name());
+        if (predecessor != null) {
+          predecessor.successors.add(node);
+          node.predecessorCount++;
+        }
+      }
+    }
+
+    var ready = new ArrayDeque<Node>();
+    for(var moduleRef: moduleRefs) {
+      var node = nodeMap.get(moduleRef.descriptor().name());
+      if (node.predecessorCount == 0) {
+        ready.offer(node);
+      }
+    }
+
+    ExecutorService executorService = Executors.newFixedThreadPool(parallelism, runnable -> {
+      var thread = new Thread(runnable);
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      var completionService = new ExecutorCompletionService<Node>(executorService);
+      var running = 0;
+      var errorCode = 0;
+      for(;;) {
+        while(errorCode == 0 && running < parallelism && !ready.isEmpty()) {
+          var node = ready.poll();
+          log.debug(node.moduleRef, moduleRef -> "start compilation of module " + moduleRef.descriptor().name());
+          completionService.submit(Trace.wrap(() -> {
+            node.errorCode = compiler.compile(node.moduleRef);
+            return node;
+          }));
+          running++;
+        }
+        if (running == 0) {
+          return errorCode;
+        }
+
+        Node node;
+        try {
+          node = completionService.take().get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+          var cause = e.getCause();
+          if (cause instanceof IOException) {
+            throw (IOException)cause;
+          }
+          if (cause instanceof UncheckedIOException) {
+            throw ((UncheckedIOException)cause).getCause();
+          }
+          if (cause instanceof Error) {
+            throw (Error)cause;
+          }
+          throw new IllegalStateException(cause);
+        }
+        running--;
+        if (node.errorCode != 0) {
+          if (errorCode == 0) {
+            errorCode = node.errorCode;
+          }
+          continue;
+        }
+        for(var successor: node.successors) {
+          if (--successor.predecessorCount == 0) {
+            ready.offer(successor);
+          }
+        }
+      }
+    } finally {
+      executorService.shutdown();
+    }
+  }
+}
@@ -0,0 +1,371 @@
+package com.github.forax.pro.plugin.compiler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.module.ModuleFinder;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.FileObject;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileManager.Location;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+import com.sun.source.util.Trees;
+
+/**
+ * Track the files generated by the annotation processors of a compilation.
+ *
+ * The annotation processors are loaded from the processor path or the processor module path
+ * the same way javac does, javac 11 can not load the processors of the processor module path
+ * when the file manager is not its own file manager, so the option --processor-module-path
+ * should not be passed to javac (see {@link #javacArguments(String[])}). A processor is incremental if it is declared as isolating
+ * by the configuration or, with the format used by Gradle, in a resource
+ * {@value #METADATA} of the processor path (one line "processor,isolating"
+ * or "processor,aggregating" by processor).
+ *
+ * An incremental processor is wrapped so the files it creates using the {@link Filer} are
+ * {@link IncrementalState.Compilation#generated(String, boolean, Path, java.util.Collection) recorded}
+ * with the source files of their originating elements.
+ * The other processors are not wrapped, the processors that use the tree API of javac
+ * require the processing environment of javac, so their generated files can not be tracked.
+ *
+ * The module layer of the processor module path is shared by the compilations of the same VM
+ * (the source and the test passes, the successive builds of the daemon) until one of the files
+ * of the processor module path is modified.
+ */
+final class ProcessorTracker {
+  private ProcessorTracker() {
+    throw new AssertionError();
+  }
+
+  static final String METADATA = "META-INF/gradle/incremental.annotation.processors";
+
+  /**
+   * Returns the arguments of javac without the processor module path.
+   * @param arguments the arguments of javac.
+   * @return the arguments of javac without the processor module path.
+   */
+  static String[] javacArguments(String[] arguments) {
+    var list = new ArrayList<String>();
+    for(var i = 0; i < arguments.length; i++) {
+      if (arguments[i].equals("--processor-module-path")) {
+        i++;  // skip the value
+        continue;
+      }
+      list.add(arguments[i]);
+    }
+    return list.toArray(String[]::new);
+  }
+
+  /**
+   * Load the annotation processors of a compilation and set them as the processors of the task.
+   *
+   * @param task the compilation task.
+   * @param fileManager the file manager of the task.
+   * @param javac the options of the compilation.
+   * @param isolatingProcessors the names of the processors declared as isolating by the configuration.
+   * @param compilation the compilation that records the generated files.
+   * @return an object to close once the compilation is finished or null if there is no processor path.
+   * @throws IOException if an I/O error occurs.
+   */
+  static Closeable track(CompilationTask task, StandardJavaFileManager fileManager, Javac javac,
+      List<String> isolatingProcessors, IncrementalState.Compilation compilation) throws IOException {
+    ServiceLoader<Processor> serviceLoader;
+    Closeable closeable;
+    if (javac.processorModulePath().isPresent()) {
+      var layer = processorLayer(javac.processorModulePath().orElseThrow());
+      serviceLoader = ServiceLoader.load(layer, Processor.class);
+      closeable = () -> { /* empty */ };
+    } else if (javac.processorPath().isPresent()) {
+      var classLoader = fileManager.getClassLoader(StandardLocation.ANNOTATION_PROCESSOR_PATH);
+      serviceLoader = ServiceLoader.load(Processor.class, classLoader);
+      closeable = (classLoader instanceof Closeable)? (Closeable)classLoader: () -> { /* empty */ };
+    } else {
+      return null;
+    }
+
+    var processorNames = processorNames(javac);
+    var kinds = new HashMap<String, Boolean>();  // processor name -> isolating
+    var classLoaders = new HashSet<ClassLoader>();
+    var processors = new ArrayList<Processor>();
+    var untracked = new ArrayList<String>();
+    for(var processor: serviceLoader) {
+      var name = processor.getClass().getName();
+      if (processorNames != null && !processorNames.contains(name)) {
+        continue;
+      }
+      var classLoader = processor.getClass().getClassLoader();
+      if (classLoaders.add(classLoader)) {
+        readMetadata(classLoader, kinds);
+      }
+      var isolating = isolatingProcessors.contains(name)? Boolean.TRUE: kinds.get(name);
+      if (isolating == null) {
+        untracked.add(name);
+        processors.add(processor);
+        continue;
+      }
+      processors.add(new TrackingProcessor(processor, isolating, compilation));
+    }
+    if (!untracked.isEmpty()) {
+      compilation.untracked(untracked);
+    }
+    task.setProcessors(processors);
+    return closeable;
+  }
+
+  private static final class CachedLayer {
+    final String stamp;
+    final ModuleLayer layer;
+
+    CachedLayer(String stamp, ModuleLayer layer) {
+      this.stamp = stamp;
+      this.layer = layer;
+    }
+  }
+
+  private static final HashMap<List<Path>, CachedLayer> LAYERS = new HashMap<>();  // guarded by LAYERS
+
+  // the layer of the processor module path, re-created if one of its files has been modified
+  static ModuleLayer processorLayer(List<Path> processorModulePath) throws IOException {
+    var stamp = stamp(processorModulePath);
+    synchronized(LAYERS) {
+      var cached = LAYERS.get(processorModulePath);
+      if (cached != null && cached.stamp.equals(stamp)) {
+        return cached.layer;
+      }
+      var finder = ModuleFinder.of(processorModulePath.toArray(Path[]::new));
+      var bootLayer = ModuleLayer.boot();
+      var configuration = bootLayer.configuration().resolveAndBind(ModuleFinder.of(), finder, Set.of());
+      var layer = bootLayer.defineModulesWithOneLoader(configuration, ClassLoader.getSystemClassLoader());
+      LAYERS.put(List.copyOf(processorModulePath), new CachedLayer(stamp, layer));  // the previous layer is discarded
+      return layer;
+    }
+  }
+
+  // the size and the last modified time of all the files (jars or classes of exploded modules) of a path
+  private static String stamp(List<Path> path) throws IOException {
+    var builder = new StringBuilder();
+    for(var element: path) {
+      if (!Files.exists(element)) {
+        builder.append("- ").append(element).append('\n');
+        continue;
+      }
+      try(var stream = Files.walk(element)) {
+        for(var file: (Iterable<Path>)stream.filter(Files::isRegularFile).sorted()::iterator) {
+          builder.append(file).append(' ').append(Files.size(file))
+              .append(' ').append(Files.getLastModifiedTime(file).toMillis()).append('\n');
+        }
+      } catch(UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+    return builder.toString();
+  }
+
+  // the processors specified with -processor or null
+  private static Set<String> processorNames(Javac javac) {
+    var rawArguments = javac.rawArguments().orElse(List.of());
+    var index = rawArguments.indexOf("-processor");
+    if (index == -1 || index + 1 == rawArguments.size()) {
+      return null;
+    }
+    return Set.of(rawArguments.get(index + 1).split(","));
+  }
+
+  private static void readMetadata(ClassLoader classLoader, Map<String, Boolean> kinds) throws IOException {
+    if (classLoader == null) {
+      return;
+    }
+    for(var url: (Iterable<URL>)classLoader.getResources(METADATA)::asIterator) {
+      try(var reader = new BufferedReader(new InputStreamReader(url.openStream(), UTF_8))) {
+        String line;
+        while((line = reader.readLine()) != null) {
+          var tokens = line.split(",");
+          if (tokens.length != 2) {
+            continue;
+          }
+          switch(tokens[1].trim().toLowerCase(Locale.ROOT)) {
+          case "isolating":
+            kinds.put(tokens[0].trim(), true);
+            break;
+          case "aggregating":
+            kinds.put(tokens[0].trim(), false);
+            break;
+          default:  // dynamic processors are not supported
+          }
+        }
+      }
+    }
+  }
+
+  private static final class TrackingProcessor implements Processor {
+    private final Processor processor;
+    private final boolean isolating;
+    private final IncrementalState.Compilation compilation;
+
+    TrackingProcessor(Processor processor, boolean isolating, IncrementalState.Compilation compilation) {
+      this.processor = processor;
+      this.isolating = isolating;
+      this.compilation = compilation;
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+      return processor.getSupportedOptions();
+    }
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+      return processor.getSupportedAnnotationTypes();
+    }
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return processor.getSupportedSourceVersion();
+    }
+    @Override
+    public void init(ProcessingEnvironment processingEnv) {
+      var filer = new TrackingFiler(processingEnv, processor.getClass().getName(), isolating, compilation);
+      processor.init(new TrackingEnvironment(processingEnv, filer));
+    }
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      return processor.process(annotations, roundEnv);
+    }
+    @Override
+    public Iterable<? extends Completion> getCompletions(Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+      return processor.getCompletions(element, annotation, member, userText);
+    }
+  }
+
+  private static final class TrackingEnvironment implements ProcessingEnvironment {
+    private final ProcessingEnvironment processingEnv;
+    private final Filer filer;
+
+    TrackingEnvironment(ProcessingEnvironment processingEnv, Filer filer) {
+      this.processingEnv = processingEnv;
+      this.filer = filer;
+    }
+
+    @Override
+    public Map<String, String> getOptions() {
+      return processingEnv.getOptions();
+    }
+    @Override
+    public Messager getMessager() {
+      return processingEnv.getMessager();
+    }
+    @Override
+    public Filer getFiler() {
+      return filer;
+    }
+    @Override
+    public Elements getElementUtils() {
+      return processingEnv.getElementUtils();
+    }
+    @Override
+    public Types getTypeUtils() {
+      return processingEnv.getTypeUtils();
+    }
+    @Override
+    public SourceVersion getSourceVersion() {
+      return processingEnv.getSourceVersion();
+    }
+    @Override
+    public Locale getLocale() {
+      return processingEnv.getLocale();
+    }
+  }
+
+  private static final class TrackingFiler implements Filer {
+    private final Filer filer;
+    private final Trees trees;
+    private final String processor;
+    private final boolean isolating;
+    private final IncrementalState.Compilation compilation;
+
+    TrackingFiler(ProcessingEnvironment processingEnv, String processor, boolean isolating, IncrementalState.Compilation compilation) {
+      this.filer = processingEnv.getFiler();
+      this.trees = trees(processingEnv);
+      this.processor = processor;
+      this.isolating = isolating;
+      this.compilation = compilation;
+    }
+
+    private static Trees trees(ProcessingEnvironment processingEnv) {
+      try {
+        return Trees.instance(processingEnv);
+      } catch(IllegalArgumentException e) {  // not javac
+        return null;
+      }
+    }
+
+    private <F extends FileObject> F record(F fileObject, Element[] originatingElements) {
+      var uri = fileObject.toUri();
+      if (!"file".equals(uri.getScheme())) {
+        return fileObject;
+      }
+      var origins = new LinkedHashSet<Path>();
+      if (trees != null) {
+        for(var element: originatingElements) {
+          var treePath = trees.getPath(element);
+          if (treePath == null) {  // not declared in a source file
+            continue;
+          }
+          var source = treePath.getCompilationUnit().getSourceFile().toUri();
+          if ("file".equals(source.getScheme())) {
+            origins.add(Path.of(source));
+          }
+        }
+      }
+      compilation.generated(processor, isolating, Path.of(uri), origins);
+      return fileObject;
+    }
+
+    @Override
+    public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) throws IOException {
+      return record(filer.createSourceFile(name, originatingElements), originatingElements);
+    }
+    @Override
+    public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) throws IOException {
+      return record(filer.createClassFile(name, originatingElements), originatingElements);
+    }
+    @Override
+    public FileObject createResource(Location location, CharSequence moduleAndPkg, CharSequence relativeName, Element... originatingElements) throws IOException {
+      return record(filer.createResource(location, moduleAndPkg, relativeName, originatingElements), originatingElements);
+    }
+    @Override
+    public FileObject getResource(Location location, CharSequence moduleAndPkg, CharSequence relativeName) throws IOException {
+      return filer.getResource(location, moduleAndPkg, relativeName);
+    }
+  }
+}
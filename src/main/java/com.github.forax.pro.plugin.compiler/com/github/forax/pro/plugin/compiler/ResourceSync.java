@@ -0,0 +1,215 @@
+package com.github.forax.pro.plugin.compiler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.module.ModuleReference;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import com.github.forax.pro.helper.BuildEvents;
+import com.github.forax.pro.helper.Log;
+import com.github.forax.pro.helper.ModuleSourceLayout;
+
+/**
+ * Synchronize the resources of the modules with the destination directory.
+ *
+ * A resource is only copied if the destination file doesn't exist or has a different size
+ * or last modified time, the copy has the last modified time of the resource.
+ * The resources copied by the previous build are recorded in a file next to the destination
+ * directory, so a resource that has been removed is also removed from the destination.
+ *
+ * The copies are spread over a bounded pool of threads, the large files are copied using
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+ */
+final class ResourceSync {
+  private ResourceSync() {
+    throw new AssertionError();
+  }
+
+  private static final long LARGE_FILE_SIZE = 1 << 20;  // 1M
+
+  /**
+   * Returns the file that lists the resources copied in a destination directory.
+   * @param destination the destination directory.
+   * @return the state file, next to the destination directory.
+   */
+  static Path stateFile(Path destination) {
+    return destination.resolveSibling(destination.getFileName() + ".resources");
+  }
+
+  /**
+   * Copy the changed resources of the modules and delete the removed ones.
+   *
+   * @param log the log.
+   * @param moduleRefs the modules.
+   * @param resourcesPath the resource directories.
+   * @param layout the layout used to find the resource directories of a module.
+   * @param destination the destination directory, it contains a directory per module.
+   * @param parallelism the maximum number of files copied concurrently.
+   * @throws IOException if an I/O error occurs.
+   */
+  static void sync(Log log, Set<ModuleReference> moduleRefs, List<Path> resourcesPath,
+      ModuleSourceLayout layout, Path destination, int parallelism) throws IOException {
+    var event = new BuildEvents.FileOperationEvent();
+    event.begin();
+
+    // destination file -> resource, if several resource directories contain the same file, the last one wins
+    var resourceMap = new LinkedHashMap<Path, Path>();
+    for(var moduleRef: moduleRefs) {
+      var destinationDir = destination.resolve(moduleRef.descriptor().name());
+      for(var resourceDir: layout.toModulePath(moduleRef, resourcesPath)) {
+        if (!Files.isDirectory(resourceDir)) {
+          continue;
+        }
+        log.verbose(null, __ -> "sync resources from directory " + resourceDir + " to " + destinationDir);
+        try(Stream<Path> stream = Files.walk(resourceDir)) {
+          stream.filter(Files::isRegularFile)
+                .forEach(resource -> resourceMap.put(destinationDir.resolve(resourceDir.relativize(resource)), resource));
+        }
+      }
+    }
+
+    // remove the resources copied by the previous build that do not exist anymore
+    var stateFile = stateFile(destination);
+    var removed = 0;
+    for(var name: readState(stateFile)) {
+      var target = destination.resolve(name);
+      if (!resourceMap.containsKey(target) && Files.deleteIfExists(target)) {
+        removed++;
+      }
+    }
+
+    // destination file -> resource
+    var copies = new LinkedHashMap<Path, Path>();
+    var bytes = 0L;
+    for(var entry: resourceMap.entrySet()) {
+      var target = entry.getKey();
+      var resource = entry.getValue();
+      if (!isUpToDate(resource, target)) {
+        copies.put(target, resource);
+        bytes += Files.size(resource);
+      }
+    }
+    copyAll(copies, parallelism);
+
+    var names = new TreeSet<String>();
+    for(var target: resourceMap.keySet()) {
+      names.add(destination.relativize(target).toString().replace('\\', '/'));
+    }
+    Files.createDirectories(stateFile.getParent());
+    Files.write(stateFile, names, UTF_8);
+
+    var copied = copies.size();
+    var unchanged = resourceMap.size() - copied;
+    var deleted = removed;
+    log.verbose(destination, dest -> "sync resources " + dest + ": " + copied + " file(s) copied, " + deleted + " removed, " + unchanged + " unchanged");
+
+    if (event.shouldCommit()) {
+      event.operation = "copy";
+      event.path = destination.toString();
+      event.fileCount = copied;
+      event.bytes = bytes;
+      event.commit();
+    }
+  }
+
+  private static List<String> readState(Path stateFile) throws IOException {
+    if (!Files.exists(stateFile)) {
+      return List.of();
+    }
+    return Files.readAllLines(stateFile, UTF_8);
+  }
+
+  private static boolean isUpToDate(Path resource, Path target) throws IOException {
+    if (!Files.isRegularFile(target)) {
+      return false;
+    }
+    return Files.size(resource) == Files.size(target) &&
+        Files.getLastModifiedTime(resource).equals(Files.getLastModifiedTime(target));
+  }
+
+  private static void copyAll(Map<Path, Path> copies, int parallelism) throws IOException {
+    if (parallelism <= 1 || copies.size() <= 1) {
+      for(var entry: copies.entrySet()) {
+        copy(entry.getValue(), entry.getKey());
+      }
+      return;
+    }
+
+    var executorService = Executors.newFixedThreadPool(Math.min(parallelism, copies.size()), runnable -> {
+      var thread = new Thread(runnable);
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      var futures = new ArrayList<Future<?>>();
+      for(var entry: copies.entrySet()) {
+        futures.add(executorService.submit(() -> {
+          copy(entry.getValue(), entry.getKey());
+          return null;
+        }));
+      }
+      for(var future: futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+          var cause = e.getCause();
+          if (cause instanceof IOException) {
+            throw (IOException)cause;
+          }
+          if (cause instanceof UncheckedIOException) {
+            throw ((UncheckedIOException)cause).getCause();
+          }
+          if (cause instanceof Error) {
+            throw (Error)cause;
+          }
+          throw new IllegalStateException(cause);
+        }
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static void copy(Path resource, Path target) throws IOException {
+    Files.createDirectories(target.getParent());
+    var size = Files.size(resource);
+    if (size < LARGE_FILE_SIZE) {
+      Files.copy(resource, target, StandardCopyOption.REPLACE_EXISTING);
+    } else {
+      try(var input = FileChannel.open(resource, READ);
+          var output = FileChannel.open(target, CREATE, WRITE, TRUNCATE_EXISTING)) {
+        var position = 0L;
+        while(position < size) {
+          var transferred = input.transferTo(position, size - position, output);
+          if (transferred == 0) {  // the resource has been truncated
+            break;
+          }
+          position += transferred;
+        }
+      }
+    }
+    Files.setLastModifiedTime(target, Files.getLastModifiedTime(resource));
+  }
+}
@@ -1,9 +1,14 @@
 module com.github.forax.pro.plugin.compiler {
   requires com.github.forax.pro.api;
   requires com.github.forax.pro.helper;
+  requires java.compiler;
+  requires jdk.compiler;
+  requires org.objectweb.asm;
   
   opens com.github.forax.pro.plugin.compiler;
   
+  uses javax.annotation.processing.Processor;
+  
   provides com.github.forax.pro.api.Plugin
     with com.github.forax.pro.plugin.compiler.CompilerPlugin;
 }
\ No newline at end of file
@@ -52,6 +52,8 @@ public interface ConventionConf {
   void javaModuleDependencyFixerPath(Path path);
   List<Path> javaModuleDependencyPath();
   void javaModuleDependencyPath(List<Path> path);
+  Path javaModuleGraphPath();
+  void javaModuleGraphPath(Path path);
 
   Path javaModuleUberPath();
   void javaModuleUberPath(Path moduleUberPath);
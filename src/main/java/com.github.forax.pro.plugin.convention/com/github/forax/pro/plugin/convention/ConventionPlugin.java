@@ -20,7 +20,7 @@ public class ConventionPlugin implements Plugin {
   @Override
   public void init(MutableConfig config) {
     var convention = config.getOrUpdate(name(), ConventionConf.class);
-    var proConf = config.getOrThrow("pro", ProConf.class);
+    var proConf = config.getOrThrow(ProConf.KEY);
     convention.javaHome(Path.of(System.getProperty("java.home")));
     
     derive(convention, ConventionConf::javaModuleSourcePath,
@@ -65,6 +65,8 @@ public class ConventionPlugin implements Plugin {
         proConf, c -> c.currentDir().resolve("target/deps/maven-local"));
     derive(convention, ConventionConf::javaModuleDependencyFixerPath,
         proConf, c -> c.currentDir().resolve("target/deps/module-fixer"));
+    derive(convention, ConventionConf::javaModuleGraphPath,
+        proConf, c -> c.currentDir().resolve("target/deps/module-graph"));
     derive(convention, ConventionConf::javaModuleUberPath,
         proConf, c -> c.currentDir().resolve("target/uber"));
     derive(convention, ConventionConf::javaModuleUberExplodedPath,
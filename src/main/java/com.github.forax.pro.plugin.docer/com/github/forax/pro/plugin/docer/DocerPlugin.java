@@ -14,6 +14,7 @@ import static com.github.forax.pro.helper.util.Unchecked.suppress;
 import static java.util.function.Predicate.not;
 
 import com.github.forax.pro.api.Config;
+import com.github.forax.pro.api.InputOutputRegistry;
 import com.github.forax.pro.api.MutableConfig;
 import com.github.forax.pro.api.Plugin;
 import com.github.forax.pro.api.WatcherRegistry;
@@ -75,6 +76,18 @@ public class DocerPlugin implements Plugin {
     docerConf.moduleMergedTestPath().forEach(registry::watch);
   }
   
+  @Override
+  public void inputsAndOutputs(Config config, InputOutputRegistry registry) {
+    var docerConf = config.getOrThrow(name(), DocerConf.class);
+    docerConf.moduleDependencyPath().forEach(registry::input);
+    docerConf.modulePath().ifPresent(modulePath -> modulePath.forEach(registry::input));
+    docerConf.moduleSourcePath().forEach(registry::input);
+    docerConf.moduleMergedTestPath().forEach(registry::input);
+    
+    registry.output(docerConf.moduleDocSourcePath());
+    registry.output(docerConf.moduleDocTestPath());
+  }
+  
   static Optional<List<Path>> modulePathOrDependencyPath(Optional<List<Path>> modulePath, List<Path> moduleDependencyPath, List<Path> additionnalPath) throws IOException {
     raises(IOException.class);
     return modulePath
@@ -107,7 +120,7 @@ public class DocerPlugin implements Plugin {
   
   @Override
   public int execute(Config config) throws IOException {
-    var log = Log.create(name(), config.getOrThrow("pro", ProConf.class).loglevel());
+    var log = Log.create(name(), config.getOrThrow(ProConf.KEY).loglevel());
     log.debug(config, conf -> "config " + config);
     
     var javadocTool = ToolProvider.findFirst("javadoc")
@@ -21,6 +21,7 @@ import java.util.stream.Collectors;
 import com.github.forax.pro.api.Config;
 import com.github.forax.pro.api.MutableConfig;
 import com.github.forax.pro.api.Plugin;
+import com.github.forax.pro.api.InputOutputRegistry;
 import com.github.forax.pro.api.WatcherRegistry;
 import com.github.forax.pro.api.helper.CmdLine;
 import com.github.forax.pro.api.helper.OptionAction;
@@ -70,6 +71,17 @@ public class LinkerPlugin implements Plugin {
     registry.watch(linkerConf.moduleArtifactSourcePath());
   }
   
+  @Override
+  public void inputsAndOutputs(Config config, InputOutputRegistry registry) {
+    var linkerConf = config.getOrThrow(name(), LinkerConf.class);
+    registry.input(linkerConf.systemModulePath());
+    linkerConf.moduleDependencyPath().forEach(registry::input);
+    registry.input(linkerConf.moduleArtifactSourcePath());
+    linkerConf.modulePath().ifPresent(modulePath -> modulePath.forEach(registry::input));
+    
+    registry.output(linkerConf.destination());
+  }
+  
   enum JlinkOption {
     MODULE_PATH(action("--module-path", Jlink::modulePath, File.pathSeparator)),
     ROOT_MODULES(action("--add-modules", Jlink::rootModules, ",")),
@@ -99,7 +111,7 @@ public class LinkerPlugin implements Plugin {
   
   @Override
   public int execute(Config config) throws IOException {
-    var log = Log.create(name(), config.getOrThrow("pro", ProConf.class).loglevel());
+    var log = Log.create(name(), config.getOrThrow(ProConf.KEY).loglevel());
     log.debug(config, conf -> "config " + config);
     
     var jlinkTool = ToolProvider.findFirst("jlink").orElseThrow(() -> new IllegalStateException("can not find jlink"));
@@ -48,6 +48,7 @@ import org.objectweb.asm.tree.analysis.Frame;
 import com.github.forax.pro.api.Config;
 import com.github.forax.pro.api.MutableConfig;
 import com.github.forax.pro.api.Plugin;
+import com.github.forax.pro.api.InputOutputRegistry;
 import com.github.forax.pro.api.WatcherRegistry;
 import com.github.forax.pro.api.helper.ProConf;
 import com.github.forax.pro.helper.FileHelper;
@@ -90,6 +91,16 @@ public class ModuleFixerPlugin implements Plugin {
     moduleDependencyPath.forEach(registry::watch);
   }
   
+  @Override
+  public void inputsAndOutputs(Config config, InputOutputRegistry registry) {
+    var moduleFixerConf = config.getOrThrow(name(), ModuleFixerConf.class);
+    
+    // the jars of the dependencies are patched in place
+    moduleFixerConf.moduleDependencyPath().forEach(registry::input);
+    moduleFixerConf.moduleDependencyPath().forEach(registry::output);
+    registry.output(moduleFixerConf.moduleDependencyFixerPath());
+  }
+  
   enum RequireModifier {
     PLAIN, STATIC;
     
@@ -100,7 +111,7 @@ public class ModuleFixerPlugin implements Plugin {
   
   @Override
   public int execute(Config config) throws IOException {
-    var log = Log.create(name(), config.getOrThrow("pro", ProConf.class).loglevel());
+    var log = Log.create(name(), config.getOrThrow(ProConf.KEY).loglevel());
     log.debug(config, conf -> "config " + config);
     
     var moduleFixerConf = config.getOrThrow(name(), ModuleFixerConf.class);
@@ -18,12 +18,14 @@ import java.util.spi.ToolProvider;
 import com.github.forax.pro.api.Config;
 import com.github.forax.pro.api.MutableConfig;
 import com.github.forax.pro.api.Plugin;
+import com.github.forax.pro.api.InputOutputRegistry;
 import com.github.forax.pro.api.WatcherRegistry;
 import com.github.forax.pro.api.helper.CmdLine;
 import com.github.forax.pro.api.helper.OptionAction;
 import com.github.forax.pro.api.helper.ProConf;
 import com.github.forax.pro.helper.FileHelper;
 import com.github.forax.pro.helper.Log;
+import com.github.forax.pro.helper.Trace;
 import com.github.forax.pro.plugin.packager.MetadataParser.Metadata;
 
 public class PackagerPlugin implements Plugin {
@@ -67,6 +69,24 @@ public class PackagerPlugin implements Plugin {
     packagerConf.moduleExplodedTestPath().forEach(registry::watch);
   }
   
+  @Override
+  public void inputsAndOutputs(Config config, InputOutputRegistry registry) {
+    var packagerConf = config.getOrThrow(name(), PackagerConf.class);
+    packagerConf.moduleSourcePath().forEach(registry::input);
+    packagerConf.moduleTestPath().forEach(registry::input);
+    packagerConf.moduleExplodedSourcePath().forEach(registry::input);
+    packagerConf.moduleExplodedTestPath().forEach(registry::input);
+    registry.input(packagerConf.moduleDocSourcePath());
+    registry.input(packagerConf.moduleDocTestPath());
+    
+    registry.output(packagerConf.moduleArtifactSourcePath());
+    registry.output(packagerConf.moduleArtifactTestPath());
+    registry.output(packagerConf.moduleSrcArtifactSourcePath());
+    registry.output(packagerConf.moduleDocArtifactSourcePath());
+    registry.output(packagerConf.moduleSrcArtifactTestPath());
+    registry.output(packagerConf.moduleDocArtifactTestPath());
+  }
+  
   enum JarOption {
     FILE(action("--file", Jar::getOutput)),
     VERSION(actionMaybe("--module-version", Jar::getModuleVersion)),
@@ -84,7 +104,7 @@ public class PackagerPlugin implements Plugin {
   
   @Override
   public int execute(Config config) throws IOException {
-    var log = Log.create(name(), config.getOrThrow("pro", ProConf.class).loglevel());
+    var log = Log.create(name(), config.getOrThrow(ProConf.KEY).loglevel());
     log.debug(config, conf -> "config " + config);
     
     var jarTool = ToolProvider.findFirst("jar").orElseThrow(() -> new IllegalStateException("can not find jar"));
@@ -147,18 +167,20 @@ public class PackagerPlugin implements Plugin {
     FileHelper.deleteAllFiles(output, false);
     Files.createDirectories(output);
     
+    var recording = Trace.current();  // the packaging is done by the threads of the common pool
     return inputs
         .parallelStream()
-        .mapToInt(directory -> {
+        .mapToInt(directory -> Trace.with(recording, () -> {
           try(var stream = getUnchecked(() -> list(directory))) {
             return stream
                 .mapToInt(file -> action.apply(file, output))
                 .reduce(0, (exitCode1, exitCode2) -> exitCode1 | exitCode2);
           }
-        })
+        }))
         .reduce(0, (exitCode1, exitCode2) -> exitCode1 | exitCode2);
   }
 
+  @SuppressWarnings("try")
   private static int packageModule(Log log, ToolProvider jarTool, Path moduleExploded,  Path moduleArtifact, PackagerConf packager, Map<String, Metadata> metadataMap, String prefix) {
     var modules = ModuleFinder.of(moduleExploded).findAll();
     if (modules.size() != 1) {
@@ -179,10 +201,12 @@ public class PackagerPlugin implements Plugin {
     var arguments = cmdLine.add(".").toArguments();
     
     log.verbose(jar, _jar -> OptionAction.toPrettyString(JarOption.class, option -> option.action).apply(_jar, "jar"));
-    var exitCode = jarTool.run(System.out, System.err, arguments);
-    return exitCode;
+    try(var span = Trace.span("packager", "jar " + jar.getOutput().getFileName())) {
+      return jarTool.run(System.out, System.err, arguments);
+    }
   }
   
+  @SuppressWarnings("try")
   private static int packageSourceOrDoc(Log log, ToolProvider jarTool, Path input, Path outputPath, PackagerConf packager, Map<String, Metadata> metadataMap, String suffix) {
     var moduleName = input.getFileName().toString();
     
@@ -197,7 +221,8 @@ public class PackagerPlugin implements Plugin {
     var arguments = cmdLine.add(".").toArguments();
     
     log.verbose(jar, _jar -> OptionAction.toPrettyString(JarOption.class, option -> option.action).apply(_jar, "jar"));
-    var exitCode = jarTool.run(System.out, System.err, arguments);
-    return exitCode;
+    try(var span = Trace.span("packager", "jar " + jar.getOutput().getFileName())) {
+      return jarTool.run(System.out, System.err, arguments);
+    }
   }
 }
@@ -13,5 +13,7 @@ public interface ConventionFacade {
   
   public List<Path> javaModuleDependencyPath();
   
+  public Path javaModuleGraphPath();
+  
   public Path javaMavenLocalRepositoryPath();
 }
@@ -33,6 +33,9 @@ public interface ResolverConf {
   List<Path> moduleDependencyPath();
   void moduleDependencyPath(List<Path> path);
   
+  Path moduleGraphPath();
+  void moduleGraphPath(Path path);
+  
   boolean checkForUpdate();
   void checkForUpdate(boolean checkForUpdate);
   
@@ -33,14 +33,18 @@ import com.github.forax.pro.aether.ArtifactDescriptor;
 import com.github.forax.pro.aether.ArtifactInfo;
 import com.github.forax.pro.aether.ArtifactQuery;
 import com.github.forax.pro.api.Config;
+import com.github.forax.pro.api.InputOutputRegistry;
 import com.github.forax.pro.api.MutableConfig;
 import com.github.forax.pro.api.Plugin;
 import com.github.forax.pro.api.WatcherRegistry;
 import com.github.forax.pro.api.helper.ProConf;
+import com.github.forax.pro.helper.BuildEvents;
 import com.github.forax.pro.helper.FileHelper;
 import com.github.forax.pro.helper.Log;
+import com.github.forax.pro.helper.ModuleGraphCache;
 import com.github.forax.pro.helper.ModuleHelper;
 import com.github.forax.pro.helper.ModuleHelper.ResolverListener;
+import com.github.forax.pro.helper.Trace;
 import com.github.forax.pro.helper.util.StableList;
 import com.github.forax.pro.helper.util.Strategy;
 import com.github.forax.pro.helper.util.Unchecked;
@@ -78,6 +82,9 @@ public class ResolverPlugin implements Plugin {
     // outputs
     derive(resolverConf, ResolverConf::moduleDependencyPath, convention, ConventionFacade::javaModuleDependencyPath);
     derive(resolverConf, ResolverConf::mavenLocalRepositoryPath, convention, ConventionFacade::javaMavenLocalRepositoryPath);
+    
+    // cache
+    derive(resolverConf, ResolverConf::moduleGraphPath, convention, ConventionFacade::javaModuleGraphPath);
   }
   
   @Override
@@ -87,6 +94,17 @@ public class ResolverPlugin implements Plugin {
     resolverConf.moduleTestPath().forEach(registry::watch);
   }
   
+  @Override
+  public void inputsAndOutputs(Config config, InputOutputRegistry registry) {
+    var resolverConf = config.getOrThrow(name(), ResolverConf.class);
+    resolverConf.moduleSourcePath().forEach(registry::input);
+    resolverConf.moduleTestPath().forEach(registry::input);
+    resolverConf.modulePath().ifPresent(modulePath -> modulePath.forEach(registry::input));
+    
+    resolverConf.moduleDependencyPath().forEach(registry::output);
+    registry.output(resolverConf.mavenLocalRepositoryPath());
+  }
+  
   static Optional<List<Path>> modulePathOrDependencyPath(Optional<List<Path>> modulePath, List<Path> moduleDependencyPath, List<Path> additionnalPath) {
     return modulePath
              .or(() -> Optional.of(
@@ -96,12 +114,9 @@ public class ResolverPlugin implements Plugin {
   }
   
   
-  private static boolean resolveModuleDependencies(ModuleFinder moduleFinder, ModuleFinder dependencyFinder, LinkedHashSet<String> foundModules, LinkedHashSet<String> unresolvedModules) {
-    var rootSourceNames = moduleFinder.findAll().stream()
-        .map(ref -> ref.descriptor().name())
-        .collect(toUnmodifiableList());
-    var allFinder = ModuleFinder.compose(moduleFinder, dependencyFinder, ModuleHelper.systemModulesFinder());
-    return ModuleHelper.resolveOnlyRequires(allFinder, rootSourceNames,
+  private static boolean resolveModuleDependencies(Log log, Path moduleGraphPath, ModuleFinder moduleFinder, List<Path> dependencyPath, LinkedHashSet<String> foundModules, LinkedHashSet<String> unresolvedModules) throws IOException {
+    // the graph is shared with the compiler and only resolved again if a module-info or the dependencies have changed
+    return ModuleGraphCache.resolveOnlyRequires(log, moduleGraphPath, moduleFinder, dependencyPath,
         new ResolverListener() {
           @Override
           public void module(String moduleName) {
@@ -114,9 +129,20 @@ public class ResolverPlugin implements Plugin {
         });
   }
   
+  // Aether doesn't coordinate the concurrent accesses to a local repository,
+  // so the resolutions of the sub-projects of a workspace are serialized
+  private static final Object RESOLVER_LOCK = new Object();
+  
   @Override
   public int execute(Config config) throws IOException {
-    var log = Log.create(name(), config.getOrThrow("pro", ProConf.class).loglevel());
+    synchronized(RESOLVER_LOCK) {
+      return resolve(config);
+    }
+  }
+  
+  @SuppressWarnings("try")
+  private int resolve(Config config) throws IOException {
+    var log = Log.create(name(), config.getOrThrow(ProConf.KEY).loglevel());
     log.debug(config, conf -> "config " + config);
     
     var resolverConf = config.getOrThrow(name(), ResolverConf.class);
@@ -136,12 +162,8 @@ public class ResolverPlugin implements Plugin {
     var modulePathOpt = modulePathOrDependencyPath(resolverConf.modulePath(),
         resolverConf.moduleDependencyPath(), List.of());
     
-    var dependencyFinder = ModuleFinder.compose(
-        modulePathOpt
-            .stream()
-            .flatMap(List::stream)
-            .map(ModuleFinder::of)
-            .toArray(ModuleFinder[]::new));
+    var dependencyPath = modulePathOpt.orElse(List.of());
+    var moduleGraphPath = resolverConf.moduleGraphPath();
     
     // find resolved and unresolved modules in dependencies (for source and test)
     var sourceResolved = true;
@@ -154,7 +176,7 @@ public class ResolverPlugin implements Plugin {
       var moduleSourceFinder = ModuleHelper.moduleFinder(sourceModuleRefs);
       log.debug(moduleSourceFinder, finder -> "moduleSourceFinder " + finder);
 
-      sourceResolved &= resolveModuleDependencies(moduleSourceFinder, dependencyFinder, resolvedModules, unresolvedModules);
+      sourceResolved &= resolveModuleDependencies(log, moduleGraphPath, moduleSourceFinder, dependencyPath, resolvedModules, unresolvedModules);
     }
 
     // test modules
@@ -163,7 +185,7 @@ public class ResolverPlugin implements Plugin {
       var moduleTestFinder = ModuleHelper.moduleFinder(testModuleRefs);
       log.debug(moduleTestFinder, finder -> "moduleTestFinder " + finder);
 
-      sourceResolved &= resolveModuleDependencies(moduleTestFinder, dependencyFinder, resolvedModules, unresolvedModules);
+      sourceResolved &= resolveModuleDependencies(log, moduleGraphPath, moduleTestFinder, dependencyPath, resolvedModules, unresolvedModules);
     }
     
     log.verbose(unresolvedModules, unresolved -> "unresolvedModules " + unresolved);
@@ -233,8 +255,17 @@ public class ResolverPlugin implements Plugin {
     
     // find all resolved artifacts
     var unresolvedArtifacts = new LinkedHashSet<ArtifactInfo>();
-    for(var unresolvedRootArtifact: unresolvedRootArtifacts) {
-      unresolvedArtifacts.addAll(aether.dependencies(unresolvedRootArtifact));  
+    var collectEvent = new BuildEvents.ResolutionEvent();
+    collectEvent.begin();
+    try(var span = Trace.span("resolver", "aether collect")) {
+      for(var unresolvedRootArtifact: unresolvedRootArtifacts) {
+        unresolvedArtifacts.addAll(aether.dependencies(unresolvedRootArtifact));  
+      }
+    }
+    if (collectEvent.shouldCommit()) {
+      collectEvent.phase = "collect";
+      collectEvent.artifactCount = unresolvedArtifacts.size();
+      collectEvent.commit();
     }
     
     // remove not resolvable artifacts
@@ -246,7 +277,17 @@ public class ResolverPlugin implements Plugin {
         unresolvedArtifacts.stream().map(ArtifactInfo::getArtifactKey).collect(Collectors.toSet()),
         artifactKeyToModuleMap.keySet());
     
-    var resolvedArtifacts = aether.download(new ArrayList<>(unresolvedArtifacts));
+    List<ArtifactDescriptor> resolvedArtifacts;
+    var downloadEvent = new BuildEvents.ResolutionEvent();
+    downloadEvent.begin();
+    try(var span = Trace.span("resolver", "aether download")) {
+      resolvedArtifacts = aether.download(new ArrayList<>(unresolvedArtifacts));
+    }
+    if (downloadEvent.shouldCommit()) {
+      downloadEvent.phase = "download";
+      downloadEvent.artifactCount = resolvedArtifacts.size();
+      downloadEvent.commit();
+    }
     
     log.info(resolvedArtifacts, resolvedArtifactList -> "resolved artifacts " + resolvedArtifactList);
     
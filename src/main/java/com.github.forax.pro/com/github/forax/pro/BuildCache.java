@@ -0,0 +1,240 @@
+package com.github.forax.pro;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.COPY_ATTRIBUTES;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToIntBiFunction;
+
+import com.github.forax.pro.api.Command;
+import com.github.forax.pro.api.Config;
+import com.github.forax.pro.api.InputOutputRegistry;
+import com.github.forax.pro.api.Plugin;
+import com.github.forax.pro.api.helper.ProConf;
+import com.github.forax.pro.helper.DigestHelper;
+import com.github.forax.pro.helper.FileHelper;
+import com.github.forax.pro.helper.Log;
+
+/**
+ * A local build cache shared by all the projects of a machine.
+ *
+ * The cache key of a command is a hash of the name and the configuration of the command
+ * and the content of all the {@link Plugin#inputsAndOutputs(Config, InputOutputRegistry) declared inputs},
+ * the cache entry is a copy of all the declared outputs.
+ * If the key of a command is already in the cache, the outputs are restored from the cache
+ * instead of executing the command.
+ * A command whose configuration contains a value with no canonical encoding is never cached.
+ *
+ * The cache is bounded by {@link ProConf#buildCacheMaxSize()}, the least recently used entries
+ * are evicted first.
+ */
+final class BuildCache {
+  private static final String VERSION = "2";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+
+  private final Path directory;
+  private final long maxSize;
+  private final List<String> commandNames;
+
+  private BuildCache(Path directory, long maxSize, List<String> commandNames) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    this.commandNames = commandNames;
+  }
+
+  static BuildCache of(ProConf proConf) {
+    return new BuildCache(proConf.buildCachePath(), proConf.buildCacheMaxSize(), List.copyOf(proConf.buildCacheCommands()));
+  }
+
+  /**
+   * Execute a command or restore its outputs from the cache.
+   *
+   * @param command a command
+   * @param config the configuration of the command
+   * @param executor the function that really execute the command
+   * @return the error code of the command.
+   */
+  int execute(Command command, Config config, ToIntBiFunction<? super Command, ? super Config> executor) {
+    if (!(command instanceof Plugin) || !commandNames.contains(command.name())) {
+      return executor.applyAsInt(command, config);
+    }
+    var proConf = config.getOrThrow(ProConf.KEY);
+    var log = Log.create("pro", proConf.loglevel());
+    var root = proConf.currentDir().toAbsolutePath().normalize();
+
+    var inputsAndOutputs = InputsAndOutputs.of(command, config);
+    if (inputsAndOutputs.outputs.isEmpty()) {
+      return executor.applyAsInt(command, config);
+    }
+
+    var configHash = Digests.configHash(command, config).orElse(null);
+    if (configHash == null) {
+      log.verbose(command.name(), name -> "build cache: " + name + " not cached, its configuration has no canonical encoding");
+      return executor.applyAsInt(command, config);
+    }
+
+    String key;
+    try {
+      key = key(command, configHash, root, inputsAndOutputs.inputs, inputsAndOutputs.outputs);
+    } catch(IOException | UncheckedIOException e) {
+      log.verbose(e, _e -> "build cache: can not compute the key of " + command.name() + " " + _e.getMessage());
+      return executor.applyAsInt(command, config);
+    }
+    var entry = directory.resolve(key);
+    var outputList = inputsAndOutputs.outputs;
+
+    if (Files.isDirectory(entry)) {
+      try {
+        restore(entry, outputList);
+        log.info(command.name(), name -> "FROM-CACHE " + name);
+        return 0;
+      } catch(IOException | UncheckedIOException e) {
+        log.error(e, _e -> "build cache: restoring " + command.name() + " failed " + _e.getMessage());
+      }
+    }
+
+    var errorCode = executor.applyAsInt(command, config);
+    if (errorCode != 0) {
+      return errorCode;
+    }
+    try {
+      store(key, entry, outputList);
+      evict();
+    } catch(IOException | UncheckedIOException e) {
+      log.verbose(e, _e -> "build cache: storing " + command.name() + " failed " + _e.getMessage());
+    }
+    return 0;
+  }
+
+  private static String key(Command command, String configHash, Path root, List<Path> inputs, List<Path> outputs) throws IOException {
+    var digest = DigestHelper.newDigest();
+    Digests.update(digest, VERSION);
+    Digests.update(digest, command.name());
+    Digests.update(digest, command.getClass().getName());
+    Digests.update(digest, configHash);
+
+    for(var output: outputs) {
+      Digests.update(digest, Digests.relativize(root, output));
+    }
+    for(var input: inputs) {
+      if (!Files.exists(input)) {
+        Digests.update(digest, "-" + Digests.relativize(root, input));
+        continue;
+      }
+      try(var stream = Files.walk(input)) {
+        for(var path: (Iterable<Path>)stream.filter(Files::isRegularFile).sorted()::iterator) {
+          Digests.update(digest, Digests.relativize(root, path));
+          Digests.update(digest, path);
+        }
+      }
+    }
+    return DigestHelper.toHex(digest.digest());
+  }
+
+  private static void restore(Path entry, List<Path> outputs) throws IOException {
+    for(var i = 0; i < outputs.size(); i++) {
+      var output = outputs.get(i);
+      if (Files.isDirectory(output)) {
+        FileHelper.deleteAllFiles(output, true);
+      } else {
+        Files.deleteIfExists(output);
+      }
+      var cached = entry.resolve(String.valueOf(i));
+      if (Files.exists(cached)) {
+        copy(cached, output);
+      }
+    }
+    // mark the entry as recently used
+    Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+  }
+
+  private void store(String key, Path entry, List<Path> outputs) throws IOException {
+    Files.createDirectories(directory);
+    var temporary = Files.createTempDirectory(directory, key + TEMPORARY_SUFFIX);
+    try {
+      for(var i = 0; i < outputs.size(); i++) {
+        var output = outputs.get(i);
+        if (Files.exists(output)) {
+          copy(output, temporary.resolve(String.valueOf(i)));
+        }
+      }
+      Files.move(temporary, entry, ATOMIC_MOVE);
+    } catch(FileAlreadyExistsException e) {
+      // another build has stored the same entry
+    } catch(IOException e) {
+      if (!Files.isDirectory(entry)) {
+        throw e;
+      }
+      // another build has stored the same entry
+    } finally {
+      if (Files.exists(temporary)) {
+        FileHelper.deleteAllFiles(temporary, true);
+      }
+    }
+  }
+
+  private static void copy(Path source, Path destination) throws IOException {
+    try(var stream = Files.walk(source)) {
+      for(var path: (Iterable<Path>)stream::iterator) {
+        var target = destination.resolve(source.relativize(path).toString());
+        if (Files.isDirectory(path)) {
+          Files.createDirectories(target);
+        } else {
+          Files.createDirectories(target.getParent());
+          Files.copy(path, target, REPLACE_EXISTING, COPY_ATTRIBUTES);
+        }
+      }
+    }
+  }
+
+  private static long size(Path entry) {
+    try(var stream = Files.walk(entry)) {
+      return stream.filter(Files::isRegularFile).mapToLong(path -> {
+        try {
+          return Files.size(path);
+        } catch (IOException e) {
+          return 0;
+        }
+      }).sum();
+    } catch(IOException e) {
+      return 0;
+    }
+  }
+
+  private static FileTime lastModifiedTime(Path entry) {
+    try {
+      return Files.getLastModifiedTime(entry);
+    } catch (IOException e) {
+      return FileTime.fromMillis(0);
+    }
+  }
+
+  private void evict() throws IOException {
+    var entries = new ArrayList<Path>();
+    try(var stream = Files.list(directory)) {
+      stream.filter(Files::isDirectory)
+            .filter(path -> !path.getFileName().toString().contains(TEMPORARY_SUFFIX))
+            .forEach(entries::add);
+    }
+    entries.sort(Comparator.comparing(BuildCache::lastModifiedTime));  // least recently used first
+
+    var sizes = entries.stream().mapToLong(BuildCache::size).toArray();
+    var totalSize = 0L;
+    for(var size: sizes) {
+      totalSize += size;
+    }
+    for(var i = 0; i < entries.size() && totalSize > maxSize; i++) {
+      FileHelper.deleteAllFiles(entries.get(i), true);
+      totalSize -= sizes[i];
+    }
+  }
+}
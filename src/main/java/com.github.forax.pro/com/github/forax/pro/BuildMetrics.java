@@ -0,0 +1,177 @@
+package com.github.forax.pro;
+
+import static java.util.stream.Collectors.toUnmodifiableList;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.function.ToIntBiFunction;
+
+import com.github.forax.pro.BuildResult.CommandResult;
+import com.github.forax.pro.BuildResult.Status;
+import com.github.forax.pro.api.Command;
+import com.github.forax.pro.api.Config;
+
+/**
+ * Collect the metrics of the commands of a build.
+ *
+ * Each node of the dependency graph has its own configuration, so the metrics of a command
+ * are found using the identity of its configuration, this works even if the command is executed
+ * by another thread (see {@link CommandTimeout}).
+ *
+ * @see BuildResult
+ */
+final class BuildMetrics {
+  private static final class Metrics {
+    final int index;
+    Status status;  // null if not executed, guarded by this
+    long cpuTime = -1;
+    long allocatedBytes = -1;
+
+    Metrics(int index) {
+      this.index = index;
+    }
+
+    synchronized void executed(int errorCode, long cpuTime, long allocatedBytes) {
+      this.status = (errorCode == 0)? Status.SUCCESS: Status.FAILED;
+      this.cpuTime = cpuTime;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    synchronized void skipped(int errorCode, Status status) {
+      if (this.status == null && errorCode == 0) {
+        this.status = status;
+      }
+    }
+
+    synchronized Status status() {
+      return status;
+    }
+  }
+
+  private final List<CommandScheduler.Node> nodes;
+  private final IdentityHashMap<Config, Metrics> metricsMap = new IdentityHashMap<>();  // read only once created
+  private final CommandResult[] results;
+
+  BuildMetrics(List<CommandScheduler.Node> nodes) {
+    this.nodes = nodes;
+    for(var node: nodes) {
+      metricsMap.put(node.config, new Metrics(node.index));
+    }
+    this.results = new CommandResult[nodes.size()];
+  }
+
+  /**
+   * Measure the CPU time and the allocated bytes of the thread that execute the command.
+   * @param executor the function that really execute the command
+   * @return a function that execute the command and measure it.
+   */
+  ToIntBiFunction<Command, Config> measure(ToIntBiFunction<? super Command, ? super Config> executor) {
+    return (command, config) -> {
+      var threadMXBean = ManagementFactory.getThreadMXBean();
+      var cpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+      var allocatedSupported = threadMXBean instanceof com.sun.management.ThreadMXBean &&
+          ((com.sun.management.ThreadMXBean)threadMXBean).isThreadAllocatedMemoryEnabled();
+      var threadId = Thread.currentThread().getId();
+      var cpuTimeStart = cpuTimeSupported? threadMXBean.getCurrentThreadCpuTime(): -1;
+      var allocatedStart = allocatedSupported? ((com.sun.management.ThreadMXBean)threadMXBean).getThreadAllocatedBytes(threadId): -1;
+      var errorCode = 1;
+      try {
+        errorCode = executor.applyAsInt(command, config);
+        return errorCode;
+      } finally {
+        var cpuTime = cpuTimeSupported? (threadMXBean.getCurrentThreadCpuTime() - cpuTimeStart) / 1_000_000: -1;
+        var allocated = allocatedSupported? ((com.sun.management.ThreadMXBean)threadMXBean).getThreadAllocatedBytes(threadId) - allocatedStart: -1;
+        metricsMap.get(config).executed(errorCode, cpuTime, allocated);
+      }
+    };
+  }
+
+  /**
+   * Record that a command was not executed but succeed, by example because it was up to date.
+   * @param status the status if the command succeed without being executed
+   * @param executor the function that may execute the command.
+   * @return a function that execute the command and record its status.
+   */
+  ToIntBiFunction<Command, Config> skipped(Status status, ToIntBiFunction<? super Command, ? super Config> executor) {
+    return (command, config) -> {
+      var errorCode = executor.applyAsInt(command, config);
+      metricsMap.get(config).skipped(errorCode, status);
+      return errorCode;
+    };
+  }
+
+  /**
+   * Measure the wall time of a command and create its result.
+   * @param executor the function that execute the command.
+   * @return a function that execute the command and create its result.
+   */
+  ToIntBiFunction<Command, Config> time(ToIntBiFunction<? super Command, ? super Config> executor) {
+    return (command, config) -> {
+      var start = System.nanoTime();
+      var errorCode = executor.applyAsInt(command, config);
+      var wallTime = (System.nanoTime() - start) / 1_000_000;
+
+      var metrics = metricsMap.get(config);
+      var status = metrics.status();
+      if (status == null) {  // timeout or skipped because of an error
+        status = (errorCode == 0)? Status.SUCCESS: Status.FAILED;
+      }
+      var inputFileCount = 0;
+      var outputFileCount = 0;
+      if (status != Status.UP_TO_DATE) {  // avoid to walk the files of a command up to date
+        var inputsAndOutputs = InputsAndOutputs.of(command, config);
+        inputFileCount = countFiles(inputsAndOutputs.inputs);
+        outputFileCount = countFiles(inputsAndOutputs.outputs);
+      }
+      long cpuTime, allocatedBytes;
+      synchronized(metrics) {
+        cpuTime = metrics.cpuTime;
+        allocatedBytes = metrics.allocatedBytes;
+      }
+      var result = new CommandResult(command.name(), status, errorCode, wallTime, cpuTime, allocatedBytes, inputFileCount, outputFileCount);
+      synchronized(results) {
+        results[metrics.index] = result;
+      }
+      return errorCode;
+    };
+  }
+
+  // the number of regular files inside the paths, not the number of files actually read or written
+  private static int countFiles(List<Path> paths) {
+    var count = 0;
+    for(var path: paths) {
+      if (!Files.exists(path)) {
+        continue;
+      }
+      try(var stream = Files.walk(path)) {
+        count += (int)stream.filter(Files::isRegularFile).count();
+      } catch(@SuppressWarnings("unused") IOException e) {
+        // the metrics are best effort
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Create the result of the build.
+   * @param errorCode the error code of the build.
+   * @param elapsedTime the elapsed time of the build in milliseconds.
+   * @return the result of the build.
+   */
+  BuildResult result(int errorCode, long elapsedTime) {
+    List<CommandResult> commandResults;
+    synchronized(results) {
+      commandResults = nodes.stream()
+          .map(node -> {
+            var result = results[node.index];
+            return (result != null)? result: new CommandResult(node.command.name(), Status.NOT_EXECUTED, 0, 0, -1, -1, 0, 0);
+          })
+          .collect(toUnmodifiableList());
+    }
+    return new BuildResult(errorCode, elapsedTime, commandResults);
+  }
+}
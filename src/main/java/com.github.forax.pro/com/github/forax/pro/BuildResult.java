@@ -0,0 +1,181 @@
+package com.github.forax.pro;
+
+import static com.github.forax.pro.helper.JsonHelper.escape;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The result of the execution of a list of commands, with the metrics of each command.
+ *
+ * A build result is immutable and can be saved as JSON to track the performance
+ * of the builds over time.
+ *
+ * @see Pro#runAndReport(Object...)
+ */
+public final class BuildResult {
+  /**
+   * The status of a command.
+   */
+  public enum Status {
+    /** the command was executed successfully. */
+    SUCCESS,
+    /** the command was executed and failed. */
+    FAILED,
+    /** the command was not executed because its inputs and outputs have not changed. */
+    UP_TO_DATE,
+    /** the command was not executed, its outputs were restored from the build cache. */
+    FROM_CACHE,
+    /** the command was not executed because a previous command failed. */
+    NOT_EXECUTED
+  }
+
+  /**
+   * The result of a command.
+   *
+   * The CPU time and the allocated bytes are measured on the thread that executes the command,
+   * they are -1 if the VM does not support the measure.
+   * The input and output file counts are the number of files inside the inputs and the outputs
+   * declared by the plugin once the command is finished, they are not the number of files
+   * actually read or written by the command and are 0 if the command was not executed
+   * because it was up to date or because a previous command failed.
+   */
+  public static final class CommandResult {
+    private final String name;
+    private final Status status;
+    private final int errorCode;
+    private final long wallTime;
+    private final long cpuTime;
+    private final long allocatedBytes;
+    private final int inputFileCount;
+    private final int outputFileCount;
+
+    CommandResult(String name, Status status, int errorCode, long wallTime, long cpuTime, long allocatedBytes, int inputFileCount, int outputFileCount) {
+      this.name = name;
+      this.status = status;
+      this.errorCode = errorCode;
+      this.wallTime = wallTime;
+      this.cpuTime = cpuTime;
+      this.allocatedBytes = allocatedBytes;
+      this.inputFileCount = inputFileCount;
+      this.outputFileCount = outputFileCount;
+    }
+
+    public String name() {
+      return name;
+    }
+    public Status status() {
+      return status;
+    }
+    public int errorCode() {
+      return errorCode;
+    }
+    /** @return the wall time in milliseconds. */
+    public long wallTime() {
+      return wallTime;
+    }
+    /** @return the CPU time in milliseconds or -1. */
+    public long cpuTime() {
+      return cpuTime;
+    }
+    /** @return the number of bytes allocated or -1. */
+    public long allocatedBytes() {
+      return allocatedBytes;
+    }
+    /** @return the number of files of the declared inputs or 0. */
+    public int inputFileCount() {
+      return inputFileCount;
+    }
+    /** @return the number of files of the declared outputs or 0. */
+    public int outputFileCount() {
+      return outputFileCount;
+    }
+
+    @Override
+    public String toString() {
+      return name + ' ' + status + ' ' + wallTime + " ms";
+    }
+  }
+
+  private final int errorCode;
+  private final long elapsedTime;
+  private final List<CommandResult> commands;
+
+  BuildResult(int errorCode, long elapsedTime, List<CommandResult> commands) {
+    this.errorCode = errorCode;
+    this.elapsedTime = elapsedTime;
+    this.commands = List.copyOf(commands);
+  }
+
+  /**
+   * Returns the error code of the build, 0 means success.
+   * @return the error code of the build.
+   */
+  public int errorCode() {
+    return errorCode;
+  }
+
+  /**
+   * Returns the elapsed time of the build in milliseconds.
+   * @return the elapsed time of the build in milliseconds.
+   */
+  public long elapsedTime() {
+    return elapsedTime;
+  }
+
+  /**
+   * Returns the results of the commands, in the order of the commands.
+   * @return the results of the commands.
+   */
+  public List<CommandResult> commands() {
+    return commands;
+  }
+
+  /**
+   * Returns the build result encoded in JSON.
+   * @return the build result encoded in JSON.
+   */
+  public String toJSON() {
+    var builder = new StringBuilder()
+        .append("{\n  \"errorCode\": ").append(errorCode)
+        .append(",\n  \"elapsedTime\": ").append(elapsedTime)
+        .append(",\n  \"commands\": [");
+    var separator = "\n";
+    for(var command: commands) {
+      builder.append(separator)
+        .append("    {\"name\": \"").append(escape(command.name))
+        .append("\", \"status\": \"").append(command.status)
+        .append("\", \"errorCode\": ").append(command.errorCode)
+        .append(", \"wallTime\": ").append(command.wallTime)
+        .append(", \"cpuTime\": ").append(command.cpuTime)
+        .append(", \"allocatedBytes\": ").append(command.allocatedBytes)
+        .append(", \"inputFileCount\": ").append(command.inputFileCount)
+        .append(", \"outputFileCount\": ").append(command.outputFileCount)
+        .append('}');
+      separator = ",\n";
+    }
+    return builder.append("\n  ]\n}\n").toString();
+  }
+
+  /**
+   * Write the build result encoded in JSON in a file.
+   *
+   * @param file the file to write.
+   * @throws IOException if an I/O error occurs.
+   */
+  public void write(Path file) throws IOException {
+    var parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Files.writeString(file, toJSON(), UTF_8);
+  }
+
+  @Override
+  public String toString() {
+    return "errorCode " + errorCode + " elapsed time " + elapsedTime + " ms " + commands;
+  }
+}
@@ -18,7 +18,6 @@ public class BuilderSupport {
    * @return a new builder
    */
   public static <T> T createBuilderProxy(String key, Class<T> type) {
-    Pro.getOrUpdate(key, type);  // create the 
     return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type, Query.class },
         (proxy, method, args) -> {
           T delegate = Pro.getOrUpdate(key, type);
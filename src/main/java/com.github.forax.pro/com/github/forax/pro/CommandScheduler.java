@@ -0,0 +1,236 @@
+package com.github.forax.pro;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
+import java.util.stream.Collectors;
+
+import com.github.forax.pro.api.Command;
+import com.github.forax.pro.api.Config;
+import com.github.forax.pro.api.InputOutputRegistry;
+import com.github.forax.pro.api.Plugin;
+import com.github.forax.pro.helper.Log;
+
+/**
+ * Execute a list of commands, commands that do not share inputs/outputs
+ * are executed concurrently.
+ *
+ * The dependency graph is computed from the paths declared by
+ * {@link Plugin#inputsAndOutputs(Config, InputOutputRegistry)},
+ * a command that declares no path (or is not a plugin) acts as a barrier,
+ * it is executed on the calling thread once all the previous commands are finished.
+ */
+final class CommandScheduler {
+  private CommandScheduler() {
+    throw new AssertionError();
+  }
+
+  static final class Node {
+    final int index;
+    final Command command;
+    final Config config;
+    final boolean barrier;
+    final Set<Path> inputs;
+    final Set<Path> outputs;
+    final ArrayList<Node> successors = new ArrayList<>();
+    int predecessorCount;
+    boolean executed;
+    int errorCode;
+
+    Node(int index, Command command, Config config, boolean barrier, Set<Path> inputs, Set<Path> outputs) {
+      this.index = index;
+      this.command = command;
+      this.config = config;
+      this.barrier = barrier;
+      this.inputs = inputs;
+      this.outputs = outputs;
+    }
+
+    void addSuccessor(Node node) {
+      successors.add(node);
+      node.predecessorCount++;
+    }
+    
+    boolean dependsOn(Node node) {
+      return barrier || node.barrier ||
+          overlaps(node.outputs, inputs) || overlaps(node.outputs, outputs) || overlaps(node.inputs, outputs);
+    }
+
+    @Override
+    public String toString() {
+      return command.name();
+    }
+  }
+
+  /**
+   * The result of an execution.
+   */
+  static final class Result {
+    final int errorCode;
+    final String failedCommandName;
+
+    Result(int errorCode, String failedCommandName) {
+      this.errorCode = errorCode;
+      this.failedCommandName = failedCommandName;
+    }
+  }
+
+  private static boolean overlaps(Set<Path> paths1, Set<Path> paths2) {
+    for(var path1: paths1) {
+      for(var path2: paths2) {
+        if (path1.startsWith(path2) || path2.startsWith(path1)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static Node node(int index, Command command, Config config) {
+    var inputsAndOutputs = InputsAndOutputs.of(command, config);
+    return new Node(index, command, config, inputsAndOutputs.isEmpty(),
+        Set.copyOf(inputsAndOutputs.inputs), Set.copyOf(inputsAndOutputs.outputs));
+  }
+
+  /**
+   * Creates the dependency graph of the commands,
+   * each command will be executed with its own configuration.
+   *
+   * @param commands a list of commands
+   * @param configFactory a factory of configuration, called once by command
+   * @return the nodes of the graph, in the order of the commands
+   */
+  static List<Node> graph(List<Command> commands, Supplier<? extends Config> configFactory) {
+    var nodes = new ArrayList<Node>();
+    for(var command: commands) {
+      var node = node(nodes.size(), command, configFactory.get());
+      for(var previous: nodes) {
+        if (node.dependsOn(previous)) {
+          previous.addSuccessor(node);
+        }
+      }
+      nodes.add(node);
+    }
+    return nodes;
+  }
+
+  /**
+   * Execute all the commands of the graph, at most {@code parallelism} commands concurrently.
+   * If a command fails, no other command is started and the error code of the
+   * failed command is returned once the running commands are finished.
+   *
+   * @param log the log of pro
+   * @param nodes the dependency graph of the commands, in the order of the commands
+   * @param parallelism the maximum number of commands executed concurrently
+   * @param executor the function that execute a command with its configuration and returns its error code
+   * @return the result of the execution.
+   * 
+   * @see #execute(Log, List, int, ToIntBiFunction, boolean)
+   */
+  static Result execute(Log log, List<Node> nodes, int parallelism, ToIntBiFunction<? super Command, ? super Config> executor) {
+    return execute(log, nodes, parallelism, executor, false);
+  }
+  
+  /**
+   * Execute all the commands of the graph, at most {@code parallelism} commands concurrently.
+   * If a command fails and {@code keepGoing} is true, the commands that do not depend on the failed command
+   * are still executed, otherwise no other command is started.
+   * The error code of the first failed command is returned once the running commands are finished,
+   * {@link Node#executed} tells if a command has been executed.
+   *
+   * @param log the log of pro
+   * @param nodes the dependency graph of the commands, in the order of the commands
+   * @param parallelism the maximum number of commands executed concurrently
+   * @param executor the function that execute a command with its configuration and returns its error code
+   * @param keepGoing execute the commands that do not depend on a failed command.
+   * @return the result of the execution.
+   */
+  static Result execute(Log log, List<Node> nodes, int parallelism, ToIntBiFunction<? super Command, ? super Config> executor, boolean keepGoing) {
+    log.debug(nodes, _nodes -> "command graph " + _nodes.stream().map(node -> node + " -> " + node.successors).collect(Collectors.joining(", ")));
+
+    var ready = new PriorityQueue<Node>(Comparator.comparingInt((Node node) -> node.index));
+    nodes.stream().filter(node -> node.predecessorCount == 0).forEach(ready::offer);
+
+    ExecutorService executorService = null;
+    try {
+      ExecutorCompletionService<Node> completionService = null;
+      var running = 0;
+      var errorCode = 0;
+      var failedCommandName = "";
+      for(;;) {
+        while((errorCode == 0 || keepGoing) && running < parallelism && !ready.isEmpty()) {
+          var node = ready.poll();
+          if (node.barrier) {  // all the previous commands are finished, execute on the current thread
+            node.errorCode = executor.applyAsInt(node.command, node.config);
+            var nodeErrorCode = complete(node, ready);
+            if (errorCode == 0 && nodeErrorCode != 0) {
+              errorCode = nodeErrorCode;
+              failedCommandName = node.command.name();
+            }
+            continue;
+          }
+          if (completionService == null) {
+            executorService = Executors.newFixedThreadPool(parallelism, runnable -> {
+              var thread = new Thread(runnable);
+              thread.setDaemon(true);
+              return thread;
+            });
+            completionService = new ExecutorCompletionService<>(executorService);
+          }
+          log.debug(node, _node -> "start " + _node);
+          completionService.submit(() -> { node.errorCode = executor.applyAsInt(node.command, node.config); return node; });
+          running++;
+        }
+        if (running == 0) {
+          return new Result(errorCode, failedCommandName);
+        }
+
+        Node node;
+        try {
+          node = completionService.take().get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+          var cause = e.getCause();
+          if (cause instanceof Error) {
+            throw (Error)cause;
+          }
+          throw new IllegalStateException(cause);
+        }
+        running--;
+        var nodeErrorCode = complete(node, ready);
+        if (errorCode == 0 && nodeErrorCode != 0) {
+          errorCode = nodeErrorCode;
+          failedCommandName = node.command.name();
+        }
+      }
+    } finally {
+      if (executorService != null) {
+        executorService.shutdown();
+      }
+    }
+  }
+
+  private static int complete(Node node, PriorityQueue<Node> ready) {
+    node.executed = true;
+    if (node.errorCode != 0) {
+      return node.errorCode;
+    }
+    for(var successor: node.successors) {
+      if (--successor.predecessorCount == 0) {
+        ready.offer(successor);
+      }
+    }
+    return 0;
+  }
+}
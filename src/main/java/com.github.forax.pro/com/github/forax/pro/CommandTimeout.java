@@ -0,0 +1,118 @@
+package com.github.forax.pro;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToIntBiFunction;
+
+import com.github.forax.pro.api.Command;
+import com.github.forax.pro.api.Config;
+import com.github.forax.pro.api.helper.ProConf;
+import com.github.forax.pro.helper.Log;
+
+/**
+ * Execute a command with a deadline.
+ *
+ * The command is executed in its own thread, if the command does not finish before the deadline,
+ * the thread is interrupted, so a command that waits for a forked process should destroy it
+ * (see {@link com.github.forax.pro.helper.ProcessHelper}), and the command fails with
+ * {@link #TIMEOUT_ERROR_CODE}.
+ *
+ * The deadline of a command is specified in seconds either by {@link ProConf#commandTimeouts()}
+ * using the syntax {@code name=seconds} or by {@link ProConf#timeout()} for all commands,
+ * a deadline of 0 means no deadline.
+ */
+final class CommandTimeout {
+  /**
+   * Error code of a command that has not finished before its deadline.
+   */
+  static final int TIMEOUT_ERROR_CODE = 124;   // like the unix command timeout
+
+  private static final long CANCELLATION_GRACE_PERIOD = 5_000;  // in milliseconds
+
+  private CommandTimeout() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Returns true if at least one command has a deadline.
+   * @param proConf the configuration of pro.
+   * @return true if at least one command has a deadline.
+   */
+  static boolean hasTimeout(ProConf proConf) {
+    return proConf.timeout() > 0 || !proConf.commandTimeouts().isEmpty();
+  }
+
+  static int timeout(ProConf proConf, String name) {
+    for(var commandTimeout: proConf.commandTimeouts()) {
+      var index = commandTimeout.indexOf('=');
+      if (index == -1) {
+        throw new IllegalArgumentException("invalid command timeout " + commandTimeout + ", should be name=seconds");
+      }
+      if (commandTimeout.substring(0, index).equals(name)) {
+        return Integer.parseInt(commandTimeout.substring(index + 1));
+      }
+    }
+    return proConf.timeout();
+  }
+
+  /**
+   * Execute a command and cancel it if it has not finished before its deadline.
+   *
+   * @param command a command
+   * @param config the configuration of the command
+   * @param executor the function that really execute the command
+   * @return the error code of the command.
+   */
+  static int execute(Command command, Config config, ToIntBiFunction<? super Command, ? super Config> executor) {
+    var proConf = config.getOrThrow(ProConf.KEY);
+    var timeout = timeout(proConf, command.name());
+    if (timeout <= 0) {
+      return executor.applyAsInt(command, config);
+    }
+    var log = Log.create("pro", proConf.loglevel());
+
+    var callerConfig = Pro.CONFIG.get();
+    var task = new FutureTask<>(() -> {
+      Pro.CONFIG.set(callerConfig);
+      return executor.applyAsInt(command, config);
+    });
+    var thread = new Thread(task, "pro-" + command.name());
+    thread.setDaemon(true);  // a command that ignores the cancellation should not block the VM exit
+    thread.start();
+    try {
+      return task.get(timeout, TimeUnit.SECONDS);
+    } catch(ExecutionException e) {
+      var cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+      throw new AssertionError(cause);
+    } catch(TimeoutException e) {
+      log.error(command.name(), name -> "command " + name + " has not finished after " + timeout + " s, cancel it");
+      cancel(log, command, task, thread);
+      return TIMEOUT_ERROR_CODE;
+    } catch(InterruptedException e) {
+      cancel(log, command, task, thread);
+      Thread.currentThread().interrupt();
+      return 1;
+    }
+  }
+
+  private static void cancel(Log log, Command command, FutureTask<Integer> task, Thread thread) {
+    task.cancel(true);
+    try {
+      thread.join(CANCELLATION_GRACE_PERIOD);
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    if (thread.isAlive()) {
+      log.error(command.name(), name -> "command " + name + " does not respond to the cancellation");
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.github.forax.pro;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Optional;
+
+import com.github.forax.pro.api.Command;
+import com.github.forax.pro.api.Config;
+import com.github.forax.pro.helper.DigestHelper;
+
+/**
+ * Helper methods to compute the hash of the configuration and the files of a command.
+ */
+final class Digests {
+  private Digests() {
+    throw new AssertionError();
+  }
+  
+  static void update(MessageDigest digest, String text) {
+    digest.update(text.getBytes(UTF_8));
+    digest.update((byte)0);
+  }
+  
+  static void update(MessageDigest digest, Path file) throws IOException {
+    try(var input = Files.newInputStream(file)) {
+      var buffer = new byte[8192];
+      int read;
+      while((read = input.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+  }
+  
+  /**
+   * Returns the hash of the configuration of a command.
+   * @param command a command
+   * @param config the configuration
+   * @return the hash of the canonical encoding of the configuration of a command
+   *         or an empty optional if the configuration contains a value with no canonical encoding,
+   *         in that case the command should not be cached.
+   * 
+   * @see Config#hash(String)
+   */
+  static Optional<String> configHash(Command command, Config config) {
+    var name = command.name();
+    if (config.get(name, Object.class).isEmpty()) {
+      return Optional.of("");
+    }
+    try {
+      return Optional.of(config.hash(name));
+    } catch(IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+  
+  static String hash(Path file) throws IOException {
+    var digest = DigestHelper.newDigest();
+    update(digest, file);
+    return DigestHelper.toHex(digest.digest());
+  }
+  
+  /**
+   * Returns a stable string representation of a path, relative to the root if possible.
+   * @param root the root directory
+   * @param path a path
+   * @return a stable string representation of a path.
+   */
+  static String relativize(Path root, Path path) {
+    // paths outside of the project are kept absolute
+    return (path.startsWith(root)? root.relativize(path): path).toString().replace('\\', '/');
+  }
+}
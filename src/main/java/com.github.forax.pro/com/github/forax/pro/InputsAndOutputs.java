@@ -0,0 +1,59 @@
+package com.github.forax.pro;
+
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import com.github.forax.pro.api.Command;
+import com.github.forax.pro.api.Config;
+import com.github.forax.pro.api.InputOutputRegistry;
+import com.github.forax.pro.api.Plugin;
+
+/**
+ * The inputs and the outputs declared by a command,
+ * all paths are absolute and normalized.
+ * 
+ * @see Plugin#inputsAndOutputs(Config, InputOutputRegistry)
+ */
+final class InputsAndOutputs {
+  final List<Path> inputs;
+  final List<Path> outputs;
+  
+  private InputsAndOutputs(List<Path> inputs, List<Path> outputs) {
+    this.inputs = inputs;
+    this.outputs = outputs;
+  }
+  
+  /**
+   * Returns true if the command has not declared any path.
+   * @return true if the command has not declared any path.
+   */
+  boolean isEmpty() {
+    return inputs.isEmpty() && outputs.isEmpty();
+  }
+  
+  /**
+   * Returns the paths declared by a command, a command which is not a plugin declares no path.
+   * @param command a command
+   * @param config the configuration of the command
+   * @return the paths declared by the command.
+   */
+  static InputsAndOutputs of(Command command, Config config) {
+    if (!(command instanceof Plugin)) {
+      return new InputsAndOutputs(List.of(), List.of());
+    }
+    var inputs = new LinkedHashSet<Path>();
+    var outputs = new LinkedHashSet<Path>();
+    ((Plugin)command).inputsAndOutputs(config, new InputOutputRegistry() {
+      @Override
+      public void input(Path path) {
+        inputs.add(path.toAbsolutePath().normalize());
+      }
+      @Override
+      public void output(Path path) {
+        outputs.add(path.toAbsolutePath().normalize());
+      }
+    });
+    return new InputsAndOutputs(List.copyOf(inputs), List.copyOf(outputs));
+  }
+}
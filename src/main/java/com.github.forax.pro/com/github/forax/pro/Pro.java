@@ -2,8 +2,6 @@ package com.github.forax.pro;
 
 import static com.github.forax.pro.helper.util.Unchecked.getUnchecked;
 import static java.nio.file.Files.walk;
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toMap;
 
 import java.io.IOException;
 import java.lang.StackWalker.StackFrame;
@@ -15,10 +13,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.function.BiConsumer;
+import java.util.function.ToIntBiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -28,9 +28,12 @@ import com.github.forax.pro.api.Plugin;
 import com.github.forax.pro.api.helper.ProConf;
 import com.github.forax.pro.api.impl.Configs.Query;
 import com.github.forax.pro.api.impl.DefaultConfig;
+import com.github.forax.pro.api.impl.PluginIndex;
 import com.github.forax.pro.api.impl.Plugins;
 import com.github.forax.pro.daemon.Daemon;
+import com.github.forax.pro.helper.BuildEvents;
 import com.github.forax.pro.helper.Log;
+import com.github.forax.pro.helper.Trace;
 import com.github.forax.pro.helper.util.StableList;
 
 public class Pro {
@@ -41,7 +44,7 @@ public class Pro {
   static final ThreadLocal<DefaultConfig> CONFIG = new ThreadLocal<>() {
     @Override
     protected DefaultConfig initialValue() {
-      var config = new DefaultConfig();
+      var config = new DefaultConfig(Pro::initializePlugin);
       var proConf = config.getOrUpdate("pro", ProConf.class);
       proConf.currentDir(Path.of("."));
       proConf.pluginDir(Optional.ofNullable(System.getenv("PRO_PLUGIN_DIR"))
@@ -53,6 +56,24 @@ public class Pro {
       proConf.loglevel(logLevel.name().toLowerCase());
       proConf.exitOnError(Boolean.valueOf(System.getProperty("pro.exitOnError", "true")));
       proConf.errorCode(0);
+      proConf.parallelism(Optional.ofNullable(System.getProperty("pro.parallelism", null))
+          .map(Integer::parseInt)
+          .orElseGet(Runtime.getRuntime()::availableProcessors));
+      proConf.upToDateCheck(Boolean.valueOf(System.getProperty("pro.upToDateCheck", "true")));
+      proConf.buildCache(Boolean.valueOf(System.getProperty("pro.buildCache", "false")));
+      proConf.buildCachePath(Optional.ofNullable(System.getProperty("pro.buildCachePath", null))
+          .map(Path::of)
+          .orElseGet(() -> Path.of(System.getProperty("user.home"), ".pro", "cache")));
+      proConf.buildCacheMaxSize(Long.parseLong(System.getProperty("pro.buildCacheMaxSize", "" + (1L << 30))));  // 1G
+      proConf.buildCacheCommands(List.of("compiler", "docer", "packager", "linker"));
+      proConf.buildResult(Boolean.valueOf(System.getProperty("pro.buildResult", "false")));
+      proConf.timeout(Integer.parseInt(System.getProperty("pro.timeout", "0")));   // no timeout
+      proConf.commandTimeouts(Optional.ofNullable(System.getProperty("pro.commandTimeouts", null))
+          .map(value -> List.of(value.split(",")))
+          .orElse(List.of()));
+      Optional.ofNullable(System.getProperty("pro.traceFile", null))
+          .map(Path::of)
+          .ifPresent(proConf::traceFile);
       var arguments = Optional.ofNullable(System.getProperty("pro.arguments", null))
           .map(value -> List.of(value.split(",")))
           .orElse(List.of());
@@ -63,20 +84,71 @@ public class Pro {
       return config;
     }
   };
-  static final HashMap<String, Plugin> PLUGINS;
+  // plugins are registered eagerly but only initialized in a configuration
+  // the first time their name is used as a key, see initializePlugin()
+  private static final HashMap<String, Plugin> PLUGINS = new HashMap<>();  // guarded by PLUGINS
+  private static PluginIndex pluginIndex;                                  // guarded by PLUGINS
+  private static final HashSet<Path> LOADED_PLUGIN_DIRS = new HashSet<>();  // guarded by PLUGINS
+  private static final Path PLUGIN_DIR;
+  private static final String BUILD_RESULT_FILE = "target/build-result.json";
   static {
     // initialization
-    var config = CONFIG.get();
-    var proConf = config.getOrThrow("pro", ProConf.class);
-    var plugins = getUnchecked(() -> Plugins.getAllPlugins(proConf.pluginDir()));
+    var plugins = Plugins.getCorePlugins();
+    registerPlugins(plugins);
+    
+    var proConf = CONFIG.get().getOrThrow(ProConf.KEY);
+    PLUGIN_DIR = proConf.pluginDir();
     
     var log = Log.create("pro", proConf.loglevel());
     log.info(plugins, ps -> "registered plugins " + ps.stream().map(Plugin::name).collect(Collectors.joining(", ")));
-
-    plugins.forEach(plugin -> plugin.init(config.asChecked(plugin.name())));
-    plugins.forEach(plugin -> plugin.configure(config.asChecked(plugin.name())));
-    
-    PLUGINS = plugins.stream().collect(toMap(Plugin::name, identity(), (_1, _2) -> { throw new AssertionError(); }, HashMap::new));
+  }
+  
+  private static void registerPlugins(List<Plugin> plugins) {
+    synchronized(PLUGINS) {
+      plugins.forEach(plugin -> PLUGINS.putIfAbsent(plugin.name(), plugin));
+    }
+  }
+  
+  /**
+   * Find a plugin by its name, if the name is not a registered plugin,
+   * the {@link PluginIndex index} of the plugin directory is used to only load
+   * the modules of the directory containing the plugin.
+   * 
+   * @param name the name of the plugin
+   * @return the plugin or null.
+   */
+  static Plugin findPlugin(String name) {
+    synchronized(PLUGINS) {
+      var plugin = PLUGINS.get(name);
+      if (plugin != null) {
+        return plugin;
+      }
+      if (pluginIndex == null) {
+        pluginIndex = getUnchecked(() -> PluginIndex.load(PLUGIN_DIR));
+      }
+      var entryOpt = pluginIndex.find(name);
+      if (!entryOpt.isPresent()) {
+        return null;
+      }
+      var entry = entryOpt.orElseThrow();
+      if (LOADED_PLUGIN_DIRS.add(entry.directory())) {
+        registerPlugins(Plugins.getDynamicPlugins(entry));
+      }
+      return PLUGINS.get(name);
+    }
+  }
+  
+  private static boolean initializePlugin(DefaultConfig config, String name) {
+    if (name.equals("pro")) {  // not a plugin, already initialized
+      return true;
+    }
+    var plugin = findPlugin(name);
+    if (plugin == null) {
+      return false;
+    }
+    plugin.init(config.asChecked(name));
+    plugin.configure(config.asChecked(name));
+    return true;
   }
   
   /**
@@ -85,15 +157,8 @@ public class Pro {
    * @param dynamicPluginDir a folder containing the plugins
    */
   public static void loadPlugins(Path dynamicPluginDir) {
-    var config = CONFIG.get();
     var plugins = getUnchecked(() -> Plugins.getDynamicPlugins(dynamicPluginDir));
-    for(var plugin : plugins) {
-      var pluginName = plugin.name();
-      if (PLUGINS.putIfAbsent(pluginName, plugin) == null) {
-        plugin.init(config.asChecked(pluginName));
-        plugin.configure(config.asChecked(pluginName));
-      }
-    }
+    registerPlugins(plugins);
   }
   
   /**
@@ -345,7 +410,7 @@ public class Pro {
    */
   public static <X extends Throwable> void local(String localDir, Action<? extends X> action) throws X { 
     var oldConfig = CONFIG.get();
-    var currentDir = oldConfig.getOrThrow("pro", ProConf.class).currentDir();
+    var currentDir = oldConfig.getOrThrow(ProConf.KEY).currentDir();
     var newConfig = oldConfig.duplicate();
     newConfig.getOrUpdate("pro", ProConf.class).currentDir(currentDir.resolve(localDir));
     
@@ -402,6 +467,19 @@ public class Pro {
     };
   }
   
+  /**
+   * Create a new {@link Workspace}, a set of sub-projects, each sub-project is built
+   * in its local directory with a duplicated configuration and
+   * the sub-projects that do not depend on each other are built concurrently.
+   * 
+   * @return a new workspace.
+   * 
+   * @see #local(String, Action)
+   */
+  public static Workspace workspace() {
+    return new Workspace();
+  }
+  
   private static class IgnoredCommand implements Command {
     final Command command;
     
@@ -415,7 +493,7 @@ public class Pro {
     }
     @Override
     public int execute(Config config) throws IOException {
-      var proConf = CONFIG.get().getOrThrow("pro", ProConf.class);
+      var proConf = CONFIG.get().getOrThrow(ProConf.KEY);
       var log = Log.create("pro", proConf.loglevel());
       log.info(null, __ -> "ignore " + command.name());  
       return 0;
@@ -443,13 +521,15 @@ public class Pro {
    * @return the current errorCode.
    */
   public static int errorCode() {
-    var proConf = CONFIG.get().getOrThrow("pro", ProConf.class);
+    var proConf = CONFIG.get().getOrThrow(ProConf.KEY);
     return proConf.errorCode();
   }
   
   /**
    * Execute all commands, {@link #command(Action) user-defined} or {@link Plugin plugins},
-   * one after another in the array order with the current configuration. 
+   * one after another in the array order with the current configuration.
+   * Plugins that {@link Plugin#inputsAndOutputs(Config, com.github.forax.pro.api.InputOutputRegistry) declare}
+   * disjoint inputs and outputs may be executed concurrently (see {@link ProConf#parallelism()}).
    * 
    * @param commands an array of command to be executed
    * 
@@ -462,7 +542,9 @@ public class Pro {
   
   /**
    * Execute all commands, {@link #command(Action) user-defined} or {@link Plugin plugins},
-   * one after another in the list order with the current configuration. 
+   * one after another in the list order with the current configuration.
+   * Plugins that {@link Plugin#inputsAndOutputs(Config, com.github.forax.pro.api.InputOutputRegistry) declare}
+   * disjoint inputs and outputs may be executed concurrently (see {@link ProConf#parallelism()}).
    * 
    * @param commands a list of command to be executed
    * 
@@ -470,27 +552,72 @@ public class Pro {
    */
   public static void run(List<?> commands) {
     var config = CONFIG.get();
-    var proConf = config.getOrThrow("pro", ProConf.class);
-    
+    var commandList = commands(config, commands);
+    if (commandList == null) {
+      return;
+    }
+    runAll(config, commandList);
+  }
+  
+  /**
+   * Execute all commands like {@link #run(Object...)} and returns the result of the build
+   * with the metrics of each command.
+   * The result is also saved in JSON in the file {@code target/build-result.json} of the current directory.
+   * 
+   * The commands are always executed in the current VM, even if a daemon is started.
+   * 
+   * @param commands an array of command to be executed
+   * @return the result of the build.
+   * 
+   * @see #runAndReport(List)
+   */
+  public static BuildResult runAndReport(Object... commands) {
+    return runAndReport(List.of(commands));
+  }
+  
+  /**
+   * Execute all commands like {@link #run(List)} and returns the result of the build
+   * with the metrics of each command.
+   * The result is also saved in JSON in the file {@code target/build-result.json} of the current directory.
+   * 
+   * The commands are always executed in the current VM, even if a daemon is started.
+   * 
+   * @param commands a list of command to be executed
+   * @return the result of the build.
+   * 
+   * @see ProConf#buildResult()
+   */
+  public static BuildResult runAndReport(List<?> commands) {
+    var config = CONFIG.get();
+    var commandList = commands(config, commands);
+    if (commandList == null) {
+      return new BuildResult(1, 0, List.of());
+    }
+    return executeAll(commandList, config, true);
+  }
+  
+  private static List<Command> commands(DefaultConfig config, List<?> commands) {
+    var proConf = config.getOrThrow(ProConf.KEY);
     var commandList = new ArrayList<Command>();
     for(var command: commands) {
       if (command instanceof Command) {
         commandList.add((Command)command);
       } else {
         var pluginName = (command instanceof Query)? ((Query)command)._id_(): command.toString();
-        var pluginOpt = Optional.ofNullable(PLUGINS.get(pluginName));
+        var pluginOpt = Optional.ofNullable(findPlugin(pluginName));
         if (!pluginOpt.isPresent()) {
           var log = Log.create("pro", proConf.loglevel());
           log.error(pluginName, name -> "unknown plugin " + name);  
           mayExit(proConf.exitOnError(), "pro", 1);  //FIXME
-          return;
+          return null;
         }
         
-        commandList.add(pluginOpt.orElseThrow());
+        var plugin = pluginOpt.orElseThrow();
+        config.initialize(plugin.name());
+        commandList.add(plugin);
       }
     }
-    
-    runAll(config, commandList);
+    return commandList;
   }
   
   private static void runAll(DefaultConfig config, List<Command> commands) {
@@ -503,27 +630,105 @@ public class Pro {
   }
   
   private static void executeAll(List<Command> commands, DefaultConfig config) {
-    var proConf = config.getOrThrow("pro", ProConf.class);
+    executeAll(commands, config, false);
+  }
+  
+  @SuppressWarnings("try")
+  private static BuildResult executeAll(List<Command> commands, DefaultConfig config, boolean report) {
+    var proConf = config.getOrThrow(ProConf.KEY);
     var log = Log.create("pro", proConf.loglevel());
     var exitOnError = proConf.exitOnError();
     var errorCode = proConf.errorCode();
     if (errorCode != 0) {
       log.error(errorCode, _errorCode -> "previous command failed, errrorCode() is " + _errorCode);
-      return;
+      return new BuildResult(errorCode, 0, List.of());
     }
     
-    var failedCommandName = "";
+    var traceFile = proConf.traceFile();
+    
     var start = System.currentTimeMillis();
-    for(var command: commands) {
-      errorCode = execute(command, config.duplicate());
-      if (errorCode != 0) {
-        config.getOrUpdate("pro", ProConf.class).errorCode(errorCode);
-        failedCommandName = command.name();
-        break;
+    var derivedComputed = DefaultConfig.derivedComputed();
+    var derivedCached = DefaultConfig.derivedCached();
+    var graph = CommandScheduler.graph(commands, config::duplicate);
+    var metrics = (report || proConf.buildResult())? new BuildMetrics(graph): null;
+    ToIntBiFunction<Command, Config> executor = Pro::execute;
+    if (metrics != null) {
+      executor = metrics.measure(executor);
+    }
+    if (CommandTimeout.hasTimeout(proConf)) {
+      var next = executor;
+      executor = (command, _config) -> CommandTimeout.execute(command, _config, next);
+    }
+    if (proConf.buildCache()) {
+      var buildCache = BuildCache.of(proConf);
+      var next = executor;
+      executor = (command, _config) -> buildCache.execute(command, _config, next);
+      if (metrics != null) {
+        executor = metrics.skipped(BuildResult.Status.FROM_CACHE, executor);
+      }
+    }
+    if (proConf.upToDateCheck()) {
+      var next = executor;
+      executor = (command, _config) -> UpToDateCheck.execute(command, _config, next);
+      if (metrics != null) {
+        executor = metrics.skipped(BuildResult.Status.UP_TO_DATE, executor);
+      }
+    }
+    if (metrics != null) {
+      executor = metrics.time(executor);
+    }
+    var recording = traceFile.isPresent()? Trace.record(): null;
+    if (recording != null) {
+      var next = executor;
+      executor = (command, _config) -> Trace.with(recording, () -> {
+        try(var span = Trace.span("pro", command.name())) {
+          return next.applyAsInt(command, _config);
+        }
+      });
+    }
+    var _executor = executor;
+    CommandScheduler.Result result;
+    try {
+      result = Trace.with(recording, () -> {
+        try(var span = Trace.span("pro", "run")) {
+          return CommandScheduler.execute(log, graph, Math.max(1, proConf.parallelism()), _executor);
+        }
+      });
+    } finally {
+      if (recording != null) {
+        recording.close();
       }
     }
+    errorCode = result.errorCode;
+    if (errorCode != 0) {
+      config.getOrUpdate("pro", ProConf.class).errorCode(errorCode);
+    }
     var end = System.currentTimeMillis();
     var elapsed = end - start;
+    log.debug(null, __ -> String.format("derived values: %,d computed, %,d from cache",
+        DefaultConfig.derivedComputed() - derivedComputed, DefaultConfig.derivedCached() - derivedCached));
+    
+    if (recording != null) {
+      var file = traceFile.orElseThrow();
+      try {
+        recording.write(file);
+        log.verbose(file, _file -> "trace written to " + _file);
+      } catch(IOException e) {
+        log.error(e);
+      }
+    }
+    
+    BuildResult buildResult = null;
+    if (metrics != null) {
+      buildResult = metrics.result(errorCode, elapsed);
+      var buildResultFile = proConf.currentDir().resolve(BUILD_RESULT_FILE);
+      try {
+        buildResult.write(buildResultFile);
+        log.verbose(buildResultFile, file -> "build result written to " + file);
+      } catch(IOException e) {
+        log.error(e);
+      }
+    }
     
     if (errorCode == 0) {
       log.info(elapsed, time -> String.format("DONE !          elapsed time %,d ms", time));
@@ -532,23 +737,34 @@ public class Pro {
     }
     
     if (errorCode != 0) {
-      mayExit(exitOnError, failedCommandName, errorCode);
+      mayExit(exitOnError, result.failedCommandName, errorCode);
     }
+    return buildResult;
   }
   
-  private static int execute(Command command, Config config) {
+  static int execute(Command command, Config config) {
+    var event = new BuildEvents.CommandEvent();
+    event.begin();
+    var errorCode = 1;
     try {
-      return command.execute(config);
+      errorCode = command.execute(config);
+      return errorCode;
     } catch (IOException | /*UncheckedIOException |*/ RuntimeException e) {  //FIXME revisit RuntimeException !
       e.printStackTrace();
-      var logLevel = config.getOrThrow("pro", ProConf.class).loglevel();
+      var logLevel = config.getOrThrow(ProConf.KEY).loglevel();
       var log = Log.create(command.name(), logLevel);
       log.error(e);
       return 1; // FIXME
+    } finally {
+      if (event.shouldCommit()) {
+        event.name = command.name();
+        event.errorCode = errorCode;
+        event.commit();
+      }
     }
   }
   
-  private static void mayExit(boolean exitOnError, String failedCommandName, int errorCode) {
+  static void mayExit(boolean exitOnError, String failedCommandName, int errorCode) {
     String errorMessage = "command '" + failedCommandName + "' exit with code " + errorCode;
     System.err.println(errorMessage);
     if (exitOnError) {
@@ -0,0 +1,247 @@
+package com.github.forax.pro;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.ToIntBiFunction;
+
+import com.github.forax.pro.api.Command;
+import com.github.forax.pro.api.Config;
+import com.github.forax.pro.api.InputOutputRegistry;
+import com.github.forax.pro.api.Plugin;
+import com.github.forax.pro.api.helper.ProConf;
+import com.github.forax.pro.helper.Log;
+
+/**
+ * Skip the execution of a plugin if its configuration, its inputs and its outputs
+ * have not changed since its last successful execution.
+ *
+ * The state of each plugin is stored in the directory {@code target/.pro/state} of the project,
+ * a file is considered as unchanged if its size and its last modified time are the same,
+ * if the last modified time of an input file has changed, the content of the file is hashed
+ * and compared to the hash of the previous execution.
+ * A plugin whose configuration contains a value with no canonical encoding is always executed.
+ * The files of an input that is also an output, i.e. modified in place by the plugin,
+ * are only checked as outputs, otherwise the state of the input before the execution
+ * would never match the state after the execution.
+ *
+ * @see Plugin#inputsAndOutputs(Config, InputOutputRegistry)
+ */
+final class UpToDateCheck {
+  private static final String STATE_DIRECTORY = "target/.pro/state";
+  private static final String MISSING = "-";
+
+  private UpToDateCheck() {
+    throw new AssertionError();
+  }
+
+  private static final class FileState {
+    final long size;
+    final long lastModified;
+    String hash;  // lazily computed, only for inputs
+
+    FileState(long size, long lastModified, String hash) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+
+    boolean isMissing() {
+      return size == -1;
+    }
+  }
+
+  private static final class State {
+    final String configHash;
+    final LinkedHashMap<String, FileState> inputs;
+    final LinkedHashMap<String, FileState> outputs;
+
+    State(String configHash, LinkedHashMap<String, FileState> inputs, LinkedHashMap<String, FileState> outputs) {
+      this.configHash = configHash;
+      this.inputs = inputs;
+      this.outputs = outputs;
+    }
+  }
+
+  /**
+   * Execute a command if it's not up to date.
+   *
+   * @param command a command
+   * @param config the configuration of the command
+   * @param executor the function that really execute the command
+   * @return the error code of the command.
+   */
+  static int execute(Command command, Config config, ToIntBiFunction<? super Command, ? super Config> executor) {
+    var inputsAndOutputs = InputsAndOutputs.of(command, config);
+    if (inputsAndOutputs.outputs.isEmpty()) {  // nothing to check
+      return executor.applyAsInt(command, config);
+    }
+    var proConf = config.getOrThrow(ProConf.KEY);
+    var log = Log.create("pro", proConf.loglevel());
+    var root = proConf.currentDir().toAbsolutePath().normalize();
+    var stateFile = root.resolve(STATE_DIRECTORY).resolve(command.name());
+
+    var configHash = Digests.configHash(command, config).orElse(null);
+    if (configHash == null) {  // no stable hash, the outputs are still checked by the next execution
+      log.verbose(command.name(), name -> "up-to-date check of " + name + " skipped, its configuration has no canonical encoding");
+      return executor.applyAsInt(command, config);
+    }
+
+    State current;
+    try {
+      current = new State(configHash,
+          snapshot(root, inputsAndOutputs.inputs, inputsAndOutputs.outputs),
+          snapshot(root, inputsAndOutputs.outputs, List.of()));
+      var previous = read(stateFile);
+      if (previous != null && isUpToDate(previous, current, root)) {
+        write(stateFile, current);  // update the last modified times
+        log.info(command.name(), name -> "UP-TO-DATE " + name);
+        return 0;
+      }
+      hashInputs(current, root);
+      Files.deleteIfExists(stateFile);
+    } catch(IOException | UncheckedIOException e) {
+      log.verbose(e, _e -> "up-to-date check of " + command.name() + " failed " + _e.getMessage());
+      return executor.applyAsInt(command, config);
+    }
+
+    var errorCode = executor.applyAsInt(command, config);
+    if (errorCode != 0) {
+      return errorCode;
+    }
+    try {
+      write(stateFile, new State(current.configHash, current.inputs, snapshot(root, inputsAndOutputs.outputs, List.of())));
+    } catch(IOException | UncheckedIOException e) {
+      log.verbose(e, _e -> "up-to-date check of " + command.name() + " can not save state " + _e.getMessage());
+    }
+    return 0;
+  }
+
+  // the files inside one of the excluded paths are not part of the snapshot
+  private static LinkedHashMap<String, FileState> snapshot(Path root, List<Path> paths, List<Path> excludedPaths) throws IOException {
+    var map = new LinkedHashMap<String, FileState>();
+    for(var path: paths) {
+      if (isExcluded(path, excludedPaths)) {
+        continue;
+      }
+      if (!Files.exists(path)) {
+        map.put(Digests.relativize(root, path), new FileState(-1, -1, MISSING));
+        continue;
+      }
+      var files = new ArrayList<Path>();
+      try(var stream = Files.walk(path)) {
+        stream.filter(Files::isRegularFile).filter(file -> !isExcluded(file, excludedPaths)).sorted().forEach(files::add);
+      }
+      for(var file: files) {
+        map.put(Digests.relativize(root, file),
+            new FileState(Files.size(file), Files.getLastModifiedTime(file).toMillis(), null));
+      }
+    }
+    return map;
+  }
+
+  private static boolean isExcluded(Path path, List<Path> excludedPaths) {
+    for(var excludedPath: excludedPaths) {
+      if (path.startsWith(excludedPath)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isUpToDate(State previous, State current, Path root) throws IOException {
+    if (!previous.configHash.equals(current.configHash) ||
+        !previous.inputs.keySet().equals(current.inputs.keySet()) ||
+        !previous.outputs.keySet().equals(current.outputs.keySet())) {
+      return false;
+    }
+    for(var entry: current.outputs.entrySet()) {
+      var state = entry.getValue();
+      var previousState = previous.outputs.get(entry.getKey());
+      if (state.size != previousState.size || state.lastModified != previousState.lastModified) {
+        return false;
+      }
+    }
+    for(var entry: current.inputs.entrySet()) {
+      var state = entry.getValue();
+      var previousState = previous.inputs.get(entry.getKey());
+      if (state.isMissing() || previousState.isMissing()) {
+        if (state.isMissing() != previousState.isMissing()) {
+          return false;
+        }
+        continue;
+      }
+      if (state.size != previousState.size) {
+        return false;
+      }
+      if (state.lastModified == previousState.lastModified) {  // fast path
+        state.hash = previousState.hash;
+        continue;
+      }
+      state.hash = Digests.hash(resolve(root, entry.getKey()));
+      if (!state.hash.equals(previousState.hash)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void hashInputs(State state, Path root) throws IOException {
+    for(var entry: state.inputs.entrySet()) {
+      var fileState = entry.getValue();
+      if (fileState.hash == null) {
+        fileState.hash = Digests.hash(resolve(root, entry.getKey()));
+      }
+    }
+  }
+
+  private static Path resolve(Path root, String path) {
+    return root.resolve(path);  // if path is absolute, root is ignored
+  }
+
+  private static State read(Path stateFile) throws IOException {
+    if (!Files.exists(stateFile)) {
+      return null;
+    }
+    var lines = Files.readAllLines(stateFile, UTF_8);
+    if (lines.isEmpty()) {
+      return null;
+    }
+    var inputs = new LinkedHashMap<String, FileState>();
+    var outputs = new LinkedHashMap<String, FileState>();
+    for(var line: lines.subList(1, lines.size())) {
+      // kind size lastModified hash path
+      var tokens = line.split(" ", 5);
+      if (tokens.length != 5) {
+        return null;
+      }
+      var map = tokens[0].equals("I")? inputs: outputs;
+      var hash = tokens[3].equals(MISSING)? null: tokens[3];
+      map.put(tokens[4], new FileState(Long.parseLong(tokens[1]), Long.parseLong(tokens[2]), hash));
+    }
+    return new State(lines.get(0), inputs, outputs);
+  }
+
+  private static void write(Path stateFile, State state) throws IOException {
+    var lines = new ArrayList<String>();
+    lines.add(state.configHash);
+    append(lines, "I", state.inputs);
+    append(lines, "O", state.outputs);
+    Files.createDirectories(stateFile.getParent());
+    Files.write(stateFile, lines, UTF_8);
+  }
+
+  private static void append(List<String> lines, String kind, Map<String, FileState> map) {
+    map.forEach((path, state) -> {
+      lines.add(kind + ' ' + state.size + ' ' + state.lastModified + ' ' + Objects.requireNonNullElse(state.hash, MISSING) + ' ' + path);
+    });
+  }
+}
@@ -0,0 +1,157 @@
+package com.github.forax.pro;
+
+import static java.util.stream.Collectors.joining;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+import com.github.forax.pro.Pro.Action;
+import com.github.forax.pro.api.Command;
+import com.github.forax.pro.api.Config;
+import com.github.forax.pro.api.helper.ProConf;
+import com.github.forax.pro.api.impl.DefaultConfig;
+import com.github.forax.pro.helper.Log;
+
+/**
+ * A set of sub-projects built concurrently.
+ *
+ * Each sub-project is built like with {@link Pro#local(String, Action)}, inside a local directory
+ * with its own duplicated configuration, but the sub-projects that do not depend on each other
+ * are built concurrently (see {@link ProConf#parallelism()}).
+ * The commands of a sub-project are executed one after another, so the number of commands
+ * executed concurrently is bounded by the parallelism of the workspace.
+ * If a sub-project fails, the sub-projects that depend on it are skipped and
+ * all the errors are reported at the end.
+ *
+ * <pre>
+ *   workspace()
+ *     .project("lib", () -&gt; run("compiler", "packager"))
+ *     .project("app", list("lib"), () -&gt; run("compiler", "packager"))
+ *     .run();
+ * </pre>
+ *
+ * @see Pro#workspace()
+ */
+public final class Workspace {
+  private static final class Project {
+    final String localDir;
+    final List<String> dependencies;
+    final Action<? extends IOException> action;
+
+    Project(String localDir, List<String> dependencies, Action<? extends IOException> action) {
+      this.localDir = localDir;
+      this.dependencies = dependencies;
+      this.action = action;
+    }
+  }
+
+  private final LinkedHashMap<String, Project> projects = new LinkedHashMap<>();
+
+  Workspace() {
+    // use Pro.workspace()
+  }
+
+  /**
+   * Add a sub-project that does not depend on another sub-project.
+   *
+   * @param localDir the local directory of the sub-project
+   * @param action the action that builds the sub-project
+   * @return this workspace.
+   *
+   * @see #project(String, List, Action)
+   */
+  public Workspace project(String localDir, Action<? extends IOException> action) {
+    return project(localDir, List.of(), action);
+  }
+
+  /**
+   * Add a sub-project that depends on some sub-projects already added to the workspace.
+   *
+   * @param localDir the local directory of the sub-project
+   * @param dependencies the local directories of the sub-projects that must be built before.
+   * @param action the action that builds the sub-project
+   * @return this workspace.
+   * @throws IllegalArgumentException if the sub-project is already added
+   *         or if a dependency is not already added to the workspace.
+   */
+  public Workspace project(String localDir, List<String> dependencies, Action<? extends IOException> action) {
+    for(var dependency: dependencies) {
+      if (!projects.containsKey(dependency)) {
+        throw new IllegalArgumentException("unknown dependency " + dependency + " of project " + localDir);
+      }
+    }
+    if (projects.putIfAbsent(localDir, new Project(localDir, List.copyOf(dependencies), action)) != null) {
+      throw new IllegalArgumentException("project " + localDir + " already added");
+    }
+    return this;
+  }
+
+  /**
+   * Build all the sub-projects, sub-projects that do not depend on each other are built concurrently.
+   * If a sub-project fails, the {@link Pro#errorCode() error code} is updated.
+   */
+  public void run() {
+    var config = Pro.CONFIG.get();
+    var proConf = config.getOrThrow(ProConf.KEY);
+    var log = Log.create("pro", proConf.loglevel());
+    var currentDir = proConf.currentDir();
+
+    var nodes = new ArrayList<CommandScheduler.Node>();
+    var nodeMap = new LinkedHashMap<String, CommandScheduler.Node>();
+    for(var project: projects.values()) {
+      var projectConfig = config.duplicate();
+      var projectConf = projectConfig.getOrUpdate("pro", ProConf.class);
+      projectConf.currentDir(currentDir.resolve(project.localDir));
+      projectConf.exitOnError(false);  // errors are reported at the end
+      projectConf.parallelism(1);      // the sub-projects are already built concurrently
+
+      var node = new CommandScheduler.Node(nodes.size(), command(project), projectConfig, false, Set.of(), Set.of());
+      project.dependencies.forEach(dependency -> nodeMap.get(dependency).addSuccessor(node));
+      nodes.add(node);
+      nodeMap.put(project.localDir, node);
+    }
+
+    var start = System.currentTimeMillis();
+    var result = CommandScheduler.execute(log, nodes, Math.max(1, proConf.parallelism()), Pro::execute, /*keepGoing*/ true);
+    var elapsed = System.currentTimeMillis() - start;
+
+    var failed = nodes.stream().filter(node -> node.executed && node.errorCode != 0).map(Object::toString).collect(joining(", "));
+    var skipped = nodes.stream().filter(node -> !node.executed).map(Object::toString).collect(joining(", "));
+    if (result.errorCode == 0) {
+      log.info(elapsed, time -> String.format("WORKSPACE DONE !  %d projects, elapsed time %,d ms", nodes.size(), time));
+      return;
+    }
+
+    log.error(failed, _failed -> "failed projects: " + _failed);
+    if (!skipped.isEmpty()) {
+      log.error(skipped, _skipped -> "skipped projects: " + _skipped);
+    }
+    log.error(elapsed, time -> String.format("WORKSPACE FAILED !  elapsed time %,d ms", time));
+    config.getOrUpdate("pro", ProConf.class).errorCode(result.errorCode);
+    Pro.mayExit(proConf.exitOnError(), result.failedCommandName, result.errorCode);
+  }
+
+  private static Command command(Project project) {
+    return new Command() {
+      @Override
+      public String name() {
+        return project.localDir;
+      }
+      @Override
+      public int execute(Config config) throws IOException {
+        var oldConfig = Pro.CONFIG.get();
+        var projectConfig = (DefaultConfig)config;
+        Pro.CONFIG.set(projectConfig);
+        try {
+          project.action.execute();
+        } finally {
+          Pro.CONFIG.set(oldConfig);
+        }
+        return projectConfig.getOrThrow(ProConf.KEY).errorCode();
+      }
+    };
+  }
+}
@@ -2,6 +2,7 @@ module com.github.forax.pro {
   requires transitive com.github.forax.pro.api;
   requires com.github.forax.pro.daemon;
   requires transitive com.github.forax.pro.helper;
+  requires jdk.management;
   
   exports com.github.forax.pro;
   
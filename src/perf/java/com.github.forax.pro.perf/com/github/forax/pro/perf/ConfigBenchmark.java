@@ -0,0 +1,58 @@
+package com.github.forax.pro.perf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.forax.pro.Pro;
+import com.github.forax.pro.api.helper.ProConf;
+
+/**
+ * Compare the cost of the accessors of a configuration object,
+ * implemented by a generated class (the default) or by a {@link java.lang.reflect.Proxy}
+ * (see {@link ConfigProxyBenchmark}).
+ */
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ConfigBenchmark {
+  private ProConf proConf;
+
+  @Setup
+  public void setup() {
+    proConf = Pro.getOrUpdate("pro", ProConf.class);
+    proConf.loglevel("quiet");
+  }
+
+  @Benchmark
+  public String getter() {
+    return proConf.loglevel();
+  }
+
+  @Benchmark
+  public int primitiveGetter() {
+    return proConf.parallelism();
+  }
+
+  @Benchmark
+  public void setter() {
+    proConf.errorCode(0);
+  }
+
+  @Benchmark
+  public ProConf getOrUpdate() {
+    return Pro.getOrUpdate("pro", ProConf.class);
+  }
+}
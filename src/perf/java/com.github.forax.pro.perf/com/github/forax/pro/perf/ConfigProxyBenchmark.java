@@ -0,0 +1,12 @@
+package com.github.forax.pro.perf;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * Same benchmarks as {@link ConfigBenchmark} but the configuration objects are
+ * implemented using {@link java.lang.reflect.Proxy}.
+ */
+@Fork(value = 3, jvmArgsAppend = "-Dpro.configProxy=true")
+public class ConfigProxyBenchmark extends ConfigBenchmark {
+  // inherit the benchmarks
+}
@@ -0,0 +1,5 @@
+open module com.github.forax.pro.perf {
+  requires com.github.forax.pro;
+  requires org.openjdk.jmh;
+  requires org.openjdk.jmh.generator;
+}
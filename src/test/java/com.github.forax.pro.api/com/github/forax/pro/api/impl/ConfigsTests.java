@@ -1,13 +1,202 @@
 package com.github.forax.pro.api.impl;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Test;
 
+import com.github.forax.pro.api.ConfigKey;
+import com.github.forax.pro.api.MutableConfig;
+import com.github.forax.pro.api.TypeCheckedConfig;
+
 @SuppressWarnings("static-method")
 class ConfigsTests {
+  @TypeCheckedConfig
+  public interface FooConf {
+    int count();
+    void count(int count);
+    List<String> names();
+    FooConf names(List<String> names);
+    FooConf names(String... names);
+    String label();
+    void label(String label);
+  }
+
   @Test
   void newRootIsNotNull() {
     assertNotNull(new DefaultConfig());
   }
+
+  @Test
+  void generatedAccessors() {
+    var config = new DefaultConfig();
+    var foo = config.getOrUpdate("foo", FooConf.class);
+    foo.count(3);
+    foo.names("a", "b").count(4);
+    assertAll(
+        () -> assertTrue(foo instanceof Configs.Query),
+        () -> assertEquals(4, foo.count()),
+        () -> assertEquals(List.of("a", "b"), foo.names()),
+        () -> assertEquals(4, (int)config.get("foo.count", Integer.class).orElseThrow())
+        );
+  }
+
+  @Test
+  void duplicateIsIndependent() {
+    var config = new DefaultConfig();
+    config.getOrUpdate("foo", FooConf.class).count(1);
+    var duplicate = config.duplicate();
+    duplicate.getOrUpdate("foo", FooConf.class).count(2);
+    assertAll(
+        () -> assertEquals(1, config.getOrThrow("foo", FooConf.class).count()),
+        () -> assertEquals(2, duplicate.getOrThrow("foo", FooConf.class).count())
+        );
+  }
+
+  @Test
+  void duplicateCopyOnWrite() {
+    var config = new DefaultConfig();
+    var foo = config.getOrUpdate("foo", FooConf.class);
+    foo.count(1);
+    var duplicate = config.duplicate();
+    foo.count(2);  // obtained before the duplication
+    assertAll(
+        () -> assertEquals(2, config.getOrThrow("foo", FooConf.class).count()),
+        () -> assertEquals(1, duplicate.getOrThrow("foo", FooConf.class).count())
+        );
+  }
+
+  @Test
+  void derivedValueIsCachedUntilModified() {
+    var config = new DefaultConfig();
+    var foo = config.getOrUpdate("foo", FooConf.class);
+    var bar = config.getOrUpdate("bar", FooConf.class);
+    foo.count(1);
+    var evaluations = new int[1];
+    MutableConfig.derive(bar, FooConf::label, foo, f -> {
+      evaluations[0]++;
+      return "label" + f.count();
+    });
+    assertEquals("label1", bar.label());
+    assertEquals("label1", bar.label());
+    assertEquals(1, evaluations[0]);
+    foo.count(2);
+    assertEquals("label2", bar.label());
+    assertEquals(2, evaluations[0]);
+  }
+
+  @Test
+  void concurrentReadsOfDerivedValues() throws InterruptedException, ExecutionException {
+    var config = new DefaultConfig();
+    var foo = config.getOrUpdate("foo", FooConf.class);
+    foo.count(1);
+    for(var i = 0; i < 100; i++) {
+      var bar = config.getOrUpdate("bar" + i, FooConf.class);
+      MutableConfig.derive(bar, FooConf::label, foo, f -> "label" + f.count());
+      var baz = config.getOrUpdate("baz" + i, FooConf.class);
+      MutableConfig.derive(baz, FooConf::label, bar, b -> b.label() + "!");
+    }
+    var duplicate = config.duplicate();
+    var executor = Executors.newFixedThreadPool(8);
+    try {
+      var futures = new ArrayList<Future<?>>();
+      for(var thread = 0; thread < 8; thread++) {
+        futures.add(executor.submit(() -> {
+          for(var i = 0; i < 100; i++) {
+            assertEquals("label1!", duplicate.getOrThrow("baz" + i, FooConf.class).label());
+            assertEquals("label1", duplicate.getOrThrow("bar" + i, FooConf.class).label());
+          }
+          return null;
+        }));
+      }
+      for(var future: futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    duplicate.getOrUpdate("foo", FooConf.class).count(2);
+    assertEquals("label2!", duplicate.getOrThrow("baz0", FooConf.class).label());
+  }
+
+  @Test
+  void configKey() {
+    var config = new DefaultConfig();
+    config.getOrUpdate("foo", FooConf.class).count(1);
+    var key = ConfigKey.of("foo.count", int.class);
+    assertSame(key, ConfigKey.of("foo.count", int.class));
+    assertEquals(1, (int)config.getOrThrow(key));
+    config.set(key, 2);
+    assertEquals(2, (int)config.getOrThrow(key));
+  }
+
+  @Test
+  void concurrentReadsOfConfigKeys() throws InterruptedException, ExecutionException {
+    var config = new DefaultConfig();
+    for(var i = 0; i < 100; i++) {
+      config.getOrUpdate("foo" + i, FooConf.class).count(i);
+    }
+    var duplicate = config.duplicate();
+    var executor = Executors.newFixedThreadPool(8);
+    try {
+      var futures = new ArrayList<Future<?>>();
+      for(var thread = 0; thread < 8; thread++) {
+        futures.add(executor.submit(() -> {
+          for(var i = 0; i < 100; i++) {
+            assertEquals(i, (int)duplicate.getOrThrow(ConfigKey.of("foo" + i + ".count", int.class)));
+          }
+          return null;
+        }));
+      }
+      for(var future: futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void hashDoesNotDependOnInsertionOrder() {
+    var config1 = new DefaultConfig();
+    var foo1 = config1.getOrUpdate("foo", FooConf.class);
+    foo1.count(1);
+    foo1.label("bar");
+    var config2 = new DefaultConfig();
+    var foo2 = config2.getOrUpdate("foo", FooConf.class);
+    foo2.label("bar");
+    foo2.count(1);
+    assertArrayEquals(config1.encode("foo"), config2.encode("foo"));
+    assertEquals(config1.hash("foo"), config2.hash("foo"));
+    assertEquals(32, config1.hash("foo").length());
+    foo2.count(2);
+    assertNotEquals(config1.hash("foo"), config2.hash("foo"));
+  }
+
+  @Test
+  void hashRejectsValueWithNoCanonicalEncoding() {
+    var config = new DefaultConfig();
+    config.set("foo", List.of(new Thread()));
+    assertThrows(IllegalArgumentException.class, () -> config.hash("foo"));
+  }
+
+  @Test
+  void readOnlyView() {
+    var config = new DefaultConfig();
+    config.getOrUpdate("foo", FooConf.class).count(1);
+    var foo = DefaultConfig.asNonMutable(config).getOrThrow("foo", FooConf.class);
+    assertThrows(UnsupportedOperationException.class, () -> foo.count(2));
+  }
 }
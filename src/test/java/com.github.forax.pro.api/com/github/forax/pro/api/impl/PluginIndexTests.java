@@ -0,0 +1,95 @@
+package com.github.forax.pro.api.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("static-method")
+class PluginIndexTests {
+  private interface IOConsumer<T> {
+    void accept(T t) throws IOException;
+  }
+
+  private static void withPluginDirectory(IOConsumer<Path> consumer) throws IOException {
+    var directory = Files.createTempDirectory("plugin-index");
+    try {
+      Files.createDirectories(directory.resolve("foo"));
+      consumer.accept(directory);
+    } finally {
+      try(var stream = Files.walk(directory)) {
+        for(var path: (Iterable<Path>)stream.sorted(Comparator.reverseOrder())::iterator) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
+  private static List<String> lines(Path directory) throws IOException {
+    return Files.readAllLines(directory.resolve(PluginIndex.INDEX_FILE_NAME), UTF_8);
+  }
+
+  @Test
+  void loadWritesIndex() throws IOException {
+    withPluginDirectory(directory -> {
+      var index = PluginIndex.load(directory);
+      assertFalse(index.find("foo").isPresent());
+      var lines = lines(directory);
+      assertTrue(lines.get(1).startsWith("directory\t"));
+      assertEquals("end", lines.get(lines.size() - 1));
+      try(var stream = Files.list(directory)) {
+        assertEquals(2, stream.count());  // no temporary file left
+      }
+    });
+  }
+
+  @Test
+  void loadReadsIndex() throws IOException {
+    withPluginDirectory(directory -> {
+      PluginIndex.load(directory);
+      var lines = new ArrayList<>(lines(directory));
+      lines.add(lines.size() - 1, "plugin\tfoo\tcom.foo.FooPlugin\tcom.foo,com.foo.api\tfoo");
+      Files.write(directory.resolve(PluginIndex.INDEX_FILE_NAME), lines, UTF_8);
+
+      var entry = PluginIndex.load(directory).find("foo").orElseThrow();
+      assertEquals("com.foo.FooPlugin", entry.providerClassName());
+      assertEquals(directory.resolve("foo"), entry.directory());
+      assertEquals(List.of("com.foo", "com.foo.api"), entry.moduleNames());
+    });
+  }
+
+  @Test
+  void loadRebuildsTruncatedIndex() throws IOException {
+    withPluginDirectory(directory -> {
+      PluginIndex.load(directory);
+      var lines = new ArrayList<>(lines(directory));
+      lines.add(lines.size() - 1, "plugin\tfoo\tcom.foo.FooPlugin\t\tfoo");
+      Files.write(directory.resolve(PluginIndex.INDEX_FILE_NAME), lines.subList(0, lines.size() - 1), UTF_8);
+
+      assertFalse(PluginIndex.load(directory).find("foo").isPresent());
+      assertEquals("end", lines(directory).get(lines(directory).size() - 1));
+    });
+  }
+
+  @Test
+  void loadRebuildsCorruptedIndex() throws IOException {
+    withPluginDirectory(directory -> {
+      PluginIndex.load(directory);
+      var lines = new ArrayList<>(lines(directory));
+      lines.set(1, "directory\tnot-a-stamp\tfoo");
+      Files.write(directory.resolve(PluginIndex.INDEX_FILE_NAME), lines, UTF_8);
+
+      assertFalse(PluginIndex.load(directory).find("foo").isPresent());
+      assertTrue(lines(directory).get(1).matches("directory\t[0-9]+\tfoo"));
+    });
+  }
+}
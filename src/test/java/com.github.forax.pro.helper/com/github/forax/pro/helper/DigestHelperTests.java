@@ -0,0 +1,23 @@
+package com.github.forax.pro.helper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("static-method")
+class DigestHelperTests {
+  @Test
+  void toHex() {
+    assertAll(
+        () -> assertEquals("", DigestHelper.toHex(new byte[0])),
+        () -> assertEquals("000fa0ff", DigestHelper.toHex(new byte[] { 0, 15, (byte)0xA0, (byte)0xFF }))
+        );
+  }
+
+  @Test
+  void hash() {
+    assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", DigestHelper.hash("abc".getBytes(UTF_8)));
+  }
+}
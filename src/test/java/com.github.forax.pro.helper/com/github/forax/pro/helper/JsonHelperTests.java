@@ -0,0 +1,19 @@
+package com.github.forax.pro.helper;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("static-method")
+class JsonHelperTests {
+  @Test
+  void escape() {
+    assertAll(
+        () -> assertEquals("foo", JsonHelper.escape("foo")),
+        () -> assertEquals("a\\\"b\\\\c", JsonHelper.escape("a\"b\\c")),
+        () -> assertEquals("a\\nb\\tc", JsonHelper.escape("a\nb\tc")),
+        () -> assertEquals("\\u0001", JsonHelper.escape("\u0001"))
+        );
+  }
+}
@@ -0,0 +1,80 @@
+package com.github.forax.pro.helper;
+
+import java.io.IOException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.github.forax.pro.helper.ModuleHelper.ResolverListener;
+
+@SuppressWarnings("static-method")
+class ModuleGraphCacheTests {
+  private static ModuleReference sourceModule(ModuleDescriptor descriptor) {
+    return new ModuleReference(descriptor, null) {
+      @Override
+      public ModuleReader open() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private static List<String> notFound(Path cacheDirectory, Path dependencyPath) throws IOException {
+    var notFound = new ArrayList<String>();
+    var finder = ModuleHelper.moduleFinder(Set.of(
+        sourceModule(ModuleDescriptor.newModule("foo").requires("bar").build())));
+    ModuleGraphCache.resolveOnlyRequires(Log.create("test", "quiet"), cacheDirectory, finder, List.of(dependencyPath),
+        new ResolverListener() {
+          @Override
+          public void module(String moduleName) {
+            // empty
+          }
+          @Override
+          public void dependencyNotFound(String moduleName, String dependencyChain) {
+            notFound.add(dependencyChain);
+          }
+        });
+    return notFound;
+  }
+
+  @Test
+  void resolveFromCache() throws IOException {
+    var directory = Files.createTempDirectory("module-graph-cache");
+    try {
+      var cacheDirectory = directory.resolve("cache");
+      var dependencyPath = Files.createDirectories(directory.resolve("deps"));
+
+      Assertions.assertEquals(List.of("foo -> bar"), notFound(cacheDirectory, dependencyPath));
+      Assertions.assertEquals(List.of("foo -> bar"), notFound(cacheDirectory, dependencyPath));
+      try(var stream = Files.list(cacheDirectory)) {
+        Assertions.assertEquals(1, stream.count());
+      }
+    } finally {
+      FileHelper.deleteAllFiles(directory, true);
+    }
+  }
+
+  @Test
+  void resolveAgainWhenDependenciesChange() throws IOException {
+    var directory = Files.createTempDirectory("module-graph-cache");
+    try {
+      var cacheDirectory = directory.resolve("cache");
+      var dependencyPath = Files.createDirectories(directory.resolve("deps"));
+      Assertions.assertEquals(List.of("foo -> bar"), notFound(cacheDirectory, dependencyPath));
+
+      var bar = Files.createDirectories(dependencyPath.resolve("bar"));
+      Files.write(bar.resolve("module-info.class"),
+          ModuleHelper.moduleDescriptorToBinary(ModuleDescriptor.newModule("bar").build()));
+      Assertions.assertEquals(List.of(), notFound(cacheDirectory, dependencyPath));
+    } finally {
+      FileHelper.deleteAllFiles(directory, true);
+    }
+  }
+}
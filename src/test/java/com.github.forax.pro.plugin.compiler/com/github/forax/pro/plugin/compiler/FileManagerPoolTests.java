@@ -0,0 +1,74 @@
+package com.github.forax.pro.plugin.compiler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.forax.pro.helper.FileHelper;
+
+@SuppressWarnings("static-method")
+class FileManagerPoolTests {
+  private static void write(Path file, String text) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, text, UTF_8);
+  }
+
+  // compile like the compiler plugin, with a file manager of the pool
+  private static boolean compile(List<Path> files, String... arguments) throws IOException {
+    var javacTool = ToolProvider.getSystemJavaCompiler();
+    var pooled = FileManagerPool.acquire(javacTool, arguments);
+    var reusable = false;
+    try {
+      var fileManager = pooled.fileManager();
+      var compilationUnits = fileManager.getJavaFileObjects(files.toArray(Path[]::new));
+      var result = javacTool.getTask(null, fileManager, null, List.of(arguments), null, compilationUnits).call();
+      reusable = true;
+      return result;
+    } finally {
+      FileManagerPool.release(pooled, reusable);
+    }
+  }
+
+  @Test
+  void sourceAndTestPassesKeepTheirOutputs() throws IOException {
+    var directory = Files.createTempDirectory("file-manager-pool");
+    try {
+      var deps = Files.createDirectories(directory.resolve("deps"));
+      var main = directory.resolve("src/main/java");
+      var test = directory.resolve("target/test/merged");
+      var mainExploded = directory.resolve("target/main/exploded");
+      var testExploded = directory.resolve("target/test/exploded");
+      write(main.resolve("com.a/module-info.java"), "module com.a { exports com.a; }");
+      write(main.resolve("com.a/com/a/A.java"), "package com.a; public class A { }");
+      write(test.resolve("com.a/module-info.java"), "module com.a { exports com.a; }");
+      write(test.resolve("com.a/com/a/A.java"), "package com.a; public class A { }");
+      write(test.resolve("com.a/com/a/ATest.java"), "package com.a; public class ATest { A a; }");
+
+      assertTrue(compile(
+          List.of(main.resolve("com.a/module-info.java"), main.resolve("com.a/com/a/A.java")),
+          "-d", mainExploded.toString(), "--module-source-path", main.toString(), "--module-path", deps.toString()));
+      assertTrue(compile(
+          List.of(test.resolve("com.a/module-info.java"), test.resolve("com.a/com/a/A.java"), test.resolve("com.a/com/a/ATest.java")),
+          "-d", testExploded.toString(), "--module-source-path", test.toString(), "--module-path", deps + File.pathSeparator + mainExploded));
+
+      assertAll(
+          () -> assertTrue(Files.exists(mainExploded.resolve("com.a/com/a/A.class"))),
+          () -> assertFalse(Files.exists(mainExploded.resolve("com.a/com/a/ATest.class"))),
+          () -> assertTrue(Files.exists(testExploded.resolve("com.a/com/a/ATest.class")))
+          );
+    } finally {
+      FileHelper.deleteAllFiles(directory, true);
+    }
+  }
+}
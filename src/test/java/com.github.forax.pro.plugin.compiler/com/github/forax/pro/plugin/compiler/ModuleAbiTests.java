@@ -0,0 +1,56 @@
+package com.github.forax.pro.plugin.compiler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.forax.pro.helper.FileHelper;
+
+@SuppressWarnings("static-method")
+class ModuleAbiTests {
+  // compile the module com.a with a class A and returns the hash of its ABI
+  private static String abiHash(String classA) throws IOException {
+    var directory = Files.createTempDirectory("module-abi");
+    try {
+      var source = directory.resolve("src");
+      var output = directory.resolve("exploded");
+      Files.createDirectories(source.resolve("com/a"));
+      Files.writeString(source.resolve("module-info.java"), "module com.a { exports com.a; }", UTF_8);
+      Files.writeString(source.resolve("com/a/A.java"), "package com.a; " + classA, UTF_8);
+      var exitCode = ToolProvider.getSystemJavaCompiler().run(null, null, null,
+          "-d", output.toString(), source.resolve("module-info.java").toString(), source.resolve("com/a/A.java").toString());
+      assertEquals(0, exitCode);
+      return ModuleAbi.hash(output, false);
+    } finally {
+      FileHelper.deleteAllFiles(directory, true);
+    }
+  }
+
+  @Test
+  void methodBodyIsNotPartOfTheAbi() throws IOException {
+    assertEquals(
+        abiHash("public class A { public int m() { return 1; } }"),
+        abiHash("public class A { public int m() { return 2; } }"));
+  }
+
+  @Test
+  void memberAnnotationsArePartOfTheAbi() throws IOException {
+    assertNotEquals(
+        abiHash("public class A { public void m() { } }"),
+        abiHash("public class A { @Deprecated public void m() { } }"));
+    assertNotEquals(
+        abiHash("public class A { public int f; }"),
+        abiHash("public class A { @Deprecated public int f; }"));
+    assertNotEquals(
+        abiHash("public class A { public void m(int x) { } }"),
+        abiHash("public class A { public void m(@Deprecated int x) { } }"));
+  }
+}
@@ -0,0 +1,52 @@
+package com.github.forax.pro.plugin.compiler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.forax.pro.helper.FileHelper;
+
+@SuppressWarnings("static-method")
+class ProcessorTrackerTests {
+  @Test
+  void processorLayerIsReusedUntilModified() throws IOException {
+    var directory = Files.createTempDirectory("processor-tracker");
+    try {
+      var source = directory.resolve("src/com.p");
+      var modules = directory.resolve("modules");
+      Files.createDirectories(source.resolve("com/p"));
+      Files.writeString(source.resolve("module-info.java"), "module com.p { requires java.compiler; provides javax.annotation.processing.Processor with com.p.P; }", UTF_8);
+      Files.writeString(source.resolve("com/p/P.java"), "package com.p; public class P extends javax.annotation.processing.AbstractProcessor { " +
+          "public boolean process(java.util.Set<? extends javax.lang.model.element.TypeElement> annotations, " +
+          "javax.annotation.processing.RoundEnvironment roundEnv) { return false; } }", UTF_8);
+      var exitCode = ToolProvider.getSystemJavaCompiler().run(null, null, null,
+          "-d", modules.resolve("com.p").toString(), source.resolve("module-info.java").toString(), source.resolve("com/p/P.java").toString());
+      assertEquals(0, exitCode);
+
+      var processorModulePath = List.of(modules);
+      var layer = ProcessorTracker.processorLayer(processorModulePath);
+      assertTrue(layer.findModule("com.p").isPresent());  // bound as a provider of Processor
+      assertSame(layer, ProcessorTracker.processorLayer(processorModulePath));
+
+      var classFile = modules.resolve("com.p/com/p/P.class");
+      Files.setLastModifiedTime(classFile, FileTime.fromMillis(Files.getLastModifiedTime(classFile).toMillis() + 10_000));
+      var newLayer = ProcessorTracker.processorLayer(processorModulePath);
+      assertNotSame(layer, newLayer);
+      assertSame(newLayer, ProcessorTracker.processorLayer(processorModulePath));
+    } finally {
+      FileHelper.deleteAllFiles(directory, true);
+    }
+  }
+}
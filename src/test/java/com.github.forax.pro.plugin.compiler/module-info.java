@@ -0,0 +1,3 @@
+open module com.github.forax.pro.plugin.compiler {
+  requires org.junit.jupiter.api;
+}